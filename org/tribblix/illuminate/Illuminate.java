@@ -27,15 +27,22 @@ import java.awt.event.KeyEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.File;
+import java.util.concurrent.ExecutionException;
 import javax.swing.ImageIcon;
+import javax.swing.JComponent;
 import javax.swing.JFrame;
+import javax.swing.JLabel;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.JTabbedPane;
+import javax.swing.SwingConstants;
+import javax.swing.SwingWorker;
 import org.tribblix.illuminate.explorer.SysPanel;
+import org.tribblix.illuminate.pkgview.IPSPackageHandler;
 import org.tribblix.illuminate.pkgview.IPSSoftwarePanel;
 import org.tribblix.illuminate.pkgview.InstalledSoftwarePanel;
+import org.tribblix.illuminate.pkgview.PackageHandler;
 import uk.co.petertribble.jingle.JingleInfoFrame;
 import uk.co.petertribble.jingle.JingleMultiFrame;
 import uk.co.petertribble.jkstat.api.NativeJKstat;
@@ -45,7 +52,7 @@ import uk.co.petertribble.jkstat.demo.KstatToolsMenu;
  * Illuminate - shows system information.
  *
  * @author Peter Tribble
- * @version 1.0
+ * @version 1.1
  */
 public final class Illuminate extends JFrame implements ActionListener {
 
@@ -91,13 +98,14 @@ public final class Illuminate extends JFrame implements ActionListener {
 		new InfoCommandPanel());
 	jtp.add(IlluminateResources.getString("ILLUMINATE.SERV.TEXT"),
 		new SmfPanel());
-	if (new File("/usr/bin/pkg").exists()) {
-	    jtp.add(IlluminateResources.getString("ILLUMINATE.SOFT.TEXT"),
-		new IPSSoftwarePanel());
-	} else {
-	    jtp.add(IlluminateResources.getString("ILLUMINATE.SOFT.TEXT"),
-		new InstalledSoftwarePanel("/"));
-	}
+	/*
+	 * Reading the package catalog takes a while, so show a placeholder
+	 * until we know which view to use.
+	 */
+	jtp.add(IlluminateResources.getString("ILLUMINATE.SOFT.TEXT"),
+		new JLabel(IlluminateResources.getString(
+			"ILLUMINATE.SOFT.LOADING"), SwingConstants.CENTER));
+	new SoftwareWorker(jtp, jtp.getTabCount() - 1).execute();
 
 	JMenu jme = new JMenu(IlluminateResources.getString("FILE.TEXT"));
 	jme.setMnemonic(KeyEvent.VK_F);
@@ -151,6 +159,52 @@ public final class Illuminate extends JFrame implements ActionListener {
 	setVisible(true);
     }
 
+    /*
+     * Read the packaging data in the background, then replace the
+     * placeholder with the software view. Fall back to running pkg(1)
+     * if we can't read the catalog.
+     */
+    static final class SoftwareWorker
+	    extends SwingWorker<PackageHandler, Object> {
+	private static final boolean HAS_PKG =
+	    new File("/usr/bin/pkg").exists();
+	private final JTabbedPane jtp;
+	private final int index;
+
+	SoftwareWorker(final JTabbedPane jtp, final int index) {
+	    this.jtp = jtp;
+	    this.index = index;
+	}
+
+	@Override
+	public PackageHandler doInBackground() {
+	    PackageHandler pkghdl = PackageHandler.getHandler("/");
+	    if (HAS_PKG
+		    && !(pkghdl instanceof IPSPackageHandler
+			&& ((IPSPackageHandler) pkghdl).hasValidCatalog())) {
+		return null;
+	    }
+	    pkghdl.getSnapshot();
+	    return pkghdl;
+	}
+
+	@Override
+	protected void done() {
+	    JComponent panel;
+	    try {
+		PackageHandler pkghdl = get();
+		panel = (pkghdl == null) ? new IPSSoftwarePanel()
+		    : new InstalledSoftwarePanel(pkghdl);
+	    } catch (InterruptedException | ExecutionException e) {
+		if (!HAS_PKG) {
+		    return;
+		}
+		panel = new IPSSoftwarePanel();
+	    }
+	    jtp.setComponentAt(index, panel);
+	}
+    }
+
     class WinExit extends WindowAdapter {
 	@Override
 	public void windowClosing(final WindowEvent we) {
@@ -21,13 +21,16 @@
 package org.tribblix.illuminate;
 
 import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import org.tribblix.illuminate.helpers.CommandResult;
+import org.tribblix.illuminate.helpers.CommandRunner;
 import org.tribblix.illuminate.helpers.RunCommand;
 
 /**
  * InfoCommand - a command to show system information.
  *
  * @author Peter Tribble
- * @version 1.0
+ * @version 1.1
  */
 public class InfoCommand {
 
@@ -115,6 +118,19 @@ public class InfoCommand {
 	    : "Command not found";
     }
 
+    /**
+     * Run this informational command in the background.
+     *
+     * @return a CompletableFuture that completes with the output from
+     * running this command
+     */
+    public CompletableFuture<String> getOutputAsync() {
+	return exists()
+	    ? CommandRunner.run(fullcmd.split("\\s+"))
+		.thenApply(CommandResult::getOut)
+	    : CompletableFuture.completedFuture("Command not found");
+    }
+
     /**
      * Return the textual output from executing this informational command,
      * broken up into lines as a String array.
@@ -37,6 +37,7 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JSplitPane;
 import javax.swing.JToolBar;
+import javax.swing.SwingUtilities;
 import org.tribblix.illuminate.helpers.ManFrame;
 import uk.co.petertribble.jingle.JingleTextPane;
 
@@ -132,10 +133,18 @@ public final class InfoCommandPanel extends JPanel implements ActionListener {
 	currentCmd = ic;
 	jcl.setText(ic.infoLabel());
 	jmb.setEnabled(ic.getManpage() != null);
-	Cursor c = getCursor();
 	setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-	tp.setText("<pre>" + ic.getOutput() + "</pre>");
-	setCursor(c);
+	/*
+	 * Run the command in the background, and show its output if it's
+	 * still the one selected when it finishes.
+	 */
+	ic.getOutputAsync().whenComplete((s, t) ->
+	    SwingUtilities.invokeLater(() -> {
+		if (currentCmd == ic) {
+		    tp.setText("<pre>" + ((s == null) ? "" : s) + "</pre>");
+		    setCursor(Cursor.getDefaultCursor());
+		}
+	    }));
     }
 
     private void showMan() {
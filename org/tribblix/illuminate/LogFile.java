@@ -0,0 +1,326 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * LogFile - random access to the lines of a log file, however large,
+ * without reading it into memory.
+ *
+ * <p>The file is memory mapped, and an index of where each line ends is
+ * built incrementally by update(), which can be called again later to
+ * pick up lines appended to the file since. If the file shrinks, it is
+ * assumed to have been truncated or replaced, and is indexed afresh.
+ *
+ * <p>All methods are synchronized, so the index may be built in the
+ * background while lines are read from the event thread. Once closed,
+ * update() stops indexing promptly and won't reopen the file, so close()
+ * doesn't have to wait for indexing to finish.
+ *
+ * @author Peter Tribble
+ * @version 1.2
+ */
+public final class LogFile {
+
+    /*
+     * The file is mapped in segments of this size, as a single mapping
+     * is limited to 2GB.
+     */
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    /*
+     * Lines longer than this are truncated when returned.
+     */
+    private static final int MAX_LINE = 8192;
+
+    /*
+     * How many lines find() searches while holding the lock.
+     */
+    private static final int FIND_BLOCK = 4096;
+
+    /*
+     * While indexing, check whether the file has been closed every time
+     * this many bytes have been scanned.
+     */
+    private static final long CLOSED_CHECK_MASK = (1L << 20) - 1;
+
+    private final File file;
+    private FileChannel channel;
+    private volatile boolean closed;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    /*
+     * The offsets of the newline ending each complete line.
+     */
+    private long[] ends = new long[1024];
+    private int complete;
+    /*
+     * How much of the file is mapped, and how much has been indexed.
+     */
+    private long size;
+    private long indexed;
+    private int longest;
+
+    /**
+     * Create a LogFile for the given file. Nothing is read until update()
+     * is called.
+     *
+     * @param file the log file
+     */
+    public LogFile(final File file) {
+	this.file = file;
+    }
+
+    /**
+     * Index up to limit bytes of the file that haven't been indexed yet.
+     * Call repeatedly, until it returns false, to index the whole file.
+     *
+     * @param limit the maximum number of bytes to index
+     *
+     * @return true if there is more of the file still to index, false if
+     * the whole file has been indexed or the LogFile has been closed
+     *
+     * @throws IOException if the file can't be read
+     */
+    public synchronized boolean update(final long limit) throws IOException {
+	if (closed) {
+	    return false;
+	}
+	if (channel == null) {
+	    channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+	}
+	long fsize = channel.size();
+	if (fsize < size) {
+	    reset();
+	}
+	if (fsize > size) {
+	    map(fsize);
+	}
+	long stop = (limit < size - indexed) ? indexed + limit : size;
+	long lineStart = lineStart(complete);
+	for (long pos = indexed; pos < stop; pos++) {
+	    if ((pos & CLOSED_CHECK_MASK) == 0 && closed) {
+		return false;
+	    }
+	    if (byteAt(pos) == '\n') {
+		if (complete == ends.length) {
+		    ends = Arrays.copyOf(ends, ends.length * 2);
+		}
+		ends[complete++] = pos;
+		longest = (int) Math.max(longest, Math.min(pos - lineStart,
+							MAX_LINE));
+		lineStart = pos + 1;
+	    }
+	}
+	indexed = stop;
+	return indexed < size;
+    }
+
+    /*
+     * Map the file up to the given size, remapping the last segment if
+     * it has grown.
+     */
+    private void map(final long fsize) throws IOException {
+	int first = (int) (size >>> SEGMENT_SHIFT);
+	while (segments.size() > first) {
+	    segments.remove(segments.size() - 1);
+	}
+	for (long start = (long) first << SEGMENT_SHIFT; start < fsize;
+		start += SEGMENT_SIZE) {
+	    segments.add(channel.map(FileChannel.MapMode.READ_ONLY, start,
+				Math.min(SEGMENT_SIZE, fsize - start)));
+	}
+	size = fsize;
+    }
+
+    private void reset() {
+	segments.clear();
+	complete = 0;
+	size = 0;
+	indexed = 0;
+	longest = 0;
+    }
+
+    private byte byteAt(final long pos) {
+	return segments.get((int) (pos >>> SEGMENT_SHIFT))
+	    .get((int) (pos & SEGMENT_MASK));
+    }
+
+    private long lineStart(final int line) {
+	return (line == 0) ? 0 : ends[line - 1] + 1;
+    }
+
+    private long lineEnd(final int line) {
+	return (line < complete) ? ends[line] : indexed;
+    }
+
+    /**
+     * Return the number of lines indexed so far. A final line without a
+     * newline is counted.
+     *
+     * @return the number of lines
+     */
+    public synchronized int getLineCount() {
+	return (indexed > lineStart(complete)) ? complete + 1 : complete;
+    }
+
+    /**
+     * Return the number of complete lines, those ending in a newline,
+     * indexed so far.
+     *
+     * @return the number of complete lines
+     */
+    public synchronized int getCompleteLineCount() {
+	return complete;
+    }
+
+    /**
+     * Return the length, in bytes, of the longest line indexed so far.
+     *
+     * @return the length of the longest line
+     */
+    public synchronized int getLongestLine() {
+	return Math.max(longest,
+		(int) Math.min(indexed - lineStart(complete), MAX_LINE));
+    }
+
+    /**
+     * Return the given line, without its line ending. Very long lines are
+     * truncated.
+     *
+     * @param line the index of the line to return
+     *
+     * @return the text of the line, or an empty String if the line doesn't
+     * exist
+     */
+    public synchronized String getLine(final int line) {
+	if (line < 0 || line >= getLineCount()) {
+	    return "";
+	}
+	long start = lineStart(line);
+	long end = lineEnd(line);
+	if (end > start && byteAt(end - 1) == '\r') {
+	    end--;
+	}
+	byte[] b = new byte[(int) Math.min(end - start, MAX_LINE)];
+	for (int i = 0; i < b.length; i++) {
+	    b[i] = byteAt(start + i);
+	}
+	return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Find the next line containing the given text, ignoring case for
+     * ASCII characters.
+     *
+     * @param text the text to search for
+     * @param from the line to start searching from
+     * @param forward true to search forward from the given line, false to
+     * search backward
+     *
+     * @return the index of the first matching line found, or -1 if no line
+     * matches
+     */
+    public int find(final String text, final int from,
+			final boolean forward) {
+	byte[] pattern = text.getBytes(StandardCharsets.UTF_8);
+	for (int i = 0; i < pattern.length; i++) {
+	    pattern[i] = lower(pattern[i]);
+	}
+	/*
+	 * Search a block of lines at a time, so that a long search doesn't
+	 * keep other threads from reading lines.
+	 */
+	int step = forward ? FIND_BLOCK : -FIND_BLOCK;
+	for (int line = from; line >= 0 && line < getLineCount();
+		line += step) {
+	    int found = findIn(pattern, line, line + step);
+	    if (found >= 0) {
+		return found;
+	    }
+	}
+	return -1;
+    }
+
+    /*
+     * Search from line first toward, but not including, line last.
+     */
+    private synchronized int findIn(final byte[] pattern, final int first,
+				final int last) {
+	int step = (last > first) ? 1 : -1;
+	int count = getLineCount();
+	for (int line = first; line != last && line >= 0 && line < count;
+		line += step) {
+	    if (matches(line, pattern)) {
+		return line;
+	    }
+	}
+	return -1;
+    }
+
+    private boolean matches(final int line, final byte[] pattern) {
+	long last = lineEnd(line) - pattern.length;
+	for (long pos = lineStart(line); pos <= last; pos++) {
+	    int i = 0;
+	    while (i < pattern.length
+		    && lower(byteAt(pos + i)) == pattern[i]) {
+		i++;
+	    }
+	    if (i == pattern.length) {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    private static byte lower(final byte b) {
+	return (b >= 'A' && b <= 'Z') ? (byte) (b + 'a' - 'A') : b;
+    }
+
+    /**
+     * Close the file. The LogFile may not be used afterwards. If the file
+     * is being indexed, indexing stops at the next check rather than
+     * running to the end of its current chunk.
+     */
+    public void close() {
+	closed = true;
+	synchronized (this) {
+	    reset();
+	    if (channel != null) {
+		try {
+		    channel.close();
+		} catch (IOException ioe) { }
+		channel = null;
+	    }
+	}
+    }
+}
@@ -0,0 +1,419 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SmfBootAnalysis - work out where the time went in starting services.
+ *
+ * <p>For each running service, the time it came online is taken from its
+ * state_time, and the time its start method began from the last "Executing
+ * start method" line in its log. Combined with the dependency graph, that
+ * gives the critical path to the target milestone, the chain of services
+ * each of which was the last dependency of the next to come online, and
+ * the slack of the other services the target depends on: how much later
+ * each could have come online without delaying the target.
+ *
+ * <p>All the data comes from the snapshot's bulk svcs calls and from the
+ * logs, read with LogFile, so no further commands are run. The analysis
+ * reads every log, so shouldn't be run on the event thread.
+ *
+ * @author Peter Tribble
+ * @version 1.1
+ */
+public final class SmfBootAnalysis {
+
+    /**
+     * The milestone we're interested in getting to.
+     */
+    public static final String TARGET = "milestone/multi-user-server";
+    /*
+     * What to use if the target isn't present.
+     */
+    private static final String FALLBACK_TARGET = "milestone/multi-user";
+
+    private static final String START_LINE = "Executing start method";
+
+    /*
+     * state_time, as in "Mon Oct 19 10:00:01 2026", and a log timestamp,
+     * as in "[ Oct 19 10:00:00 Executing start method", each with spaces
+     * squeezed.
+     */
+    private static final DateTimeFormatter STATE_TIME =
+	DateTimeFormatter.ofPattern("EEE MMM d HH:mm:ss yyyy", Locale.ENGLISH);
+    private static final DateTimeFormatter LOG_TIME =
+	DateTimeFormatter.ofPattern("MMM d HH:mm:ss yyyy", Locale.ENGLISH);
+
+    private final List<Entry> entries;
+    private final String target;
+    private final List<String> criticalPath;
+    private final long origin;
+
+    /**
+     * The timings of one service.
+     */
+    public static final class Entry {
+	private final String fmri;
+	private final long begin;
+	private final long ready;
+	private boolean critical;
+	private long slack = -1;
+
+	Entry(final String fmri, final long begin, final long ready) {
+	    this.fmri = fmri;
+	    this.begin = begin;
+	    this.ready = ready;
+	}
+
+	/**
+	 * Return the FMRI of this service.
+	 *
+	 * @return the FMRI of this service
+	 */
+	public String getFMRI() {
+	    return fmri;
+	}
+
+	/**
+	 * Return when the start method of this service began.
+	 *
+	 * @return the start time, in milliseconds since the epoch
+	 */
+	public long getBegin() {
+	    return begin;
+	}
+
+	/**
+	 * Return when this service came online.
+	 *
+	 * @return the time this service came online, in milliseconds since
+	 * the epoch
+	 */
+	public long getReady() {
+	    return ready;
+	}
+
+	/**
+	 * Return how long this service took to come online.
+	 *
+	 * @return the start duration, in milliseconds
+	 */
+	public long getDuration() {
+	    return ready - begin;
+	}
+
+	/**
+	 * Return whether this service is on the critical path.
+	 *
+	 * @return true if this service is on the critical path
+	 */
+	public boolean isCritical() {
+	    return critical;
+	}
+
+	/**
+	 * Return how much later this service could have come online
+	 * without delaying the target.
+	 *
+	 * @return the slack in milliseconds, or -1 if the target doesn't
+	 * depend on this service through services that are running
+	 */
+	public long getSlack() {
+	    return slack;
+	}
+    }
+
+    /**
+     * Analyse the start of the services in a snapshot.
+     *
+     * @param snap the SmfSnapshot to analyse
+     */
+    public SmfBootAnalysis(final SmfSnapshot snap) {
+	snap.loadDetails();
+	SmfGraph graph = snap.getGraph();
+
+	/*
+	 * Get the timings of running services, reading the logs in
+	 * parallel.
+	 */
+	Map<String, Entry> emap = new ConcurrentHashMap<>();
+	snap.getFMRIs().parallelStream()
+	    .filter(f -> f.startsWith("svc:/"))
+	    .filter(f -> "online".equals(snap.getState(f))
+		    || "degraded".equals(snap.getState(f)))
+	    .forEach(f -> {
+		Entry e = timings(snap, f);
+		if (e != null) {
+		    emap.put(f, e);
+		}
+	    });
+	List<Entry> elist = new ArrayList<>(emap.values());
+	elist.sort((e1, e2) -> Long.compare(e1.begin, e2.begin));
+	entries = Collections.unmodifiableList(elist);
+	origin = elist.isEmpty() ? 0 : elist.get(0).begin;
+
+	List<String> targets = graph.resolve(TARGET);
+	if (targets.isEmpty()) {
+	    targets = graph.resolve(FALLBACK_TARGET);
+	}
+	target = targets.isEmpty() ? null : targets.get(0);
+	if (target == null || !emap.containsKey(target)) {
+	    criticalPath = Collections.emptyList();
+	    return;
+	}
+	criticalPath = Collections.unmodifiableList(
+				findCriticalPath(graph, emap));
+	for (String f : criticalPath) {
+	    emap.get(f).critical = true;
+	}
+	findSlack(graph, emap);
+    }
+
+    /*
+     * When the start method began, and when the service came online.
+     */
+    private static Entry timings(final SmfSnapshot snap, final String fmri) {
+	long ready = parseStateTime(snap.getProperty(fmri, "state_time"));
+	if (ready < 0) {
+	    ready = parseStime(snap.getStartTime(fmri));
+	}
+	if (ready < 0) {
+	    return null;
+	}
+	long begin = logStart(snap.getProperty(fmri, "logfile"), ready);
+	return new Entry(fmri, (begin < 0 || begin > ready) ? ready : begin,
+			ready);
+    }
+
+    private static long parseStateTime(final String s) {
+	if (s == null) {
+	    return -1;
+	}
+	try {
+	    return toMillis(LocalDateTime.parse(squeeze(s), STATE_TIME));
+	} catch (DateTimeParseException e) {
+	    return -1;
+	}
+    }
+
+    /*
+     * The stime shown by svcs only has the time of day for services
+     * started today.
+     */
+    private static long parseStime(final String s) {
+	try {
+	    return toMillis(LocalDate.now().atTime(LocalTime.parse(s)));
+	} catch (DateTimeParseException e) {
+	    return -1;
+	}
+    }
+
+    /*
+     * Find the time the last start method logged began. Log timestamps
+     * don't have a year, so assume the latest one not after the service
+     * came online.
+     */
+    private static long logStart(final String logfile, final long ready) {
+	if (logfile == null) {
+	    return -1;
+	}
+	LogFile lf = new LogFile(new File(logfile));
+	try {
+	    while (lf.update(Long.MAX_VALUE)) {
+		// index the whole log
+	    }
+	    int line = lf.find(START_LINE, lf.getLineCount() - 1, false);
+	    if (line < 0) {
+		return -1;
+	    }
+	    String[] ds = lf.getLine(line).trim().split("\\s+");
+	    if (ds.length < 4 || !"[".equals(ds[0])) {
+		return -1;
+	    }
+	    String stamp = ds[1] + " " + ds[2] + " " + ds[3] + " ";
+	    int year = LocalDateTime.ofInstant(Instant.ofEpochMilli(ready),
+					ZoneId.systemDefault()).getYear();
+	    long t = toMillis(LocalDateTime.parse(stamp + year, LOG_TIME));
+	    if (t > ready) {
+		t = toMillis(LocalDateTime.parse(stamp + (year - 1), LOG_TIME));
+	    }
+	    return t;
+	} catch (IOException | DateTimeParseException e) {
+	    return -1;
+	} finally {
+	    lf.close();
+	}
+    }
+
+    private static String squeeze(final String s) {
+	return s.trim().replaceAll("\\s+", " ");
+    }
+
+    private static long toMillis(final LocalDateTime ldt) {
+	return ldt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /*
+     * Walk back from the target, at each step to the dependency that
+     * came online last.
+     */
+    private List<String> findCriticalPath(final SmfGraph graph,
+					final Map<String, Entry> emap) {
+	List<String> path = new ArrayList<>();
+	Set<String> seen = new HashSet<>();
+	String cur = target;
+	while (cur != null && seen.add(cur)) {
+	    path.add(cur);
+	    Entry last = null;
+	    for (String dep : graph.getDependencies(cur)) {
+		Entry e = emap.get(dep);
+		if (e != null && (last == null || e.ready > last.ready)) {
+		    last = e;
+		}
+	    }
+	    cur = (last == null) ? null : last.fmri;
+	}
+	Collections.reverse(path);
+	return path;
+    }
+
+    /*
+     * The latest each service could have come online without delaying
+     * the target is the earliest, over the services depending on it, of
+     * their own latest time less their duration. Work back from the
+     * target, only visiting a service once all its dependents have been
+     * visited. Services in a dependency cycle are never visited, and
+     * services that only reach the target through services that aren't
+     * running have nothing to constrain them; both are left without a
+     * slack.
+     */
+    private void findSlack(final SmfGraph graph,
+			final Map<String, Entry> emap) {
+	Set<String> scope = new HashSet<>();
+	scope.add(target);
+	for (String f : graph.allDependencies(target)) {
+	    if (emap.containsKey(f)) {
+		scope.add(f);
+	    }
+	}
+	Map<String, Integer> waiting = new HashMap<>();
+	for (String f : scope) {
+	    int n = 0;
+	    for (String d : graph.getDependents(f)) {
+		if (scope.contains(d)) {
+		    n++;
+		}
+	    }
+	    waiting.put(f, n);
+	}
+	Map<String, Long> latest = new HashMap<>();
+	Deque<String> ready = new ArrayDeque<>();
+	for (Map.Entry<String, Integer> me : waiting.entrySet()) {
+	    if (me.getValue() == 0) {
+		ready.add(me.getKey());
+	    }
+	}
+	while (!ready.isEmpty()) {
+	    String f = ready.remove();
+	    Entry e = emap.get(f);
+	    long late = f.equals(target) ? e.ready : Long.MAX_VALUE;
+	    for (String d : graph.getDependents(f)) {
+		Long dlate = latest.get(d);
+		if (dlate != null) {
+		    late = Math.min(late,
+				dlate - emap.get(d).getDuration());
+		}
+	    }
+	    if (late != Long.MAX_VALUE) {
+		latest.put(f, late);
+		e.slack = Math.max(0, late - e.ready);
+	    }
+	    for (String dep : graph.getDependencies(f)) {
+		Integer n = waiting.get(dep);
+		if (n != null) {
+		    waiting.put(dep, n - 1);
+		    if (n == 1) {
+			ready.add(dep);
+		    }
+		}
+	    }
+	}
+    }
+
+    /**
+     * Return the timings of the running services, in the order their start
+     * methods began.
+     *
+     * @return an unmodifiable List of the timings of each service
+     */
+    public List<Entry> getEntries() {
+	return entries;
+    }
+
+    /**
+     * Return the target milestone.
+     *
+     * @return the FMRI of the target, or null if it isn't present
+     */
+    public String getTarget() {
+	return target;
+    }
+
+    /**
+     * Return the critical path, from the first service to the target.
+     *
+     * @return an unmodifiable List of the FMRIs on the critical path,
+     * which is empty if the target isn't running
+     */
+    public List<String> getCriticalPath() {
+	return criticalPath;
+    }
+
+    /**
+     * Return the time the first start method began, from which other
+     * times are measured.
+     *
+     * @return the earliest start time, in milliseconds since the epoch
+     */
+    public long getOrigin() {
+	return origin;
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Cursor;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JSplitPane;
+import javax.swing.JTable;
+import javax.swing.SwingWorker;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * SmfBootPanel - show how long services took to start, and which of them
+ * held up reaching the target milestone, as a table and as a timeline.
+ *
+ * @author Peter Tribble
+ * @version 1.1
+ */
+public final class SmfBootPanel extends JPanel implements ActionListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient SmfSnapshot snap;
+    private final JButton analyseButton;
+    private final JLabel summaryLabel;
+    private final BootTableModel tableModel;
+    private final Timeline timeline;
+
+    /**
+     * Create a panel to analyse the start of the services in a snapshot.
+     * Nothing is done until the user asks.
+     *
+     * @param snap the SmfSnapshot to analyse
+     */
+    public SmfBootPanel(final SmfSnapshot snap) {
+	super(new BorderLayout());
+	this.snap = snap;
+
+	JPanel tpanel = new JPanel(new BorderLayout());
+	analyseButton = new JButton(
+		IlluminateResources.getString("SMF.BOOT.ANALYSE"));
+	analyseButton.addActionListener(this);
+	tpanel.add(analyseButton, BorderLayout.LINE_START);
+	summaryLabel = new JLabel();
+	tpanel.add(summaryLabel, BorderLayout.CENTER);
+	add(tpanel, BorderLayout.PAGE_START);
+
+	tableModel = new BootTableModel();
+	JTable table = new JTable(tableModel);
+	table.setAutoCreateRowSorter(true);
+	table.getColumnModel().getColumn(0).setPreferredWidth(300);
+	timeline = new Timeline();
+
+	JSplitPane jsp = new JSplitPane(JSplitPane.VERTICAL_SPLIT,
+		new JScrollPane(table), new JScrollPane(timeline));
+	jsp.setOneTouchExpandable(true);
+	jsp.setDividerLocation(240);
+	add(jsp, BorderLayout.CENTER);
+    }
+
+    @Override
+    public void actionPerformed(final ActionEvent e) {
+	analyseButton.setEnabled(false);
+	setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+	new SwingWorker<SmfBootAnalysis, Object>() {
+	    @Override
+	    public SmfBootAnalysis doInBackground() {
+		return new SmfBootAnalysis(snap);
+	    }
+
+	    @Override
+	    protected void done() {
+		analyseButton.setEnabled(true);
+		setCursor(Cursor.getDefaultCursor());
+		try {
+		    showAnalysis(get());
+		} catch (InterruptedException | ExecutionException e) { }
+	    }
+	}.execute();
+    }
+
+    private void showAnalysis(final SmfBootAnalysis analysis) {
+	tableModel.setAnalysis(analysis);
+	timeline.setAnalysis(analysis);
+	List<String> path = analysis.getCriticalPath();
+	if (path.isEmpty()) {
+	    summaryLabel.setText(" "
+		+ IlluminateResources.getString("SMF.BOOT.NOTARGET") + " "
+		+ SmfBootAnalysis.TARGET);
+	} else {
+	    SmfBootAnalysis.Entry last = null;
+	    for (SmfBootAnalysis.Entry e : analysis.getEntries()) {
+		if (e.getFMRI().equals(analysis.getTarget())) {
+		    last = e;
+		}
+	    }
+	    summaryLabel.setText(" "
+		+ IlluminateResources.getString("SMF.BOOT.TARGET") + " "
+		+ analysis.getTarget() + ": "
+		+ seconds(last.getReady() - analysis.getOrigin()) + "s, "
+		+ path.size() + " "
+		+ IlluminateResources.getString("SMF.BOOT.CRITICAL.COUNT"));
+	}
+    }
+
+    private static String seconds(final long ms) {
+	return String.format("%.1f", ms / 1000.0);
+    }
+
+    /*
+     * The timings of each service. Times are shown in seconds, since the
+     * first start method began.
+     */
+    private static final class BootTableModel extends AbstractTableModel {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final String[] COLUMNS = {
+	    "SMF.BOOT.SERVICE", "SMF.BOOT.START", "SMF.BOOT.DURATION",
+	    "SMF.BOOT.READY", "SMF.BOOT.SLACK", "SMF.BOOT.CRITICAL"
+	};
+	private static final Class<?>[] CLASSES = {
+	    String.class, Double.class, Double.class,
+	    Double.class, Double.class, Boolean.class
+	};
+
+	private transient List<SmfBootAnalysis.Entry> entries =
+	    Collections.emptyList();
+	private long origin;
+
+	void setAnalysis(final SmfBootAnalysis analysis) {
+	    entries = analysis.getEntries();
+	    origin = analysis.getOrigin();
+	    fireTableDataChanged();
+	}
+
+	@Override
+	public int getRowCount() {
+	    return entries.size();
+	}
+
+	@Override
+	public int getColumnCount() {
+	    return COLUMNS.length;
+	}
+
+	@Override
+	public String getColumnName(final int col) {
+	    return IlluminateResources.getString(COLUMNS[col]);
+	}
+
+	@Override
+	public Class<?> getColumnClass(final int col) {
+	    return CLASSES[col];
+	}
+
+	@Override
+	public Object getValueAt(final int row, final int col) {
+	    SmfBootAnalysis.Entry e = entries.get(row);
+	    switch (col) {
+		case 0:
+		    return e.getFMRI();
+		case 1:
+		    return (e.getBegin() - origin) / 1000.0;
+		case 2:
+		    return e.getDuration() / 1000.0;
+		case 3:
+		    return (e.getReady() - origin) / 1000.0;
+		case 4:
+		    return (e.getSlack() < 0) ? null : e.getSlack() / 1000.0;
+		default:
+		    return e.isCritical();
+	    }
+	}
+    }
+
+    /*
+     * A bar for each service, from when its start method began to when
+     * it came online, with the critical path highlighted.
+     */
+    private static final class Timeline extends JComponent {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int ROW_HEIGHT = 16;
+	private static final int LABEL_WIDTH = 300;
+	private static final int BAR_WIDTH = 600;
+	private static final Color CRITICAL = new Color(200, 40, 40);
+	private static final Color NORMAL = new Color(80, 120, 200);
+	private static final Color SLACK = new Color(200, 200, 200);
+
+	private transient SmfBootAnalysis analysis;
+	private long span;
+
+	void setAnalysis(final SmfBootAnalysis nanalysis) {
+	    analysis = nanalysis;
+	    span = 1;
+	    for (SmfBootAnalysis.Entry e : analysis.getEntries()) {
+		span = Math.max(span, end(e) - analysis.getOrigin());
+	    }
+	    setPreferredSize(new Dimension(LABEL_WIDTH + BAR_WIDTH + 10,
+				ROW_HEIGHT * analysis.getEntries().size()));
+	    revalidate();
+	    repaint();
+	}
+
+	/*
+	 * The end of a service's slack, or when it came online if it has
+	 * none, without overflowing.
+	 */
+	private static long end(final SmfBootAnalysis.Entry e) {
+	    long slack = Math.max(0, e.getSlack());
+	    return (slack < Long.MAX_VALUE - e.getReady())
+		? e.getReady() + slack : Long.MAX_VALUE;
+	}
+
+	/*
+	 * Scale in floating point so a large time can't overflow, and keep
+	 * the result within the bar area.
+	 */
+	private int xpos(final long t) {
+	    double x = (double) (t - analysis.getOrigin()) * BAR_WIDTH / span;
+	    return LABEL_WIDTH + (int) Math.max(0, Math.min(x, BAR_WIDTH));
+	}
+
+	@Override
+	protected void paintComponent(final Graphics g) {
+	    g.setColor(getBackground());
+	    g.fillRect(0, 0, getWidth(), getHeight());
+	    if (analysis == null) {
+		return;
+	    }
+	    FontMetrics fm = g.getFontMetrics();
+	    int y = 0;
+	    for (SmfBootAnalysis.Entry e : analysis.getEntries()) {
+		int x1 = xpos(e.getBegin());
+		int x2 = xpos(e.getReady());
+		if (e.getSlack() > 0) {
+		    g.setColor(SLACK);
+		    g.fillRect(x2, y + 4, xpos(end(e)) - x2, ROW_HEIGHT - 8);
+		}
+		g.setColor(e.isCritical() ? CRITICAL : NORMAL);
+		g.fillRect(x1, y + 2, Math.max(x2 - x1, 2), ROW_HEIGHT - 4);
+		g.setColor(getForeground());
+		g.drawString(e.getFMRI(), 2,
+			y + (ROW_HEIGHT + fm.getAscent()) / 2 - 1);
+		y += ROW_HEIGHT;
+	    }
+	}
+    }
+}
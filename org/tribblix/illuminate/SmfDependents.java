@@ -20,51 +20,116 @@
 
 package org.tribblix.illuminate;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * SmfDependents - print the services that depend on this service, in a tree.
  *
+ * <p>The dependency graph of all services is loaded once, so the tree
+ * is printed without running svcs for each service. A service already
+ * on the path to the top of the tree is marked as a cycle rather than
+ * being descended into again.
+ *
  * @author Peter Tribble
- * @version 1.0
+ * @version 2.0
  */
 public final class SmfDependents {
 
-    // save the dependency tree to avoid repeated calls
-    private static final Map<String, String> DEPMAP = new HashMap<>();
+    private final SmfGraph graph;
 
-    private SmfDependents() {
+    private SmfDependents(final SmfGraph graph) {
+	this.graph = graph;
     }
 
-    private static void printDependents(final String arg) {
-	printDependents(arg, "");
+    private void printDependents(final String fmri, final String inset,
+				final Set<String> path) {
+	if (path.contains(fmri)) {
+	    System.out.println(inset + fmri + " (cycle)");
+	    return;
+	}
+	System.out.println(inset + fmri);
+	path.add(fmri);
+	for (String s : graph.getDependents(fmri)) {
+	    printDependents(s, inset + "  ", path);
+	}
+	path.remove(fmri);
     }
 
-    private static void printDependents(final String arg, final String inset) {
-	System.out.println(inset + arg);
-	String sdep = DEPMAP.get(arg);
-	if (sdep == null) {
-	    SmfService ss = new SmfService(arg, "dummy");
-	    sdep = ss.getDependents();
-	    DEPMAP.put(arg, sdep);
+    private void printAll(final String fmri) {
+	System.out.println(fmri);
+	for (String s : graph.allDependents(fmri)) {
+	    System.out.println("  " + s);
 	}
-	for (String line : sdep.split("\n")) {
-	    String[] ds = line.trim().split("\\s+", 3);
-	    if (ds.length == 3) {
-		printDependents(ds[2], inset + "  ");
-	    }
+    }
+
+    private void printCycles() {
+	for (Set<String> cycle : graph.getCycles()) {
+	    System.out.println("cycle: " + String.join(" ", cycle));
+	}
+    }
+
+    private void printChain() {
+	String inset = "";
+	for (String s : graph.longestChain()) {
+	    System.out.println(inset + s);
+	    inset = inset + "  ";
 	}
     }
 
+    private static void usage() {
+	System.err.println("Usage: smfdependents [-t] [-c] [-l] [service ...]");
+	System.err.println("  -t  list all the services involved, "
+			+ "rather than a tree");
+	System.err.println("  -c  show dependency cycles");
+	System.err.println("  -l  show the longest dependency chain");
+	System.exit(1);
+    }
+
     /**
      * Run the smfdependents command.
      *
      * @param args names of smf services you wish to display
      */
     public static void main(final String[] args) {
+	boolean flat = false;
+	boolean cycles = false;
+	boolean chain = false;
+	List<String> names = new ArrayList<>();
 	for (String arg : args) {
-	    printDependents(arg);
+	    if ("-t".equals(arg)) {
+		flat = true;
+	    } else if ("-c".equals(arg)) {
+		cycles = true;
+	    } else if ("-l".equals(arg)) {
+		chain = true;
+	    } else if (arg.startsWith("-")) {
+		usage();
+	    } else {
+		names.add(arg);
+	    }
+	}
+	SmfDependents sd = new SmfDependents(new SmfSnapshot().getGraph());
+	if (cycles) {
+	    sd.printCycles();
+	}
+	if (chain) {
+	    sd.printChain();
+	}
+	for (String name : names) {
+	    List<String> fmris = sd.graph.resolve(name);
+	    if (fmris.isEmpty()) {
+		System.err.println("No such service: " + name);
+	    }
+	    for (String fmri : fmris) {
+		if (flat) {
+		    sd.printAll(fmri);
+		} else {
+		    sd.printDependents(fmri, "", new HashSet<>());
+		}
+	    }
 	}
     }
 }
@@ -0,0 +1,387 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * SmfGraph - the dependency graph of SMF services.
+ *
+ * <p>Services are numbered, and the graph held as arrays of the indices
+ * of the services each service depends on, and of the services that
+ * depend on it. It's built once from an SmfSnapshot, after which all
+ * queries are done in memory.
+ *
+ * @author Peter Tribble
+ * @version 1.0
+ */
+public final class SmfGraph {
+
+    private final String[] fmris;
+    private final Map<String, Integer> index = new HashMap<>();
+    private final int[][] deps;
+    private final int[][] rdeps;
+
+    /*
+     * Strongly connected components, in the order found. As deps point
+     * from a service to its dependencies, a component is always found
+     * after the components it depends on.
+     */
+    private final int[] component;
+    private final List<int[]> components = new ArrayList<>();
+    /*
+     * The length of the longest chain of dependencies starting at each
+     * service, and the next service along that chain, or -1.
+     */
+    private final int[] chainLength;
+    private final int[] chainNext;
+
+    /**
+     * Build the dependency graph of the services in a snapshot.
+     *
+     * @param snap the SmfSnapshot to build the graph from
+     */
+    public SmfGraph(final SmfSnapshot snap) {
+	fmris = snap.getFMRIs().toArray(new String[0]);
+	for (int i = 0; i < fmris.length; i++) {
+	    index.put(fmris[i], i);
+	}
+	deps = new int[fmris.length][];
+	int[] rcount = new int[fmris.length];
+	for (int i = 0; i < fmris.length; i++) {
+	    deps[i] = toIndices(snap.getDependencies(fmris[i]));
+	    for (int j : deps[i]) {
+		rcount[j]++;
+	    }
+	}
+	rdeps = new int[fmris.length][];
+	for (int i = 0; i < fmris.length; i++) {
+	    rdeps[i] = new int[rcount[i]];
+	    rcount[i] = 0;
+	}
+	for (int i = 0; i < fmris.length; i++) {
+	    for (int j : deps[i]) {
+		rdeps[j][rcount[j]++] = i;
+	    }
+	}
+	component = new int[fmris.length];
+	findComponents();
+	chainLength = new int[fmris.length];
+	chainNext = new int[fmris.length];
+	findChains();
+    }
+
+    private int[] toIndices(final Set<String> names) {
+	int[] ia = new int[names.size()];
+	int n = 0;
+	for (String s : names) {
+	    Integer i = index.get(s);
+	    if (i != null) {
+		ia[n++] = i;
+	    }
+	}
+	return Arrays.copyOf(ia, n);
+    }
+
+    private List<String> toNames(final BitSet bs) {
+	List<String> l = new ArrayList<>();
+	for (int i = bs.nextSetBit(0); i >= 0; i = bs.nextSetBit(i + 1)) {
+	    l.add(fmris[i]);
+	}
+	Collections.sort(l);
+	return l;
+    }
+
+    /**
+     * Return the number of services in the graph.
+     *
+     * @return the number of services
+     */
+    public int size() {
+	return fmris.length;
+    }
+
+    /**
+     * Find the services matching a name given by the user. This may be
+     * a full FMRI or, as with svcs, the trailing part of one, such as
+     * network/ssh or ssh.
+     *
+     * @param name the name to match
+     *
+     * @return a List of the matching FMRIs, which may be empty
+     */
+    public List<String> resolve(final String name) {
+	if (index.containsKey(name)) {
+	    return Collections.singletonList(name);
+	}
+	List<String> l = new ArrayList<>();
+	for (String fmri : fmris) {
+	    String s = fmri.startsWith("svc:/") ? fmri.substring(5) : fmri;
+	    if (s.equals(name) || s.endsWith("/" + name)
+		    || s.startsWith(name + ":") || s.contains("/" + name + ":")
+		    || fmri.equals("svc:/" + name + ":default")) {
+		l.add(fmri);
+	    }
+	}
+	return l;
+    }
+
+    /**
+     * Return the services a service depends on directly.
+     *
+     * @param fmri the FMRI of the service
+     *
+     * @return the FMRIs of the services it depends on
+     */
+    public List<String> getDependencies(final String fmri) {
+	return neighbours(deps, fmri);
+    }
+
+    /**
+     * Return the services depending directly on a service.
+     *
+     * @param fmri the FMRI of the service
+     *
+     * @return the FMRIs of the services depending on it
+     */
+    public List<String> getDependents(final String fmri) {
+	return neighbours(rdeps, fmri);
+    }
+
+    private List<String> neighbours(final int[][] adj, final String fmri) {
+	Integer i = index.get(fmri);
+	if (i == null) {
+	    return Collections.emptyList();
+	}
+	List<String> l = new ArrayList<>(adj[i].length);
+	for (int j : adj[i]) {
+	    l.add(fmris[j]);
+	}
+	return l;
+    }
+
+    /**
+     * Return all the services a service depends on, directly or
+     * indirectly.
+     *
+     * @param fmri the FMRI of the service
+     *
+     * @return the sorted FMRIs of the services it depends on
+     */
+    public List<String> allDependencies(final String fmri) {
+	return toNames(closure(deps, fmri));
+    }
+
+    /**
+     * Return all the services depending on a service, directly or
+     * indirectly.
+     *
+     * @param fmri the FMRI of the service
+     *
+     * @return the sorted FMRIs of the services depending on it
+     */
+    public List<String> allDependents(final String fmri) {
+	return toNames(closure(rdeps, fmri));
+    }
+
+    private BitSet closure(final int[][] adj, final String fmri) {
+	BitSet seen = new BitSet(fmris.length);
+	Integer start = index.get(fmri);
+	if (start == null) {
+	    return seen;
+	}
+	int[] stack = new int[fmris.length];
+	int sp = 0;
+	stack[sp++] = start;
+	while (sp > 0) {
+	    for (int j : adj[stack[--sp]]) {
+		if (!seen.get(j)) {
+		    seen.set(j);
+		    stack[sp++] = j;
+		}
+	    }
+	}
+	// a service is only its own dependency if it's in a cycle
+	if (component(start).length == 1 && !selfLoop(start)) {
+	    seen.clear(start);
+	}
+	return seen;
+    }
+
+    private int[] component(final int i) {
+	return components.get(component[i]);
+    }
+
+    private boolean selfLoop(final int i) {
+	for (int j : deps[i]) {
+	    if (j == i) {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * Find the dependency cycles in the graph. Each cycle is given as
+     * the sorted set of services that depend on each other.
+     *
+     * @return a List of cycles, empty if there are none
+     */
+    public List<Set<String>> getCycles() {
+	List<Set<String>> cycles = new ArrayList<>();
+	for (int[] comp : components) {
+	    if (comp.length > 1 || selfLoop(comp[0])) {
+		Set<String> cycle = new TreeSet<>();
+		for (int i : comp) {
+		    cycle.add(fmris[i]);
+		}
+		cycles.add(cycle);
+	    }
+	}
+	return cycles;
+    }
+
+    /**
+     * Return the longest chain of dependencies in the graph.
+     *
+     * @return the services in the chain, each depending on the next
+     */
+    public List<String> longestChain() {
+	int best = -1;
+	for (int i = 0; i < fmris.length; i++) {
+	    if (best < 0 || chainLength[i] > chainLength[best]) {
+		best = i;
+	    }
+	}
+	return chainFrom(best);
+    }
+
+    /**
+     * Return the longest chain of dependencies starting at a service.
+     *
+     * @param fmri the FMRI of the service
+     *
+     * @return the services in the chain, starting with the given service,
+     * each depending on the next
+     */
+    public List<String> longestChain(final String fmri) {
+	Integer i = index.get(fmri);
+	return chainFrom(i == null ? -1 : i);
+    }
+
+    private List<String> chainFrom(final int start) {
+	List<String> chain = new ArrayList<>();
+	for (int i = start; i >= 0; i = chainNext[i]) {
+	    chain.add(fmris[i]);
+	}
+	return chain;
+    }
+
+    /*
+     * Tarjan's algorithm, without recursion as dependency chains can be
+     * long.
+     */
+    private void findComponents() {
+	int n = fmris.length;
+	int[] order = new int[n];
+	int[] low = new int[n];
+	boolean[] onStack = new boolean[n];
+	int[] stack = new int[n];
+	int sp = 0;
+	// the call stack: the node, and how many of its edges we've seen
+	int[] cnode = new int[n];
+	int[] cedge = new int[n];
+	int counter = 0;
+	Arrays.fill(order, -1);
+	for (int root = 0; root < n; root++) {
+	    if (order[root] >= 0) {
+		continue;
+	    }
+	    int csp = 0;
+	    cnode[csp] = root;
+	    cedge[csp++] = 0;
+	    order[root] = counter;
+	    low[root] = counter++;
+	    stack[sp++] = root;
+	    onStack[root] = true;
+	    while (csp > 0) {
+		int v = cnode[csp - 1];
+		if (cedge[csp - 1] < deps[v].length) {
+		    int w = deps[v][cedge[csp - 1]++];
+		    if (order[w] < 0) {
+			order[w] = counter;
+			low[w] = counter++;
+			stack[sp++] = w;
+			onStack[w] = true;
+			cnode[csp] = w;
+			cedge[csp++] = 0;
+		    } else if (onStack[w]) {
+			low[v] = Math.min(low[v], order[w]);
+		    }
+		} else {
+		    csp--;
+		    if (csp > 0) {
+			int u = cnode[csp - 1];
+			low[u] = Math.min(low[u], low[v]);
+		    }
+		    if (low[v] == order[v]) {
+			int top = sp;
+			do {
+			    sp--;
+			    onStack[stack[sp]] = false;
+			    component[stack[sp]] = components.size();
+			} while (stack[sp] != v);
+			components.add(Arrays.copyOfRange(stack, sp, top));
+		    }
+		}
+	    }
+	}
+    }
+
+    /*
+     * Components are found dependencies first, so the chain lengths of
+     * everything a service depends on are known before its own. Within
+     * a cycle, dependencies on other members of the cycle are ignored.
+     */
+    private void findChains() {
+	Arrays.fill(chainNext, -1);
+	for (int[] comp : components) {
+	    for (int v : comp) {
+		chainLength[v] = 1;
+		for (int w : deps[v]) {
+		    if (component[w] != component[v]
+			    && chainLength[w] + 1 > chainLength[v]) {
+			chainLength[v] = chainLength[w] + 1;
+			chainNext[v] = w;
+		    }
+		}
+	    }
+	}
+    }
+}
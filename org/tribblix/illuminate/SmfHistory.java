@@ -0,0 +1,238 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SmfHistory - record the state transitions of SMF services, as seen by
+ * an SmfWatcher, and spot services that are flapping.
+ *
+ * <p>The most recent transitions of each service are kept in a ring
+ * buffer, as a time and a state code, in arrays allocated up front for
+ * all the services in the snapshot. So the memory used is fixed, however
+ * long we run, and older transitions are simply overwritten.
+ *
+ * <p>A service is flapping if it has made more than a given number of
+ * transitions in the given window of time, which default to 5 in 10
+ * minutes and may be changed with the illuminate.smf.flap.count and
+ * illuminate.smf.flap.window (in seconds) properties.
+ *
+ * @author Peter Tribble
+ * @version 1.0
+ */
+public final class SmfHistory {
+
+    /*
+     * How many transitions are kept for each service.
+     */
+    private static final int CAPACITY = 32;
+
+    /*
+     * The states we can record. Anything else is recorded as the last.
+     */
+    private static final String[] STATES = {
+	"uninitialized", "offline", "online", "degraded", "maintenance",
+	"disabled", "legacy_run", "unknown"
+    };
+
+    private final SmfSnapshot snap;
+    private final Map<String, Integer> index = new HashMap<>();
+    private final long[] times;
+    private final byte[] states;
+    /*
+     * For each service, where its next transition goes, and how many
+     * it has recorded, up to CAPACITY.
+     */
+    private final int[] next;
+    private final int[] count;
+    private final int flapCount;
+    private final long flapWindow;
+
+    /**
+     * A recorded state transition.
+     */
+    public static final class Transition {
+	private final long time;
+	private final String state;
+
+	Transition(final long time, final String state) {
+	    this.time = time;
+	    this.state = state;
+	}
+
+	/**
+	 * Return when the transition was seen.
+	 *
+	 * @return the time of the transition, in milliseconds since the
+	 * epoch
+	 */
+	public long getTime() {
+	    return time;
+	}
+
+	/**
+	 * Return the state the service moved to.
+	 *
+	 * @return the new state of the service
+	 */
+	public String getState() {
+	    return state;
+	}
+    }
+
+    /**
+     * Create a recorder for the services in a snapshot.
+     *
+     * @param snap the SmfSnapshot whose services are to be recorded
+     */
+    public SmfHistory(final SmfSnapshot snap) {
+	this.snap = snap;
+	List<String> fmris = snap.getFMRIs();
+	for (int i = 0; i < fmris.size(); i++) {
+	    index.put(fmris.get(i), i);
+	}
+	times = new long[fmris.size() * CAPACITY];
+	states = new byte[fmris.size() * CAPACITY];
+	next = new int[fmris.size()];
+	count = new int[fmris.size()];
+	flapCount = Integer.getInteger("illuminate.smf.flap.count", 5);
+	flapWindow = 1000L * Integer.getInteger("illuminate.smf.flap.window",
+						600);
+    }
+
+    /**
+     * Record a transition for each of the given services, to the state
+     * the snapshot now has for it. A change in start time without a
+     * change in state means the service went through some other state
+     * between samples, so also counts as a transition.
+     *
+     * @param fmris the FMRIs of the services that have changed
+     */
+    public synchronized void record(final List<String> fmris) {
+	long now = System.currentTimeMillis();
+	for (String fmri : fmris) {
+	    Integer i = index.get(fmri);
+	    if (i != null) {
+		int slot = i * CAPACITY + next[i];
+		times[slot] = now;
+		states[slot] = stateCode(snap.getState(fmri));
+		next[i] = (next[i] + 1) % CAPACITY;
+		if (count[i] < CAPACITY) {
+		    count[i]++;
+		}
+	    }
+	}
+    }
+
+    private static byte stateCode(final String state) {
+	for (int i = 0; i < STATES.length - 1; i++) {
+	    if (STATES[i].equals(state)) {
+		return (byte) i;
+	    }
+	}
+	return (byte) (STATES.length - 1);
+    }
+
+    /**
+     * Return the recorded transitions of a service, oldest first.
+     *
+     * @param fmri the FMRI of the service
+     *
+     * @return a List of the recorded transitions, which may be empty
+     */
+    public synchronized List<Transition> getHistory(final String fmri) {
+	List<Transition> l = new ArrayList<>();
+	Integer i = index.get(fmri);
+	if (i != null) {
+	    int first = (next[i] - count[i] + CAPACITY) % CAPACITY;
+	    for (int j = 0; j < count[i]; j++) {
+		int slot = i * CAPACITY + (first + j) % CAPACITY;
+		l.add(new Transition(times[slot], STATES[states[slot]]));
+	    }
+	}
+	return l;
+    }
+
+    /**
+     * Return how many transitions a service has made within the flapping
+     * window.
+     *
+     * @param fmri the FMRI of the service
+     *
+     * @return the number of recent transitions
+     */
+    public synchronized int recentTransitions(final String fmri) {
+	Integer i = index.get(fmri);
+	if (i == null) {
+	    return 0;
+	}
+	long since = System.currentTimeMillis() - flapWindow;
+	int n = 0;
+	for (int j = 1; j <= count[i]; j++) {
+	    int slot = i * CAPACITY + (next[i] - j + CAPACITY) % CAPACITY;
+	    if (times[slot] < since) {
+		break;
+	    }
+	    n++;
+	}
+	return n;
+    }
+
+    /**
+     * Return whether a service is flapping, having made more than the
+     * allowed number of transitions within the flapping window.
+     *
+     * @param fmri the FMRI of the service
+     *
+     * @return true if the service is flapping
+     */
+    public boolean isFlapping(final String fmri) {
+	return recentTransitions(fmri) > flapCount;
+    }
+
+    /**
+     * Return all the services that are flapping.
+     *
+     * @return a List of the FMRIs of the flapping services
+     */
+    public List<String> getFlapping() {
+	List<String> l = new ArrayList<>();
+	for (String fmri : snap.getFMRIs()) {
+	    if (isFlapping(fmri)) {
+		l.add(fmri);
+	    }
+	}
+	return l;
+    }
+
+    /**
+     * Return the length of the flapping window.
+     *
+     * @return the flapping window, in seconds
+     */
+    public long getFlapWindow() {
+	return flapWindow / 1000;
+    }
+}
@@ -21,10 +21,12 @@
 package org.tribblix.illuminate;
 
 import java.awt.BorderLayout;
-import java.awt.Cursor;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
@@ -33,6 +35,7 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JSplitPane;
 import javax.swing.JTabbedPane;
+import javax.swing.SwingUtilities;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 import org.tribblix.illuminate.helpers.ManFrame;
@@ -40,13 +43,12 @@ import uk.co.petertribble.jingle.JingleTextPane;
 import uk.co.petertribble.jproc.api.JProc;
 import uk.co.petertribble.jproc.api.JProcessFilter;
 import uk.co.petertribble.jproc.gui.JPinfoTable;
-import uk.co.petertribble.jumble.JumbleFile;
 
 /**
  * SmfInfoPanel - shows smf status.
  *
  * @author Peter Tribble
- * @version 1.0
+ * @version 1.6
  */
 public final class SmfInfoPanel extends JPanel implements ActionListener {
 
@@ -59,11 +61,28 @@ public final class SmfInfoPanel extends JPanel implements ActionListener {
     /**
      * A panel to show the log file.
      */
-    private final JingleTextPane tpl;
+    private final SmfLogPanel logPanel;
     /**
      * A panel to show the service properties.
      */
     private final JingleTextPane tprops;
+    /**
+     * A panel to show the history of state changes.
+     */
+    private final JingleTextPane historyPane;
+    /*
+     * What the history pane is showing, so it's only reset if that
+     * changes.
+     */
+    private String historyText;
+    /**
+     * The recorded state changes, if any.
+     */
+    private transient SmfHistory history;
+    /**
+     * The service being shown.
+     */
+    private transient SmfService current;
     /**
      * A panel to show dependencies.
      */
@@ -131,13 +150,18 @@ public final class SmfInfoPanel extends JPanel implements ActionListener {
 	jtp.add(IlluminateResources.getString("SMF.DEPS"),
 		new JScrollPane(dtp));
 
-	tpl = new JingleTextPane("text/plain");
-	jtp.add(IlluminateResources.getString("SMF.LOG"), new JScrollPane(tpl));
+	logPanel = new SmfLogPanel();
+	jtp.add(IlluminateResources.getString("SMF.LOG"), logPanel);
 
 	tprops = new JingleTextPane("text/plain");
 	jtp.add(IlluminateResources.getString("SMF.PROPERTIES"),
 		new JScrollPane(tprops));
 
+	historyPane = new JingleTextPane("text/plain");
+	jtp.add(IlluminateResources.getString("SMF.HISTORY"),
+		new JScrollPane(historyPane));
+	jtp.setEnabledAt(4, false);
+
 	/*
 	 * Add a change listener so that, when the log tab is
 	 * selected, the logfile is automatically displayed.
@@ -159,6 +183,8 @@ public final class SmfInfoPanel extends JPanel implements ActionListener {
      * @param svc the SmfService to show information on.
      */
     public void setInfo(final SmfService svc) {
+	current = svc;
+	showHistory();
 	tp.setText(svc.getHtmlInfo());
 	setManButtons(svc);
 	setDep(svc.getDepInfo());
@@ -167,6 +193,27 @@ public final class SmfInfoPanel extends JPanel implements ActionListener {
 	// FIXME bug no contract is -1, but the table interprets -1
 	// as no filtering
 	jpi.setContract(svc.getContract());
+	/*
+	 * A service that isn't in the snapshot runs svcs itself, in the
+	 * background, so show it again once that's done.
+	 */
+	if (svc.needsLoading()) {
+	    svc.loadDetails().thenRun(() -> SwingUtilities.invokeLater(() -> {
+		if (current == svc) {
+		    setInfo(svc);
+		}
+	    }));
+	}
+    }
+
+    /**
+     * Called once the snapshot has loaded the service details, so that
+     * anything shown as loading can be filled in.
+     */
+    public void detailsLoaded() {
+	if (current != null) {
+	    setInfo(current);
+	}
     }
 
     private void setManButtons(final SmfService svc) {
@@ -215,11 +262,97 @@ public final class SmfInfoPanel extends JPanel implements ActionListener {
 	}
     }
 
+    /**
+     * Show the given service, with its log file open at the given line.
+     *
+     * @param svc the SmfService to show information on
+     * @param line the line of the log file to show
+     */
+    public void showLogLine(final SmfService svc, final int line) {
+	setInfo(svc);
+	if (logfile != null) {
+	    jtp.setSelectedIndex(2);
+	    logPanel.showLine(line);
+	}
+    }
+
+    /**
+     * Set the recorder of state changes, so that the history of each
+     * service can be shown.
+     *
+     * @param nhistory the SmfHistory to show state changes from
+     */
+    public void setHistory(final SmfHistory nhistory) {
+	history = nhistory;
+	jtp.setEnabledAt(4, true);
+	showHistory();
+    }
+
+    /**
+     * Tell the panel that services have changed state, so that the
+     * history of the service being shown can be updated.
+     *
+     * @param fmris the FMRIs of the services that have changed
+     */
+    public void servicesChanged(final List<String> fmris) {
+	if (current != null && fmris.contains(current.getFMRI())) {
+	    showHistory();
+	}
+    }
+
+    /**
+     * Update the history of the service being shown. Nothing may have
+     * changed state, but a service stops flapping once its state changes
+     * fall outside the flapping window, so this should be called
+     * periodically.
+     */
+    public void updateHistory() {
+	showHistory();
+    }
+
+    private void showHistory() {
+	if (history == null || current == null) {
+	    return;
+	}
+	String fmri = current.getFMRI();
+	StringBuilder sb = new StringBuilder();
+	if (history.isFlapping(fmri)) {
+	    sb.append(IlluminateResources.getString("SMF.HISTORY.FLAPPING"))
+		.append(' ').append(history.recentTransitions(fmri))
+		.append(' ')
+		.append(IlluminateResources.getString("SMF.HISTORY.WINDOW"))
+		.append(' ').append(history.getFlapWindow()).append("s\n\n");
+	}
+	List<SmfHistory.Transition> transitions = history.getHistory(fmri);
+	if (transitions.isEmpty()) {
+	    sb.append(IlluminateResources.getString("SMF.HISTORY.NONE"));
+	}
+	SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+	for (SmfHistory.Transition t : transitions) {
+	    sb.append(df.format(new Date(t.getTime()))).append("  ")
+		.append(t.getState()).append('\n');
+	}
+	String text = sb.toString();
+	if (!text.equals(historyText)) {
+	    historyText = text;
+	    historyPane.setText(text);
+	}
+    }
+
+    /**
+     * Show the given service, with its properties.
+     *
+     * @param svc the SmfService to show information on
+     */
+    public void showProperties(final SmfService svc) {
+	setInfo(svc);
+	if (jtp.isEnabledAt(3)) {
+	    jtp.setSelectedIndex(3);
+	}
+    }
+
     void displayLog() {
-	Cursor c = getCursor();
-	setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-	tpl.setText(JumbleFile.getStringContents(logfile));
-	setCursor(c);
+	logPanel.setLogFile(logfile);
     }
 
     @Override
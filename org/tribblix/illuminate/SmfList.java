@@ -27,20 +27,34 @@ import javax.swing.JList;
  * SmfList - shows SMF services in a JList.
  *
  * @author Peter Tribble
- * @version 1.0
+ * @version 1.2
  */
 public final class SmfList extends JList<SmfService> {
 
     private static final long serialVersionUID = 1L;
 
+    private final SmfListCellRenderer renderer;
+
     /**
      * Display a list of SMF services.
      *
-     * @param sslist An SmfServiceList
+     * @param model An SmfListModel
+     */
+    public SmfList(final SmfListModel model) {
+	super(model);
+	renderer = new SmfListCellRenderer();
+	setCellRenderer(renderer);
+    }
+
+    /**
+     * Set the recorder of state changes, so that services that are
+     * flapping can be marked.
+     *
+     * @param history the SmfHistory to check for flapping services
      */
-    public SmfList(final SmfServiceList sslist) {
-	super(sslist);
-	setCellRenderer(new SmfListCellRenderer());
+    public void setHistory(final SmfHistory history) {
+	renderer.setHistory(history);
+	repaint();
     }
 
     /**
@@ -22,14 +22,17 @@ package org.tribblix.illuminate;
 
 import java.awt.Color;
 import java.awt.Component;
+import java.net.URL;
 import javax.swing.DefaultListCellRenderer;
+import javax.swing.ImageIcon;
 import javax.swing.JList;
 
 /**
- * SmfListCellRenderer - custom cell renderer for SMF services.
+ * SmfListCellRenderer - custom cell renderer for SMF services. Services
+ * that are flapping are marked with a warning icon.
  *
  * @author Peter Tribble
- * @version 1.0
+ * @version 1.1
  */
 public final class SmfListCellRenderer extends DefaultListCellRenderer {
 
@@ -41,6 +44,27 @@ public final class SmfListCellRenderer extends DefaultListCellRenderer {
     private static final Color ONCOLOR = new Color(151, 255, 151);
     private static final Color OFFCOLOR = Color.ORANGE;
 
+    private final ImageIcon warnIcon;
+    private transient SmfHistory history;
+
+    /**
+     * Create an SmfListCellRenderer.
+     */
+    public SmfListCellRenderer() {
+	URL imgURL = getClass().getResource("/images/warn.png");
+	warnIcon = (imgURL == null) ? null : new ImageIcon(imgURL);
+    }
+
+    /**
+     * Set the recorder of state changes, so that services that are
+     * flapping can be marked.
+     *
+     * @param nhistory the SmfHistory to check for flapping services
+     */
+    public void setHistory(final SmfHistory nhistory) {
+	history = nhistory;
+    }
+
     @Override
     public Component getListCellRendererComponent(final JList list,
 	    final Object value, final int index,
@@ -58,6 +82,9 @@ public final class SmfListCellRenderer extends DefaultListCellRenderer {
 	    if (color != null) {
 		setBackground(isSelected ? color : color.brighter());
 	    }
+	    if (history != null && history.isFlapping(serv)) {
+		setIcon(warnIcon);
+	    }
 	}
 	return this;
     }
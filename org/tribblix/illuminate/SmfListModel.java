@@ -0,0 +1,75 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.AbstractListModel;
+
+/**
+ * SmfListModel - a ListModel of SMF services, which can tell the list
+ * when individual services change.
+ *
+ * @author Peter Tribble
+ * @version 1.0
+ */
+public final class SmfListModel extends AbstractListModel<SmfService> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient List<SmfService> services;
+    private final transient Map<String, Integer> index = new HashMap<>();
+
+    /**
+     * Create a list model for the given services.
+     *
+     * @param sslist An SmfServiceList
+     */
+    public SmfListModel(final SmfServiceList sslist) {
+	services = sslist;
+	for (int i = 0; i < services.size(); i++) {
+	    index.put(services.get(i).getFMRI(), i);
+	}
+    }
+
+    /**
+     * Notify the list that a service has changed.
+     *
+     * @param fmri the FMRI of the service that has changed
+     */
+    public void serviceChanged(final String fmri) {
+	Integer i = index.get(fmri);
+	if (i != null) {
+	    fireContentsChanged(this, i, i);
+	}
+    }
+
+    @Override
+    public int getSize() {
+	return services.size();
+    }
+
+    @Override
+    public SmfService getElementAt(final int i) {
+	return services.get(i);
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate;
+
+import java.awt.BorderLayout;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import javax.swing.AbstractListModel;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+
+/**
+ * SmfLogPanel - shows a service log file, however large. Only the lines
+ * that are visible are read from the file, new lines are picked up as
+ * they are written, and the log can be searched.
+ *
+ * @author Peter Tribble
+ * @version 1.2
+ */
+public final class SmfLogPanel extends JPanel implements ActionListener {
+
+    private static final long serialVersionUID = 1L;
+
+    /*
+     * How often to check for new lines, in ms.
+     */
+    private static final int INTERVAL = 1000;
+    /*
+     * How many bytes to index before showing the lines found so far.
+     */
+    private static final long CHUNK = 16L * 1024 * 1024;
+    /*
+     * Tab stops are every 8 characters.
+     */
+    private static final int TABSTOP = 8;
+
+    private final JList<String> list;
+    private final LogListModel model;
+    private final JCheckBox followBox;
+    private final JTextField findField;
+    private final JButton nextButton;
+    private final JButton prevButton;
+    private final JLabel statusLabel;
+    private final Timer timer;
+    private final int charWidth;
+
+    /**
+     * The log file being shown.
+     */
+    private transient LogFile logFile;
+    private File currentFile;
+    /*
+     * Whether the log file is being indexed.
+     */
+    private boolean updating;
+    /*
+     * A line to show once it has been indexed, or -1.
+     */
+    private int pendingLine = -1;
+
+    /**
+     * Create an empty SmfLogPanel.
+     */
+    public SmfLogPanel() {
+	super(new BorderLayout());
+
+	model = new LogListModel();
+	list = new JList<>(model);
+	list.setFont(new Font(Font.MONOSPACED, Font.PLAIN,
+				list.getFont().getSize()));
+	// fixed cell sizes, so that only the visible lines are read
+	list.setPrototypeCellValue("X");
+	FontMetrics fm = list.getFontMetrics(list.getFont());
+	charWidth = fm.charWidth('m');
+	add(new JScrollPane(list), BorderLayout.CENTER);
+
+	JPanel tpanel = new JPanel(new BorderLayout());
+	followBox = new JCheckBox(
+			IlluminateResources.getString("SMF.LOG.FOLLOW"), true);
+	followBox.addActionListener(this);
+	tpanel.add(followBox, BorderLayout.LINE_START);
+	JPanel fpanel = new JPanel(new BorderLayout());
+	fpanel.add(new JLabel(IlluminateResources.getString("SMF.LOG.FIND")),
+		BorderLayout.LINE_START);
+	findField = new JTextField();
+	findField.addActionListener(this);
+	fpanel.add(findField, BorderLayout.CENTER);
+	tpanel.add(fpanel, BorderLayout.CENTER);
+	JPanel bpanel = new JPanel();
+	prevButton = new JButton(IlluminateResources.getString("SMF.LOG.PREV"));
+	prevButton.addActionListener(this);
+	bpanel.add(prevButton);
+	nextButton = new JButton(IlluminateResources.getString("SMF.LOG.NEXT"));
+	nextButton.addActionListener(this);
+	bpanel.add(nextButton);
+	statusLabel = new JLabel();
+	bpanel.add(statusLabel);
+	tpanel.add(bpanel, BorderLayout.LINE_END);
+	add(tpanel, BorderLayout.PAGE_START);
+
+	/*
+	 * Check for new lines, but only while the log is visible.
+	 */
+	timer = new Timer(INTERVAL, new ActionListener() {
+	    @Override
+	    public void actionPerformed(final ActionEvent e) {
+		if (isShowing()) {
+		    startUpdate();
+		}
+	    }
+	});
+	timer.start();
+    }
+
+    /**
+     * Show the given log file. If it's the file already shown, just check
+     * for new lines.
+     *
+     * @param f the log file to show, or null to show nothing
+     */
+    public void setLogFile(final File f) {
+	if (f != null && f.equals(currentFile)) {
+	    startUpdate();
+	    return;
+	}
+	if (logFile != null) {
+	    logFile.close();
+	}
+	currentFile = f;
+	pendingLine = -1;
+	logFile = (f == null) ? null : new LogFile(f);
+	model.setSize(0);
+	list.setFixedCellWidth(-1);
+	statusLabel.setText("");
+	startUpdate();
+    }
+
+    /**
+     * Select and show the given line of the log file, as soon as it has
+     * been indexed.
+     *
+     * @param line the index of the line to show
+     */
+    public void showLine(final int line) {
+	// stop following, or the line would scroll away
+	followBox.setSelected(false);
+	pendingLine = line;
+	showPendingLine();
+    }
+
+    private void showPendingLine() {
+	if (pendingLine >= 0 && pendingLine < model.getSize()) {
+	    list.setSelectedIndex(pendingLine);
+	    list.ensureIndexIsVisible(pendingLine);
+	    pendingLine = -1;
+	}
+    }
+
+    /*
+     * Index new lines in the background, showing them as they are found.
+     */
+    private void startUpdate() {
+	if (updating || logFile == null) {
+	    return;
+	}
+	updating = true;
+	final LogFile lf = logFile;
+	new SwingWorker<Void, Integer>() {
+	    @Override
+	    public Void doInBackground() throws IOException {
+		boolean more = true;
+		while (more) {
+		    more = lf.update(CHUNK);
+		    publish(lf.getLineCount());
+		}
+		return null;
+	    }
+
+	    @Override
+	    protected void process(final List<Integer> counts) {
+		if (lf == logFile) {
+		    showLines(counts.get(counts.size() - 1));
+		}
+	    }
+
+	    @Override
+	    protected void done() {
+		updating = false;
+		if (lf != logFile) {
+		    // the file was changed while we were indexing
+		    startUpdate();
+		    return;
+		}
+		try {
+		    get();
+		} catch (InterruptedException | ExecutionException e) {
+		    statusLabel.setText(
+			IlluminateResources.getString("SMF.LOG.UNREADABLE"));
+		}
+	    }
+	}.execute();
+    }
+
+    private void showLines(final int count) {
+	if (count == model.getSize()) {
+	    return;
+	}
+	model.setSize(count);
+	int width = charWidth * (logFile.getLongestLine() + 1);
+	if (width > list.getFixedCellWidth()) {
+	    list.setFixedCellWidth(width);
+	}
+	if (followBox.isSelected() && count > 0) {
+	    list.ensureIndexIsVisible(count - 1);
+	}
+	showPendingLine();
+    }
+
+    /*
+     * Search for the text in the find field, from the line after or
+     * before the selected line, in the background.
+     */
+    private void find(final boolean forward) {
+	final String text = findField.getText();
+	if (logFile == null || text.isEmpty()) {
+	    return;
+	}
+	int sel = list.getSelectedIndex();
+	final int from;
+	if (sel < 0) {
+	    from = forward ? 0 : model.getSize() - 1;
+	} else {
+	    from = forward ? sel + 1 : sel - 1;
+	}
+	final LogFile lf = logFile;
+	nextButton.setEnabled(false);
+	prevButton.setEnabled(false);
+	statusLabel.setText("");
+	new SwingWorker<Integer, Object>() {
+	    @Override
+	    public Integer doInBackground() {
+		return lf.find(text, from, forward);
+	    }
+
+	    @Override
+	    protected void done() {
+		nextButton.setEnabled(true);
+		prevButton.setEnabled(true);
+		if (lf != logFile) {
+		    return;
+		}
+		try {
+		    int line = get();
+		    if (line < 0) {
+			statusLabel.setText(
+			    IlluminateResources.getString("SMF.LOG.NOTFOUND"));
+		    } else {
+			// stop following, or the match would scroll away
+			followBox.setSelected(false);
+			list.setSelectedIndex(line);
+			list.ensureIndexIsVisible(line);
+		    }
+		} catch (InterruptedException | ExecutionException e) { }
+	    }
+	}.execute();
+    }
+
+    @Override
+    public void actionPerformed(final ActionEvent e) {
+	if (e.getSource() == prevButton) {
+	    find(false);
+	} else if (e.getSource() == followBox) {
+	    if (followBox.isSelected() && model.getSize() > 0) {
+		list.ensureIndexIsVisible(model.getSize() - 1);
+	    }
+	} else {
+	    find(true);
+	}
+    }
+
+    /*
+     * Expand tabs, as a JList doesn't.
+     */
+    private static String expandTabs(final String s) {
+	if (s.indexOf('\t') < 0) {
+	    return s;
+	}
+	StringBuilder sb = new StringBuilder();
+	for (char c : s.toCharArray()) {
+	    if (c == '\t') {
+		do {
+		    sb.append(' ');
+		} while (sb.length() % TABSTOP != 0);
+	    } else {
+		sb.append(c);
+	    }
+	}
+	return sb.toString();
+    }
+
+    /*
+     * The lines of the log file. The size is only changed on the event
+     * thread, so it's always consistent with the events the list has
+     * been sent.
+     */
+    private final class LogListModel extends AbstractListModel<String> {
+
+	private static final long serialVersionUID = 1L;
+
+	private int size;
+
+	void setSize(final int nsize) {
+	    int osize = size;
+	    size = nsize;
+	    if (nsize > osize) {
+		fireIntervalAdded(this, osize, nsize - 1);
+	    } else if (nsize < osize) {
+		fireIntervalRemoved(this, nsize, osize - 1);
+	    }
+	}
+
+	@Override
+	public int getSize() {
+	    return size;
+	}
+
+	@Override
+	public String getElementAt(final int i) {
+	    return expandTabs(logFile.getLine(i));
+	}
+    }
+}
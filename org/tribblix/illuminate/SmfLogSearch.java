@@ -0,0 +1,228 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SmfLogSearch - search the log files of all SMF services.
+ *
+ * <p>The logs are memory mapped and searched in parallel. For each of the
+ * most recent searches, we remember how far each log has been searched,
+ * so that repeating a search only looks at lines added to the logs since.
+ *
+ * @author Peter Tribble
+ * @version 1.0
+ */
+public final class SmfLogSearch {
+
+    /*
+     * How many searches to remember the results of.
+     */
+    private static final int CACHE_SIZE = 8;
+
+    /*
+     * The most matches kept for each log, so a common string doesn't
+     * swamp the results.
+     */
+    private static final int MAX_MATCHES = 1000;
+
+    private final SmfServiceList sslist;
+    private Map<SmfService, LogFile> logs;
+
+    /*
+     * For recent searches, the progress and matches in each log.
+     */
+    private final Map<String, Map<SmfService, Scan>> cache =
+	new LinkedHashMap<String, Map<SmfService, Scan>>(16, 0.75f, true) {
+	    private static final long serialVersionUID = 1L;
+
+	    @Override
+	    protected boolean removeEldestEntry(
+		    final Map.Entry<String, Map<SmfService, Scan>> eldest) {
+		return size() > CACHE_SIZE;
+	    }
+	};
+
+    /**
+     * A line in a log file that matched a search.
+     */
+    public static final class Match {
+	private final SmfService svc;
+	private final int line;
+	private final String text;
+
+	Match(final SmfService svc, final int line, final String text) {
+	    this.svc = svc;
+	    this.line = line;
+	    this.text = text;
+	}
+
+	/**
+	 * Return the service whose log this match is in.
+	 *
+	 * @return the SmfService whose log contains this match
+	 */
+	public SmfService getService() {
+	    return svc;
+	}
+
+	/**
+	 * Return the index of the matching line.
+	 *
+	 * @return the line number, counting from zero
+	 */
+	public int getLine() {
+	    return line;
+	}
+
+	/**
+	 * Return the text of the matching line.
+	 *
+	 * @return the text of the matching line
+	 */
+	public String getText() {
+	    return text;
+	}
+
+	@Override
+	public String toString() {
+	    return (line + 1) + ": " + text;
+	}
+    }
+
+    /*
+     * How far a search has got in one log.
+     */
+    private static final class Scan {
+	private int scanned;
+	private final List<Match> matches = new ArrayList<>();
+    }
+
+    /**
+     * Create a search over the logs of the given services.
+     *
+     * @param sslist the services whose logs are to be searched
+     */
+    public SmfLogSearch(final SmfServiceList sslist) {
+	this.sslist = sslist;
+    }
+
+    /*
+     * Find the log files the first time we search, as that needs the
+     * full service details.
+     */
+    private void findLogs() {
+	logs = new LinkedHashMap<>();
+	for (SmfService svc : sslist) {
+	    File f = svc.getLog();
+	    if (f != null) {
+		logs.put(svc, new LogFile(f));
+	    }
+	}
+    }
+
+    /**
+     * Search all the service logs for lines containing the given text,
+     * ignoring ASCII case.
+     *
+     * @param text the text to search for
+     *
+     * @return the matching lines, grouped by service, in FMRI order
+     */
+    public synchronized Map<String, List<Match>> search(final String text) {
+	if (logs == null) {
+	    findLogs();
+	}
+	Map<SmfService, Scan> scans = cache.get(text);
+	if (scans == null) {
+	    scans = new ConcurrentHashMap<>();
+	    cache.put(text, scans);
+	}
+	final Map<SmfService, Scan> fscans = scans;
+	logs.entrySet().parallelStream().forEach(entry -> {
+	    Scan scan = fscans.computeIfAbsent(entry.getKey(), k -> new Scan());
+	    searchLog(entry.getKey(), entry.getValue(), text, scan);
+	});
+	Map<String, List<Match>> results = new TreeMap<>();
+	for (Map.Entry<SmfService, Scan> entry : scans.entrySet()) {
+	    if (!entry.getValue().matches.isEmpty()) {
+		results.put(entry.getKey().getFMRI(),
+			Collections.unmodifiableList(
+			    new ArrayList<>(entry.getValue().matches)));
+	    }
+	}
+	return results;
+    }
+
+    /*
+     * Search the lines of a log that this search hasn't seen yet.
+     */
+    private static void searchLog(final SmfService svc, final LogFile lf,
+				final String text, final Scan scan) {
+	try {
+	    while (lf.update(Long.MAX_VALUE)) {
+		// keep going until the whole log is indexed
+	    }
+	} catch (IOException ioe) {
+	    return;
+	}
+	int count = lf.getLineCount();
+	if (count < scan.scanned) {
+	    // the log has been truncated or replaced, so start again
+	    scan.scanned = 0;
+	    scan.matches.clear();
+	}
+	/*
+	 * A final line without a newline may yet grow, so we search it but
+	 * don't count it as scanned.
+	 */
+	int line = lf.find(text, scan.scanned, true);
+	while (line >= 0 && scan.matches.size() < MAX_MATCHES) {
+	    if (line < lf.getCompleteLineCount()) {
+		scan.matches.add(new Match(svc, line, lf.getLine(line)));
+	    }
+	    line = lf.find(text, line + 1, true);
+	}
+	scan.scanned = (line < 0) ? lf.getCompleteLineCount() : line;
+    }
+
+    /**
+     * Close all the log files.
+     */
+    public synchronized void close() {
+	if (logs != null) {
+	    for (LogFile lf : logs.values()) {
+		lf.close();
+	    }
+	    logs = null;
+	}
+	cache.clear();
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate;
+
+import java.awt.BorderLayout;
+import java.awt.Cursor;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.JTree;
+import javax.swing.SwingWorker;
+import javax.swing.event.TreeSelectionEvent;
+import javax.swing.event.TreeSelectionListener;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+
+/**
+ * SmfLogSearchPanel - search the logs of all SMF services, and show the
+ * matching lines grouped by service.
+ *
+ * @author Peter Tribble
+ * @version 1.0
+ */
+public final class SmfLogSearchPanel extends JPanel
+	implements ActionListener {
+
+    private static final long serialVersionUID = 1L;
+
+    /*
+     * If there are no more matches than this, show them all.
+     */
+    private static final int EXPAND_LIMIT = 200;
+
+    /**
+     * Notified when the user selects a matching line.
+     */
+    public interface MatchListener {
+	/**
+	 * Called, on the event thread, when a matching line is selected.
+	 *
+	 * @param match the selected match
+	 */
+	void showMatch(SmfLogSearch.Match match);
+    }
+
+    private final transient SmfLogSearch search;
+    private final transient MatchListener listener;
+    private final JTextField searchField;
+    private final JButton searchButton;
+    private final JLabel statusLabel;
+    private final JTree tree;
+    private final DefaultTreeModel model;
+
+    /**
+     * Create a panel to search the logs of the given services.
+     *
+     * @param sslist the services whose logs are to be searched
+     * @param mlistener notified when a matching line is selected
+     */
+    public SmfLogSearchPanel(final SmfServiceList sslist,
+			final MatchListener mlistener) {
+	super(new BorderLayout());
+	search = new SmfLogSearch(sslist);
+	listener = mlistener;
+
+	JPanel tpanel = new JPanel(new BorderLayout());
+	tpanel.add(new JLabel(
+		IlluminateResources.getString("SMF.LOGSEARCH.LABEL")),
+		BorderLayout.LINE_START);
+	searchField = new JTextField();
+	searchField.addActionListener(this);
+	tpanel.add(searchField, BorderLayout.CENTER);
+	JPanel bpanel = new JPanel();
+	searchButton = new JButton(
+		IlluminateResources.getString("SMF.LOGSEARCH.BUTTON"));
+	searchButton.addActionListener(this);
+	bpanel.add(searchButton);
+	statusLabel = new JLabel();
+	bpanel.add(statusLabel);
+	tpanel.add(bpanel, BorderLayout.LINE_END);
+	add(tpanel, BorderLayout.PAGE_START);
+
+	model = new DefaultTreeModel(new DefaultMutableTreeNode());
+	tree = new JTree(model);
+	tree.setRootVisible(false);
+	tree.setShowsRootHandles(true);
+	tree.addTreeSelectionListener(new TreeSelectionListener() {
+	    @Override
+	    public void valueChanged(final TreeSelectionEvent e) {
+		DefaultMutableTreeNode node = (DefaultMutableTreeNode)
+		    tree.getLastSelectedPathComponent();
+		if (node != null
+			&& node.getUserObject() instanceof SmfLogSearch.Match) {
+		    listener.showMatch(
+			(SmfLogSearch.Match) node.getUserObject());
+		}
+	    }
+	});
+	add(new JScrollPane(tree), BorderLayout.CENTER);
+    }
+
+    @Override
+    public void actionPerformed(final ActionEvent e) {
+	final String text = searchField.getText();
+	if (text.isEmpty()) {
+	    return;
+	}
+	searchButton.setEnabled(false);
+	searchField.setEnabled(false);
+	setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+	new SwingWorker<Map<String, List<SmfLogSearch.Match>>, Object>() {
+	    @Override
+	    public Map<String, List<SmfLogSearch.Match>> doInBackground() {
+		return search.search(text);
+	    }
+
+	    @Override
+	    protected void done() {
+		searchButton.setEnabled(true);
+		searchField.setEnabled(true);
+		setCursor(Cursor.getDefaultCursor());
+		try {
+		    showResults(get());
+		} catch (InterruptedException | ExecutionException e) { }
+	    }
+	}.execute();
+    }
+
+    private void showResults(
+			final Map<String, List<SmfLogSearch.Match>> results) {
+	DefaultMutableTreeNode root = new DefaultMutableTreeNode();
+	int total = 0;
+	for (Map.Entry<String, List<SmfLogSearch.Match>> entry
+		 : results.entrySet()) {
+	    DefaultMutableTreeNode snode = new DefaultMutableTreeNode(
+		entry.getKey() + " (" + entry.getValue().size() + ")");
+	    for (SmfLogSearch.Match match : entry.getValue()) {
+		snode.add(new DefaultMutableTreeNode(match, false));
+	    }
+	    root.add(snode);
+	    total += entry.getValue().size();
+	}
+	model.setRoot(root);
+	if (total <= EXPAND_LIMIT) {
+	    for (int i = tree.getRowCount() - 1; i >= 0; i--) {
+		tree.expandRow(i);
+	    }
+	}
+	statusLabel.setText(total + " "
+		+ IlluminateResources.getString("SMF.LOGSEARCH.MATCHES") + " "
+		+ results.size() + " "
+		+ IlluminateResources.getString("SMF.LOGSEARCH.SERVICES"));
+    }
+}
@@ -22,16 +22,24 @@ package org.tribblix.illuminate;
 
 import java.awt.BorderLayout;
 import java.awt.Cursor;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JSplitPane;
 import javax.swing.JTabbedPane;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.ToolTipManager;
 import javax.swing.event.TreeSelectionEvent;
 import javax.swing.event.TreeSelectionListener;
@@ -46,6 +54,11 @@ public final class SmfPanel extends JPanel {
 
     private static final long serialVersionUID = 1L;
 
+    /*
+     * The default interval between checks on service state, in seconds.
+     */
+    private static final int DEFAULT_INTERVAL = 10;
+
     /**
      * A MouseListener so that clicking on a service in the menu will show its
      * information.
@@ -83,8 +96,9 @@ public final class SmfPanel extends JPanel {
     public SmfPanel() {
 	setLayout(new BorderLayout());
 
-	SmfServiceList sslist = new SmfServiceList();
-	SmfList plist = new SmfList(sslist);
+	final SmfServiceList sslist = new SmfServiceList();
+	final SmfListModel listModel = new SmfListModel(sslist);
+	SmfList plist = new SmfList(listModel);
 	plist.addMouseListener(mouseListener);
 	plist.addKeyListener(keyListener);
 
@@ -102,6 +116,54 @@ public final class SmfPanel extends JPanel {
 	    }
 	});
 
+	/*
+	 * Keep the list and tree up to date as services change state.
+	 */
+	int interval = Integer.getInteger("illuminate.smf.interval",
+					DEFAULT_INTERVAL);
+	SmfWatcher watcher = new SmfWatcher(sslist.getSnapshot(), interval);
+	final SmfHistory history = new SmfHistory(sslist.getSnapshot());
+	plist.setHistory(history);
+	ptree.setHistory(history);
+	watcher.addListener(new SmfWatcher.SmfWatchListener() {
+	    @Override
+	    public void servicesChanged(final List<String> fmris) {
+		history.record(fmris);
+		sip.servicesChanged(fmris);
+		for (String fmri : fmris) {
+		    listModel.serviceChanged(fmri);
+		    ptree.serviceChanged(fmri);
+		}
+		CompletableFuture.runAsync(() ->
+			sslist.getSnapshot().refreshProperties(fmris));
+	    }
+	});
+	watcher.start();
+
+	/*
+	 * Services stop flapping as their state changes age, without
+	 * anything else changing, so check at the same interval.
+	 */
+	Timer flapTimer = new Timer(interval * 1000, new ActionListener() {
+	    private Set<String> flapping = new HashSet<>();
+
+	    @Override
+	    public void actionPerformed(final ActionEvent e) {
+		Set<String> nflapping = new HashSet<>(history.getFlapping());
+		Set<String> either = new HashSet<>(flapping);
+		either.addAll(nflapping);
+		for (String fmri : either) {
+		    if (flapping.contains(fmri) != nflapping.contains(fmri)) {
+			listModel.serviceChanged(fmri);
+			ptree.serviceChanged(fmri);
+		    }
+		}
+		flapping = nflapping;
+		sip.updateHistory();
+	    }
+	});
+	flapTimer.start();
+
 	JTabbedPane jtp = new JTabbedPane();
 
 	jtp.add(IlluminateResources.getString("SMF.LIST"),
@@ -110,12 +172,49 @@ public final class SmfPanel extends JPanel {
 		new JScrollPane(ptree));
 
 	sip = new SmfInfoPanel();
+	sip.setHistory(history);
+	// get the service details ready in the background
+	CompletableFuture.runAsync(sslist.getSnapshot()::loadDetails)
+	    .thenRun(() -> SwingUtilities.invokeLater(sip::detailsLoaded));
 
 	JSplitPane psplit = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT,
 		jtp, sip);
 	psplit.setOneTouchExpandable(true);
 	psplit.setDividerLocation(180);
-	add(psplit);
+
+	/*
+	 * Selecting a match in the log search shows the line in the
+	 * service's log.
+	 */
+	final JTabbedPane outer = new JTabbedPane();
+	outer.add(IlluminateResources.getString("SMF.SERVICES"), psplit);
+	outer.add(IlluminateResources.getString("SMF.LOGSEARCH"),
+		new SmfLogSearchPanel(sslist,
+		    new SmfLogSearchPanel.MatchListener() {
+			@Override
+			public void showMatch(final SmfLogSearch.Match match) {
+			    outer.setSelectedIndex(0);
+			    sip.showLogLine(match.getService(),
+					match.getLine());
+			}
+		    }));
+	outer.add(IlluminateResources.getString("SMF.BOOT"),
+		new SmfBootPanel(sslist.getSnapshot()));
+	outer.add(IlluminateResources.getString("SMF.PROPSEARCH"),
+		new SmfPropertySearchPanel(sslist.getSnapshot(),
+		    new SmfPropertySearchPanel.ServiceListener() {
+			@Override
+			public void showService(final String fmri) {
+			    SmfService svc = sslist.getService(fmri);
+			    if (svc != null) {
+				outer.setSelectedIndex(0);
+				sip.showProperties(svc);
+			    }
+			}
+		    }));
+	outer.add(IlluminateResources.getString("SMF.TOP"),
+		new SmfTopPanel(sslist.getSnapshot()));
+	add(outer);
     }
 
     void setInfo(final SmfService svc) {
@@ -0,0 +1,213 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate;
+
+import java.awt.BorderLayout;
+import java.awt.Cursor;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import javax.swing.DefaultComboBoxModel;
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingWorker;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * SmfPropertySearchPanel - find services by the value of a property.
+ *
+ * @author Peter Tribble
+ * @version 1.1
+ */
+public final class SmfPropertySearchPanel extends JPanel
+	implements ActionListener {
+
+    private static final long serialVersionUID = 1L;
+
+    /*
+     * The labels for each of the ways of matching, in the same order as
+     * SmfPropertyStore.Match.
+     */
+    private static final String[] MATCHES = {
+	"SMF.PROPSEARCH.SET", "SMF.PROPSEARCH.EQUALS",
+	"SMF.PROPSEARCH.NOTEQUALS", "SMF.PROPSEARCH.CONTAINS",
+	"SMF.PROPSEARCH.GREATER", "SMF.PROPSEARCH.LESS"
+    };
+
+    /**
+     * Notified when the user selects a service.
+     */
+    public interface ServiceListener {
+	/**
+	 * Called, on the event thread, when a service is selected.
+	 *
+	 * @param fmri the FMRI of the selected service
+	 */
+	void showService(String fmri);
+    }
+
+    private final transient SmfSnapshot snap;
+    private final transient ServiceListener listener;
+    private final JComboBox<String> nameBox;
+    private final DefaultComboBoxModel<String> nameModel;
+    private final JComboBox<String> matchBox;
+    private final JTextField valueField;
+    private final JButton searchButton;
+    private final JLabel statusLabel;
+    private final DefaultTableModel tableModel;
+    private final JTable table;
+
+    /**
+     * Create a panel to search the properties of the services in the
+     * given snapshot.
+     *
+     * @param snap the SmfSnapshot whose services are to be searched
+     * @param slistener notified when a service is selected
+     */
+    public SmfPropertySearchPanel(final SmfSnapshot snap,
+			final ServiceListener slistener) {
+	super(new BorderLayout());
+	this.snap = snap;
+	listener = slistener;
+
+	JPanel tpanel = new JPanel(new BorderLayout());
+	JPanel npanel = new JPanel(new BorderLayout());
+	npanel.add(new JLabel(
+		IlluminateResources.getString("SMF.PROPSEARCH.LABEL")),
+		BorderLayout.LINE_START);
+	nameModel = new DefaultComboBoxModel<>();
+	nameBox = new JComboBox<>(nameModel);
+	nameBox.setEditable(true);
+	npanel.add(nameBox, BorderLayout.CENTER);
+	List<String> labels = new ArrayList<>();
+	for (String s : MATCHES) {
+	    labels.add(IlluminateResources.getString(s));
+	}
+	matchBox = new JComboBox<>(labels.toArray(new String[0]));
+	npanel.add(matchBox, BorderLayout.LINE_END);
+	tpanel.add(npanel, BorderLayout.LINE_START);
+	valueField = new JTextField();
+	valueField.addActionListener(this);
+	tpanel.add(valueField, BorderLayout.CENTER);
+	JPanel bpanel = new JPanel();
+	searchButton = new JButton(
+		IlluminateResources.getString("SMF.PROPSEARCH.BUTTON"));
+	searchButton.addActionListener(this);
+	bpanel.add(searchButton);
+	statusLabel = new JLabel();
+	bpanel.add(statusLabel);
+	tpanel.add(bpanel, BorderLayout.LINE_END);
+	add(tpanel, BorderLayout.PAGE_START);
+
+	tableModel = new DefaultTableModel(new Object[] {
+		IlluminateResources.getString("SMF.PROPSEARCH.SERVICE"),
+		IlluminateResources.getString("SMF.PROPSEARCH.VALUE")}, 0) {
+	    private static final long serialVersionUID = 1L;
+
+	    @Override
+	    public boolean isCellEditable(final int row, final int col) {
+		return false;
+	    }
+	};
+	table = new JTable(tableModel);
+	table.setAutoCreateRowSorter(true);
+	table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+	table.getSelectionModel().addListSelectionListener(
+	    new ListSelectionListener() {
+		@Override
+		public void valueChanged(final ListSelectionEvent e) {
+		    int row = table.getSelectedRow();
+		    if (!e.getValueIsAdjusting() && row >= 0) {
+			listener.showService((String) table.getValueAt(row, 0));
+		    }
+		}
+	    });
+	add(new JScrollPane(table), BorderLayout.CENTER);
+
+	// fill in the property names once they're loaded
+	new SwingWorker<List<String>, Object>() {
+	    @Override
+	    public List<String> doInBackground() {
+		return snap.getPropertyStore().getPropertyNames();
+	    }
+
+	    @Override
+	    protected void done() {
+		try {
+		    for (String s : get()) {
+			nameModel.addElement(s);
+		    }
+		    nameBox.setSelectedItem("");
+		} catch (InterruptedException | ExecutionException e) { }
+	    }
+	}.execute();
+    }
+
+    @Override
+    public void actionPerformed(final ActionEvent e) {
+	Object o = nameBox.getSelectedItem();
+	final String name = (o == null) ? "" : o.toString().trim();
+	if (name.isEmpty()) {
+	    return;
+	}
+	final SmfPropertyStore.Match match =
+	    SmfPropertyStore.Match.values()[matchBox.getSelectedIndex()];
+	final String value = valueField.getText();
+	searchButton.setEnabled(false);
+	setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+	new SwingWorker<Map<String, List<String>>, Object>() {
+	    @Override
+	    public Map<String, List<String>> doInBackground() {
+		return snap.getPropertyStore().find(name, match, value);
+	    }
+
+	    @Override
+	    protected void done() {
+		searchButton.setEnabled(true);
+		setCursor(Cursor.getDefaultCursor());
+		try {
+		    showResults(get());
+		} catch (InterruptedException | ExecutionException e) { }
+	    }
+	}.execute();
+    }
+
+    private void showResults(final Map<String, List<String>> results) {
+	tableModel.setRowCount(0);
+	for (Map.Entry<String, List<String>> entry : results.entrySet()) {
+	    tableModel.addRow(new Object[] {entry.getKey(),
+		    String.join(" ", entry.getValue())});
+	}
+	statusLabel.setText(results.size() + " "
+		+ IlluminateResources.getString("SMF.PROPSEARCH.SERVICES"));
+    }
+}
@@ -0,0 +1,372 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.tribblix.illuminate.helpers.RunCommand;
+
+/**
+ * SmfPropertyStore - the properties of all SMF services, loaded in bulk
+ * with svcprop, and indexed so that services can be found by the value of
+ * a property.
+ *
+ * <p>Property names and values are interned, as the same names and many
+ * of the same values appear in almost every service. As well as the
+ * properties of each service, there's an inverted index from each
+ * property name, and then each value, to the services that have it.
+ * Strings that are no longer used by any service are dropped from the
+ * intern table once it has doubled in size.
+ *
+ * <p>All methods are synchronized, so the store may be refreshed in the
+ * background while it's being searched.
+ *
+ * @author Peter Tribble
+ * @version 1.2
+ */
+public final class SmfPropertyStore {
+
+    private static final String SVCPROP = "/usr/bin/svcprop";
+    private static final String PROPERTIES = "/:properties/";
+    /*
+     * How many FMRIs to pass to a single svcprop invocation.
+     */
+    private static final int BATCH_SIZE = 200;
+
+    /**
+     * The ways a property value may be compared.
+     */
+    public enum Match {
+	/** The property is present, whatever its value. */
+	SET,
+	/** The property has the given value. */
+	EQUALS,
+	/** The property doesn't have the given value. */
+	NOT_EQUALS,
+	/** The property value contains the given text. */
+	CONTAINS,
+	/** The property value is a number greater than that given. */
+	GREATER,
+	/** The property value is a number less than that given. */
+	LESS
+    }
+
+    /*
+     * One property of a service: its name and type, its values, and the
+     * values exactly as svcprop printed them.
+     */
+    private static final class Property {
+	private final String name;
+	private final String type;
+	private final String[] values;
+	private final String raw;
+
+	Property(final String name, final String type, final String[] values,
+		final String raw) {
+	    this.name = name;
+	    this.type = type;
+	    this.values = values;
+	    this.raw = raw;
+	}
+    }
+
+    private final Map<String, String> strings = new HashMap<>();
+    /*
+     * The size of the intern table when it was last rebuilt.
+     */
+    private int internBase;
+    private final Map<String, List<Property>> properties = new HashMap<>();
+    /*
+     * Property name to value to the services with that value.
+     */
+    private final Map<String, Map<String, Set<String>>> index =
+	new TreeMap<>();
+
+    /**
+     * Load the properties of the given services.
+     *
+     * @param fmris the FMRIs of the services to load
+     */
+    public SmfPropertyStore(final Collection<String> fmris) {
+	refresh(fmris);
+    }
+
+    /**
+     * Reload the properties of the given services, replacing any already
+     * loaded. This runs svcprop, so shouldn't be called on the event
+     * thread.
+     *
+     * @param fmris the FMRIs of the services to reload
+     */
+    public void refresh(final Collection<String> fmris) {
+	List<String> svcs = new ArrayList<>();
+	for (String fmri : fmris) {
+	    if (fmri.startsWith("svc:")) {
+		svcs.add(fmri);
+	    }
+	}
+	/*
+	 * Run svcprop without holding the lock, so searches can continue
+	 * meanwhile.
+	 */
+	List<String> output = new ArrayList<>();
+	for (int i = 0; i < svcs.size(); i += BATCH_SIZE) {
+	    List<String> cmd = new ArrayList<>();
+	    cmd.add(SVCPROP);
+	    cmd.add("-f");
+	    cmd.addAll(svcs.subList(i, Math.min(i + BATCH_SIZE, svcs.size())));
+	    output.add(new RunCommand(cmd.toArray(new String[0])).getOut());
+	}
+	synchronized (this) {
+	    for (String fmri : svcs) {
+		remove(fmri);
+	    }
+	    for (String out : output) {
+		for (String line : out.split("\n")) {
+		    parse(line);
+		}
+	    }
+	    if (internBase == 0) {
+		internBase = strings.size();
+	    } else if (strings.size() > 2 * internBase) {
+		trimStrings();
+	    }
+	}
+    }
+
+    /*
+     * Rebuild the intern table from the strings still in use. They're
+     * all the interned copies already, so nothing else needs to change.
+     */
+    private void trimStrings() {
+	strings.clear();
+	for (Map.Entry<String, List<Property>> entry : properties.entrySet()) {
+	    intern(entry.getKey());
+	    for (Property p : entry.getValue()) {
+		intern(p.name);
+		intern(p.type);
+		for (String value : p.values) {
+		    intern(value);
+		}
+	    }
+	}
+	internBase = strings.size();
+    }
+
+    /*
+     * Parse a line of svcprop -f output, of the form
+     * fmri/:properties/pg/name type value...
+     */
+    private void parse(final String line) {
+	String[] ds = line.split(" ", 3);
+	int i = ds[0].indexOf(PROPERTIES);
+	if (ds.length < 2 || i < 0) {
+	    return;
+	}
+	String fmri = intern(ds[0].substring(0, i));
+	String raw = (ds.length > 2) ? ds[2] : "";
+	String[] values = split(raw);
+	Property p = new Property(
+			intern(ds[0].substring(i + PROPERTIES.length())),
+			intern(ds[1]), values, raw);
+	properties.computeIfAbsent(fmri, k -> new ArrayList<>()).add(p);
+	Map<String, Set<String>> vmap =
+	    index.computeIfAbsent(p.name, k -> new HashMap<>());
+	for (String value : values) {
+	    vmap.computeIfAbsent(value, k -> new TreeSet<>()).add(fmri);
+	}
+    }
+
+    /*
+     * Split svcprop's values, which are separated by spaces, with spaces
+     * and backslashes within a value escaped by a backslash, and an empty
+     * value shown as "".
+     */
+    private String[] split(final String raw) {
+	List<String> values = new ArrayList<>();
+	StringBuilder sb = new StringBuilder();
+	boolean escaped = false;
+	for (char c : raw.toCharArray()) {
+	    if (escaped) {
+		sb.append(c);
+		escaped = false;
+	    } else if (c == '\\') {
+		escaped = true;
+	    } else if (c == ' ') {
+		values.add(value(sb));
+		sb.setLength(0);
+	    } else {
+		sb.append(c);
+	    }
+	}
+	if (sb.length() > 0 || !raw.isEmpty()) {
+	    values.add(value(sb));
+	}
+	return values.toArray(new String[0]);
+    }
+
+    private String value(final StringBuilder sb) {
+	String s = sb.toString();
+	return intern("\"\"".equals(s) ? "" : s);
+    }
+
+    private String intern(final String s) {
+	String is = strings.putIfAbsent(s, s);
+	return (is == null) ? s : is;
+    }
+
+    private void remove(final String fmri) {
+	List<Property> plist = properties.remove(fmri);
+	if (plist == null) {
+	    return;
+	}
+	/*
+	 * A property may have the same value more than once, in which
+	 * case it's already gone from the index the second time round.
+	 */
+	for (Property p : plist) {
+	    Map<String, Set<String>> vmap = index.get(p.name);
+	    if (vmap == null) {
+		continue;
+	    }
+	    for (String value : p.values) {
+		Set<String> fset = vmap.get(value);
+		if (fset == null) {
+		    continue;
+		}
+		fset.remove(fmri);
+		if (fset.isEmpty()) {
+		    vmap.remove(value);
+		}
+	    }
+	    if (vmap.isEmpty()) {
+		index.remove(p.name);
+	    }
+	}
+    }
+
+    /**
+     * Return the properties of a service, in the same form as svcprop.
+     *
+     * @param fmri the FMRI of the service
+     *
+     * @return the properties of the service, one per line, or null if the
+     * service has no properties
+     */
+    public synchronized String getProperties(final String fmri) {
+	List<Property> plist = properties.get(fmri);
+	if (plist == null) {
+	    return null;
+	}
+	StringBuilder sb = new StringBuilder();
+	for (Property p : plist) {
+	    sb.append(p.name).append(' ').append(p.type).append(' ')
+		.append(p.raw).append('\n');
+	}
+	return sb.toString();
+    }
+
+    /**
+     * Return the names of all the properties of all the services.
+     *
+     * @return a sorted List of property names
+     */
+    public synchronized List<String> getPropertyNames() {
+	return new ArrayList<>(index.keySet());
+    }
+
+    /**
+     * Find the services with a property matching the given criteria.
+     *
+     * @param name the name of the property, such as start/exec
+     * @param match how to compare the value of the property
+     * @param value the value to compare against, ignored for SET
+     *
+     * @return a Map of the FMRIs of the matching services, in order, to
+     * the matching values of the property
+     */
+    public synchronized Map<String, List<String>> find(final String name,
+			final Match match, final String value) {
+	Map<String, List<String>> found = new TreeMap<>();
+	Map<String, Set<String>> vmap = index.get(name);
+	if (vmap == null) {
+	    return found;
+	}
+	if (match == Match.EQUALS) {
+	    // direct from the index
+	    for (String fmri : vmap.getOrDefault(value,
+					Collections.emptySet())) {
+		found.computeIfAbsent(fmri, k -> new ArrayList<>()).add(value);
+	    }
+	    return found;
+	}
+	Double dvalue = null;
+	if (match == Match.GREATER || match == Match.LESS) {
+	    dvalue = toDouble(value);
+	    if (dvalue == null) {
+		return found;
+	    }
+	}
+	for (Map.Entry<String, Set<String>> entry : vmap.entrySet()) {
+	    if (matches(entry.getKey(), match, value, dvalue)) {
+		for (String fmri : entry.getValue()) {
+		    found.computeIfAbsent(fmri, k -> new ArrayList<>())
+			.add(entry.getKey());
+		}
+	    }
+	}
+	return found;
+    }
+
+    private static boolean matches(final String v, final Match match,
+				final String value, final Double dvalue) {
+	switch (match) {
+	    case NOT_EQUALS:
+		return !v.equals(value);
+	    case CONTAINS:
+		return v.contains(value);
+	    case GREATER:
+	    case LESS:
+		Double d = toDouble(v);
+		if (d == null) {
+		    return false;
+		}
+		return (match == Match.GREATER) ? d > dvalue : d < dvalue;
+	    default:
+		return true;
+	}
+    }
+
+    private static Double toDouble(final String s) {
+	try {
+	    return Double.valueOf(s);
+	} catch (NumberFormatException nfe) {
+	    return null;
+	}
+    }
+}
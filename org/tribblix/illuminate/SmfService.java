@@ -21,29 +21,84 @@
 package org.tribblix.illuminate;
 
 import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import javax.swing.SwingUtilities;
+import org.tribblix.illuminate.helpers.CommandResult;
+import org.tribblix.illuminate.helpers.CommandRunner;
 import org.tribblix.illuminate.helpers.RunCommand;
 import uk.co.petertribble.jumble.JumbleFile;
 
 /**
  * SmfService - describes an SMF service.
  *
+ * <p>A service created from an SmfSnapshot gets its details from the
+ * snapshot, so they're consistent and cheap to access. Otherwise svcs is
+ * run to get them, all at once, in the background. On the event thread,
+ * details that haven't been loaded yet are shown as loading.
+ *
  * @author Peter Tribble
- * @version 1.0
+ * @version 1.6
  */
 public class SmfService implements Comparable<SmfService> {
 
     /*
-     * FIXME refresh service details. Update status. We can't return the status
-     * dynamically because the UI calls getStatus() incessantly for cell
-     * rendering.
+     * The UI calls getStatus() incessantly for cell rendering, so it
+     * can't run svcs. For a service from a snapshot, the status comes
+     * from the snapshot, which an SmfWatcher keeps up to date.
      */
 
+    private static final String LOADING =
+	IlluminateResources.getString("SMF.LOADING");
+
     private final String fmri;
     private final String status;
-    private Map<String, String> props;
+    private final SmfSnapshot snap;
     private Map<String, String> manpages;
+    /*
+     * For a service that isn't in a snapshot, its details and the load
+     * that fills them in.
+     */
+    private volatile Legacy legacy;
+    private CompletableFuture<Legacy> legacyLoad;
+
+    /*
+     * The details of a service that isn't in a snapshot, from running
+     * svcs and svcprop on it, published as a whole.
+     */
+    private static final class Legacy {
+	private final Map<String, String> props = new HashMap<>();
+	private final String explanation;
+	private final String dependencies;
+	private final String dependents;
+	private final String[] details;
+	private final String svcprop;
+
+	Legacy(final String fmri) {
+	    /*
+	     * Properties aren't supported for legacy services.
+	     */
+	    boolean lrc = fmri.startsWith("lrc:");
+	    if (!lrc) {
+		for (String line : svcs("-l", fmri).split("\n")) {
+		    String[] ds = line.split("\\s+", 2);
+		    if (ds.length == 2) {
+			props.put(ds[0], ds[1]);
+		    }
+		}
+	    }
+	    explanation = svcs("-xv", fmri);
+	    dependencies = svcs("-dH", fmri);
+	    dependents = svcs("-DH", fmri);
+	    details = svcs("-vH", fmri).split("\\s+", 5);
+	    svcprop = lrc ? null : new RunCommand(
+			new String[] {"/usr/bin/svcprop", fmri}).getOut();
+	}
+    }
 
     /**
      * Create a new SmfService object.
@@ -52,8 +107,22 @@ public class SmfService implements Comparable<SmfService> {
      * @param nstatus the current status of this service
      */
     public SmfService(final String nfmri, final String nstatus) {
+	this(nfmri, nstatus, null);
+    }
+
+    /**
+     * Create a new SmfService object, whose details come from the given
+     * snapshot.
+     *
+     * @param nfmri the FMRI of this SMF service
+     * @param nstatus the current status of this service
+     * @param nsnap the SmfSnapshot containing this service, or null
+     */
+    public SmfService(final String nfmri, final String nstatus,
+			final SmfSnapshot nsnap) {
 	fmri = nfmri;
 	status = nstatus;
+	snap = (nsnap != null && nsnap.contains(nfmri)) ? nsnap : null;
     }
 
     /**
@@ -71,7 +140,7 @@ public class SmfService implements Comparable<SmfService> {
      * @return the status of this service.
      */
     public String getStatus() {
-	return status;
+	return (snap == null) ? status : snap.getState(fmri);
     }
 
     /**
@@ -80,7 +149,11 @@ public class SmfService implements Comparable<SmfService> {
      * @return the start time of this service.
      */
     public String getStartTime() {
-	return getDetails(2);
+	if (snap != null) {
+	    return snap.getStartTime(fmri);
+	}
+	String stime = getDetails(2);
+	return (stime == null) ? LOADING : stime;
     }
 
     /**
@@ -90,8 +163,12 @@ public class SmfService implements Comparable<SmfService> {
      * @return the contract id of this service
      */
     public int getContract() {
+	if (snap != null) {
+	    return snap.getContract(fmri);
+	}
+	String ctid = getDetails(3);
 	try {
-	    return Integer.parseInt(getDetails(3));
+	    return (ctid == null) ? 0 : Integer.parseInt(ctid);
 	} catch (NumberFormatException nfe) {
 	    return 0;
 	}
@@ -104,7 +181,16 @@ public class SmfService implements Comparable<SmfService> {
      * @return an explanation of why this service isn't running
      */
     public String getExplanation() {
-	String explanation = getSVCS("-xv");
+	String explanation;
+	if (snap == null) {
+	    Legacy l = getLegacy();
+	    explanation = (l == null) ? null : l.explanation;
+	} else {
+	    explanation = snap.getExplanation(fmri);
+	}
+	if (explanation == null) {
+	    return LOADING;
+	}
 	if (manpages == null) {
 	    parseManpages(explanation);
 	}
@@ -113,70 +199,177 @@ public class SmfService implements Comparable<SmfService> {
 
     /**
      * Get the list of processes associated with this service. This is exactly
-     * the output from svcs -p.
+     * the output from svcs -p, which is run in the background.
      *
-     * @return the list of processes associated with this service
+     * @return a CompletableFuture that completes with the list of
+     * processes associated with this service
      */
-    public String getProcesses() {
-	return getSVCS("-p");
+    public CompletableFuture<String> getProcesses() {
+	return CommandRunner.run(new String[] {"/usr/bin/svcs", "-p", fmri})
+	    .thenApply(CommandResult::getOut);
     }
 
     /**
-     * Get those services upon which this service depends. This is exactly
-     * the output from svcs -dH.
+     * Get those services upon which this service depends. This is in
+     * the format of the output from svcs -dH.
      *
      * @return the services upon which this service depends
      */
     public String getDependencies() {
-	return getSVCS("-dH");
+	if (snap == null) {
+	    Legacy l = getLegacy();
+	    return (l == null) ? LOADING : l.dependencies;
+	}
+	return svcsLines(snap.getDependencies(fmri));
     }
 
     /**
-     * Get those services which depend on this service. This is exactly
-     * the output from svcs -DH.
+     * Get those services which depend on this service. This is in the
+     * format of the output from svcs -DH.
      *
      * @return the services which depend on this service
      */
     public String getDependents() {
-	return getSVCS("-DH");
+	if (snap == null) {
+	    Legacy l = getLegacy();
+	    return (l == null) ? LOADING : l.dependents;
+	}
+	return svcsLines(snap.getDependents(fmri));
+    }
+
+    /*
+     * As well as the direct dependencies, the graph can show all the
+     * services involved and the longest chain of dependencies.
+     */
+    private String getGraphInfo(final SmfGraph graph) {
+	List<String> alldeps = graph.allDependencies(fmri);
+	List<String> allrdeps = graph.allDependents(fmri);
+	StringBuilder sb = new StringBuilder(1024);
+	sb.append("<h3>").append(getName()).append("</h3>");
+	depSection(sb, "Services this service depends on",
+		graph.getDependencies(fmri));
+	depSection(sb, "Services that depend on this service",
+		graph.getDependents(fmri));
+	depSection(sb, "All " + alldeps.size()
+		+ " services this service depends on, directly or indirectly",
+		alldeps);
+	depSection(sb, "All " + allrdeps.size()
+		+ " services that depend on this service, directly or"
+		+ " indirectly", allrdeps);
+	depSection(sb, "Longest chain of dependencies",
+		graph.longestChain(fmri));
+	return sb.toString();
+    }
+
+    private void depSection(final StringBuilder sb, final String title,
+			final Collection<String> svcs) {
+	sb.append("<p bgcolor=\"#cccccc\"><b>").append(title)
+	    .append("</b></p><pre>").append(svcsLines(svcs)).append("</pre>");
+    }
+
+    /*
+     * Show the given services as svcs -H would.
+     */
+    private String svcsLines(final Collection<String> svcs) {
+	StringBuilder sb = new StringBuilder();
+	for (String s : svcs) {
+	    sb.append(String.format("%-14s %-8s %s%n", snap.getState(s),
+				snap.getStartTime(s), s));
+	}
+	return sb.toString();
     }
 
     /*
      * Get the i'th field of svcs -vH output. 0=status 1=nstate
      * 2=start time 3=ctid 4=fmri
+     * Returns null if it isn't there, or hasn't been loaded yet.
      */
     private String getDetails(final int i) {
-	String[] ds = getSVCS("-vH").split("\\s+", 5);
-	return ds[i];
+	Legacy l = getLegacy();
+	return (l == null || l.details.length <= i) ? null : l.details[i];
     }
 
-    private String getSVCS(final String s) {
-	String[] fullcmd = {"/usr/bin/svcs", s, fmri};
+    private static String svcs(final String flag, final String fmri) {
+	String[] fullcmd = {"/usr/bin/svcs", flag, fmri};
 	RunCommand svcs = new RunCommand(fullcmd);
 	return svcs.getOut();
     }
 
+    /*
+     * The details of a service that isn't in a snapshot, or null on the
+     * event thread if they haven't been loaded yet.
+     */
+    private Legacy getLegacy() {
+	Legacy l = legacy;
+	if (l == null) {
+	    CompletableFuture<Legacy> f = startLoading();
+	    if (SwingUtilities.isEventDispatchThread()) {
+		return null;
+	    }
+	    l = f.join();
+	}
+	return l;
+    }
+
+    private synchronized CompletableFuture<Legacy> startLoading() {
+	if (legacyLoad == null) {
+	    legacyLoad = CompletableFuture.supplyAsync(() -> {
+		Legacy l = new Legacy(fmri);
+		legacy = l;
+		return l;
+	    });
+	}
+	return legacyLoad;
+    }
+
+    /**
+     * Return whether this service isn't in a snapshot, and its details
+     * haven't been loaded yet.
+     *
+     * @return true if the details of this service still need loading
+     */
+    public boolean needsLoading() {
+	return snap == null && legacy == null;
+    }
+
+    /**
+     * Load the details of a service that isn't in a snapshot in the
+     * background, if they haven't been already.
+     *
+     * @return a CompletableFuture that completes once the details have
+     * been loaded
+     */
+    public CompletableFuture<Void> loadDetails() {
+	return (snap == null) ? startLoading().thenAccept(l -> { })
+	    : CompletableFuture.completedFuture(null);
+    }
+
     /**
      * Get the service properties of this SmfService.
      *
      * @return null for a legacy service, the output of svcprop otherwise
      */
     public String getSvcProperties() {
-	if ("legacy_run".equals(status)) {
+	if ("legacy_run".equals(getStatus())) {
 	    return null;
 	}
-	String[] fullcmd = {"/usr/bin/svcprop", fmri};
-	RunCommand svcs = new RunCommand(fullcmd);
-	return svcs.getOut();
+	if (snap != null) {
+	    SmfPropertyStore store = snap.getPropertyStore();
+	    return (store == null) ? LOADING : store.getProperties(fmri);
+	}
+	Legacy l = getLegacy();
+	return (l == null) ? LOADING : l.svcprop;
     }
 
     /**
      * Get the name of this service, for display purposes.
      *
-     * @return the human readable name of this service
+     * @return the human readable name of this service, or its FMRI if
+     * the service has no name or its details haven't been loaded yet
      */
     public String getName() {
-	return getProperty("name");
+	String name = getProperty("name");
+	return (name == null) ? fmri : name;
     }
 
     /**
@@ -184,13 +377,14 @@ public class SmfService implements Comparable<SmfService> {
      * page name as the key and the filename (qualified with the section) as
      * the value
      *
-     * @return a Map listing the manual pages for this service
+     * @return a Map listing the manual pages for this service, which is
+     * empty if the explanation hasn't been loaded yet
      */
     public Map<String, String> getManPages() {
 	if (manpages == null) {
-	    parseManpages(getExplanation());
+	    getExplanation();
 	}
-	return manpages;
+	return (manpages == null) ? Collections.emptyMap() : manpages;
     }
 
     /*
@@ -235,19 +429,11 @@ public class SmfService implements Comparable<SmfService> {
      * keys, so you can't get dependency information this way.
      */
     private String getProperty(final String s) {
-	if (props == null) {
-	    props = new HashMap<>();
-	    /*
-	     * Properties aren't supported for legacy services.
-	     */
-	    if (!fmri.startsWith("lrc:")) {
-		for (String line : getSVCS("-l").split("\n")) {
-		    String[] ds = line.split("\\s+", 2);
-		    props.put(ds[0], ds[1]);
-		}
-	    }
+	if (snap != null) {
+	    return snap.getProperty(fmri, s);
 	}
-	return props.get(s);
+	Legacy l = getLegacy();
+	return (l == null) ? null : l.props.get(s);
     }
 
     /**
@@ -258,9 +444,15 @@ public class SmfService implements Comparable<SmfService> {
      * the given service
      */
     public String getDepInfo() {
-	if ("legacy_run".equals(status)) {
+	if ("legacy_run".equals(getStatus())) {
 	    return null;
 	}
+	if (snap != null) {
+	    if (!snap.isLoaded() && SwingUtilities.isEventDispatchThread()) {
+		return "<p>" + LOADING + "</p>";
+	    }
+	    return getGraphInfo(snap.getGraph());
+	}
 	StringBuilder sb = new StringBuilder(200);
 	sb.append("<h3>")
 	    .append(getName())
@@ -280,7 +472,7 @@ public class SmfService implements Comparable<SmfService> {
      * @return an html formatted table describing this service
      */
     public String getHtmlInfo() {
-	if ("legacy_run".equals(status)) {
+	if ("legacy_run".equals(getStatus())) {
 	    StringBuilder sb = new StringBuilder(96);
 	    File fl = getScriptFile();
 	    sb.append("<p bgcolor=\"#cccccc\"><b>");
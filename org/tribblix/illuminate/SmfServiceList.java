@@ -21,28 +21,52 @@
 package org.tribblix.illuminate;
 
 import java.util.Vector;
-import org.tribblix.illuminate.helpers.RunCommand;
 
 /**
- * SmfServiceList - a list of all SMF services.
+ * SmfServiceList - a list of all SMF services, backed by a snapshot of
+ * their details.
  *
  * @author Peter Tribble
- * @version 1.0
+ * @version 1.2
  */
 public final class SmfServiceList extends Vector<SmfService> {
 
     private static final long serialVersionUID = 1L;
 
+    private final transient SmfSnapshot snap;
+
     /**
      * Create a list of SMF services for the current system.
      */
     public SmfServiceList() {
-	String[] fullcmd = {"/usr/bin/svcs", "-aH"};
-	RunCommand svcs = new RunCommand(fullcmd);
-	// parse the svcs output to get the service name and status
-	for (String s : svcs.getOut().split("\n")) {
-	    String[] ds = s.split("\\s+", 3);
-	    add(new SmfService(ds[2], ds[0]));
+	snap = new SmfSnapshot();
+	for (String fmri : snap.getFMRIs()) {
+	    add(new SmfService(fmri, snap.getState(fmri), snap));
+	}
+    }
+
+    /**
+     * Return the service with the given FMRI.
+     *
+     * @param fmri the FMRI of the service
+     *
+     * @return the matching SmfService, or null if there isn't one
+     */
+    public SmfService getService(final String fmri) {
+	for (SmfService svc : this) {
+	    if (svc.getFMRI().equals(fmri)) {
+		return svc;
+	    }
 	}
+	return null;
+    }
+
+    /**
+     * Return the snapshot the services in this list were loaded from.
+     *
+     * @return the SmfSnapshot backing this list
+     */
+    public SmfSnapshot getSnapshot() {
+	return snap;
     }
 }
@@ -0,0 +1,530 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.swing.SwingUtilities;
+import org.tribblix.illuminate.helpers.RunCommand;
+
+/**
+ * SmfSnapshot - the state of all SMF services.
+ *
+ * <p>Rather than running svcs for each service, the snapshot is loaded
+ * with a handful of bulk invocations. The state, start time and contract
+ * of every service come from a single svcs -a call when the snapshot is
+ * created. The details from svcs -l, which include the name, log file
+ * and dependencies, and the explanations from svcs -xv, are loaded for
+ * all services together the first time any of them is needed.
+ *
+ * <p>The state, start time and contract can be brought up to date with
+ * {@link #poll}; the other details reflect the services as they were
+ * when first loaded.
+ *
+ * <p>The bulk loads are done without holding the snapshot's monitor and
+ * published when complete. The event thread never waits for them: if
+ * the details it asks for haven't been loaded yet, loading is started in
+ * the background and they're treated as missing, so callers on the event
+ * thread should check {@link #isLoaded} and show that they're loading.
+ *
+ * @author Peter Tribble
+ * @version 1.4
+ */
+public final class SmfSnapshot {
+
+    private static final String SVCS = "/usr/bin/svcs";
+    /*
+     * How many FMRIs to pass to a single svcs invocation.
+     */
+    private static final int BATCH_SIZE = 200;
+
+    private final List<String> fmris = new ArrayList<>();
+    private final Map<String, String[]> basic = new ConcurrentHashMap<>();
+    /*
+     * Only the threads doing the bulk loads take these locks, so that a
+     * second caller waits for the first rather than running svcs again.
+     * Each load has its own lock, so that something needing only the
+     * details doesn't wait for svcprop to finish.
+     */
+    private final Object detailsLock = new Object();
+    private final Object explanationsLock = new Object();
+    private final Object storeLock = new Object();
+    private final AtomicBoolean loadStarted = new AtomicBoolean();
+    private volatile Details details;
+    private volatile Map<String, String> explanations;
+    private volatile SmfGraph graph;
+    private volatile SmfPropertyStore propertyStore;
+
+    /*
+     * The parsed svcs -l output, published as a whole.
+     */
+    private static final class Details {
+	private final Map<String, Map<String, String>> props;
+	private final Map<String, Set<String>> dependencies;
+	private final Map<String, Set<String>> dependents;
+
+	Details(final Map<String, Map<String, String>> props,
+		final Map<String, Set<String>> dependencies,
+		final Map<String, Set<String>> dependents) {
+	    this.props = props;
+	    this.dependencies = dependencies;
+	    this.dependents = dependents;
+	}
+    }
+
+    /**
+     * Load a snapshot of all the SMF services on this system.
+     */
+    public SmfSnapshot() {
+	for (String[] ds : loadStates()) {
+	    fmris.add(ds[3]);
+	    basic.put(ds[3], ds);
+	}
+    }
+
+    /*
+     * The state, start time, contract, and FMRI of every service.
+     */
+    private static List<String[]> loadStates() {
+	List<String[]> states = new ArrayList<>();
+	String[] cmd = {SVCS, "-aH", "-o", "state,stime,ctid,fmri"};
+	for (String line : new RunCommand(cmd).getOut().split("\n")) {
+	    String[] ds = line.trim().split("\\s+", 4);
+	    if (ds.length == 4) {
+		states.add(ds);
+	    }
+	}
+	return states;
+    }
+
+    /**
+     * Bring the state, start time and contract of the services up to
+     * date. Services that have been added or removed since the snapshot
+     * was created are ignored. This runs svcs, so shouldn't be called
+     * on the event thread.
+     *
+     * @return the FMRIs of the services whose state, start time, or
+     * contract has changed
+     */
+    public List<String> poll() {
+	List<String> changed = new ArrayList<>();
+	for (String[] ds : loadStates()) {
+	    String[] old = basic.get(ds[3]);
+	    if (old != null && !Arrays.equals(old, ds)) {
+		basic.put(ds[3], ds);
+		changed.add(ds[3]);
+	    }
+	}
+	return changed;
+    }
+
+    /**
+     * Return the FMRIs of all the services in this snapshot.
+     *
+     * @return an unmodifiable List of service FMRIs
+     */
+    public List<String> getFMRIs() {
+	return Collections.unmodifiableList(fmris);
+    }
+
+    /**
+     * Return whether the given service is in this snapshot.
+     *
+     * @param fmri the FMRI of the service
+     *
+     * @return true if the service is present
+     */
+    public boolean contains(final String fmri) {
+	return basic.containsKey(fmri);
+    }
+
+    /**
+     * Return the state of a service.
+     *
+     * @param fmri the FMRI of the service
+     *
+     * @return the state, or null if the service isn't present
+     */
+    public String getState(final String fmri) {
+	String[] ds = basic.get(fmri);
+	return ds == null ? null : ds[0];
+    }
+
+    /**
+     * Return the time a service entered its current state.
+     *
+     * @param fmri the FMRI of the service
+     *
+     * @return the start time, or null if the service isn't present
+     */
+    public String getStartTime(final String fmri) {
+	String[] ds = basic.get(fmri);
+	return ds == null ? null : ds[1];
+    }
+
+    /**
+     * Return the process contract of a service.
+     *
+     * @param fmri the FMRI of the service
+     *
+     * @return the contract id, or 0 if the service has no contract
+     */
+    public int getContract(final String fmri) {
+	String[] ds = basic.get(fmri);
+	if (ds != null) {
+	    try {
+		return Integer.parseInt(ds[2]);
+	    } catch (NumberFormatException nfe) {
+		return 0;
+	    }
+	}
+	return 0;
+    }
+
+    /**
+     * Return whether the details and explanations of the services have
+     * been loaded, so that asking for them won't have to wait.
+     *
+     * @return true if the details have been loaded
+     */
+    public boolean isLoaded() {
+	return details != null && explanations != null;
+    }
+
+    /**
+     * Return a property of a service, as shown by svcs -l. Only the
+     * first value of each key is kept, so this isn't useful for
+     * dependencies.
+     *
+     * @param fmri the FMRI of the service
+     * @param key the name of the property
+     *
+     * @return the value of the property, or null if not present or, on
+     * the event thread, not loaded yet
+     */
+    public String getProperty(final String fmri, final String key) {
+	Details d = getDetails();
+	Map<String, String> props = (d == null) ? null : d.props.get(fmri);
+	return props == null ? null : props.get(key);
+    }
+
+    /**
+     * Return the services that a service depends on.
+     *
+     * @param fmri the FMRI of the service
+     *
+     * @return an unmodifiable Set of the FMRIs of the services this
+     * service depends on, which is empty on the event thread if the
+     * details haven't been loaded yet
+     */
+    public Set<String> getDependencies(final String fmri) {
+	Details d = getDetails();
+	return unmodifiable((d == null) ? null : d.dependencies.get(fmri));
+    }
+
+    /**
+     * Return the services that depend on a service.
+     *
+     * @param fmri the FMRI of the service
+     *
+     * @return an unmodifiable Set of the FMRIs of the services depending
+     * on this service, which is empty on the event thread if the details
+     * haven't been loaded yet
+     */
+    public Set<String> getDependents(final String fmri) {
+	Details d = getDetails();
+	return unmodifiable((d == null) ? null : d.dependents.get(fmri));
+    }
+
+    private static Set<String> unmodifiable(final Set<String> s) {
+	return s == null ? Collections.emptySet()
+	    : Collections.unmodifiableSet(s);
+    }
+
+    /**
+     * Return the explanation of a service's state, exactly as shown by
+     * svcs -xv.
+     *
+     * @param fmri the FMRI of the service
+     *
+     * @return the explanation, or an empty String if there is none, or
+     * null on the event thread if the explanations haven't been loaded
+     */
+    public String getExplanation(final String fmri) {
+	Map<String, String> emap = explanations;
+	if (emap == null) {
+	    if (SwingUtilities.isEventDispatchThread()) {
+		startLoading();
+		return null;
+	    }
+	    emap = loadExplanations();
+	}
+	return emap.getOrDefault(fmri, "");
+    }
+
+    private Map<String, String> loadExplanations() {
+	synchronized (explanationsLock) {
+	    if (explanations == null) {
+		Map<String, String> emap = new HashMap<>();
+		for (String block : bulkSVCS("-xv", serviceFMRIs())) {
+		    int i = block.indexOf(' ');
+		    String key = (i < 0) ? block : block.substring(0, i);
+		    emap.put(key, block + "\n");
+		}
+		explanations = emap;
+	    }
+	    return explanations;
+	}
+    }
+
+    /**
+     * Return the dependency graph of the services in this snapshot,
+     * building it the first time it's asked for. This waits for the
+     * details to be loaded, but not for anything else, so on the event
+     * thread check {@link #isLoaded} first.
+     *
+     * @return the SmfGraph for this snapshot
+     */
+    public SmfGraph getGraph() {
+	SmfGraph g = graph;
+	if (g == null) {
+	    loadDetailsMap();
+	    synchronized (this) {
+		if (graph == null) {
+		    graph = new SmfGraph(this);
+		}
+		g = graph;
+	    }
+	}
+	return g;
+    }
+
+    /**
+     * Return the properties of the services in this snapshot, loading
+     * them the first time they're asked for.
+     *
+     * @return the SmfPropertyStore for this snapshot, or null on the
+     * event thread if the properties haven't been loaded yet
+     */
+    public SmfPropertyStore getPropertyStore() {
+	SmfPropertyStore store = propertyStore;
+	if (store == null) {
+	    if (SwingUtilities.isEventDispatchThread()) {
+		startLoading();
+		return null;
+	    }
+	    store = loadPropertyStore();
+	}
+	return store;
+    }
+
+    private SmfPropertyStore loadPropertyStore() {
+	synchronized (storeLock) {
+	    if (propertyStore == null) {
+		propertyStore = new SmfPropertyStore(fmris);
+	    }
+	    return propertyStore;
+	}
+    }
+
+    /**
+     * Reload the properties of the given services, if the properties have
+     * been loaded. This runs svcprop, so shouldn't be called on the event
+     * thread.
+     *
+     * @param changed the FMRIs of the services to reload
+     */
+    public void refreshProperties(final List<String> changed) {
+	SmfPropertyStore store = propertyStore;
+	if (store != null) {
+	    store.refresh(changed);
+	}
+    }
+
+    /**
+     * Load the details, explanations, and properties of all services now,
+     * rather than when they're first asked for, so that they're ready to
+     * show. This may be called from any thread.
+     */
+    public void loadDetails() {
+	loadStarted.set(true);
+	loadDetailsMap();
+	loadExplanations();
+	loadPropertyStore();
+    }
+
+    /*
+     * Called on the event thread when it needs details that aren't
+     * there yet.
+     */
+    private void startLoading() {
+	if (loadStarted.compareAndSet(false, true)) {
+	    CompletableFuture.runAsync(this::loadDetails);
+	}
+    }
+
+    /*
+     * Legacy services don't have details.
+     */
+    private List<String> serviceFMRIs() {
+	List<String> l = new ArrayList<>();
+	for (String fmri : fmris) {
+	    if (!fmri.startsWith("lrc:")) {
+		l.add(fmri);
+	    }
+	}
+	return l;
+    }
+
+    /*
+     * Run svcs with the given flag over the given services, in batches,
+     * and return the output split into the blocks for each service.
+     */
+    private static List<String> bulkSVCS(final String flag,
+					final List<String> svcs) {
+	List<String> blocks = new ArrayList<>();
+	for (int i = 0; i < svcs.size(); i += BATCH_SIZE) {
+	    List<String> cmd = new ArrayList<>();
+	    cmd.add(SVCS);
+	    cmd.add(flag);
+	    cmd.addAll(svcs.subList(i, Math.min(i + BATCH_SIZE, svcs.size())));
+	    String out = new RunCommand(cmd.toArray(new String[0])).getOut();
+	    for (String block : out.split("\n\n")) {
+		if (!block.trim().isEmpty()) {
+		    blocks.add(block.trim());
+		}
+	    }
+	}
+	return blocks;
+    }
+
+    /*
+     * The details, or null on the event thread if they haven't been
+     * loaded yet.
+     */
+    private Details getDetails() {
+	Details d = details;
+	if (d == null) {
+	    if (SwingUtilities.isEventDispatchThread()) {
+		startLoading();
+		return null;
+	    }
+	    d = loadDetailsMap();
+	}
+	return d;
+    }
+
+    private Details loadDetailsMap() {
+	Details d = details;
+	if (d != null) {
+	    return d;
+	}
+	synchronized (detailsLock) {
+	    if (details == null) {
+		details = parseDetails();
+	    }
+	    return details;
+	}
+    }
+
+    /*
+     * Parse the svcs -l output for all services, and build the
+     * dependency graph from it.
+     */
+    private Details parseDetails() {
+	Map<String, Map<String, String>> dmap = new HashMap<>();
+	Map<String, Set<String>> deps = new HashMap<>();
+	Map<String, Set<String>> rdeps = new HashMap<>();
+	Map<String, List<String>> instances = instanceMap();
+	for (String block : bulkSVCS("-l", serviceFMRIs())) {
+	    Map<String, String> props = new HashMap<>();
+	    Set<String> sdeps = new LinkedHashSet<>();
+	    for (String line : block.split("\n")) {
+		String[] ds = line.split("\\s+", 2);
+		if (ds.length < 2) {
+		    continue;
+		}
+		if ("dependency".equals(ds[0])) {
+		    addDependencies(sdeps, ds[1], instances);
+		} else {
+		    props.putIfAbsent(ds[0], ds[1]);
+		}
+	    }
+	    String fmri = props.get("fmri");
+	    if (fmri != null) {
+		dmap.put(fmri, props);
+		deps.put(fmri, sdeps);
+		for (String dep : sdeps) {
+		    rdeps.computeIfAbsent(dep, k -> new LinkedHashSet<>())
+			.add(fmri);
+		}
+	    }
+	}
+	return new Details(dmap, deps, rdeps);
+    }
+
+    /*
+     * A map from service FMRIs without an instance to their instances,
+     * as dependencies can name a service rather than an instance.
+     */
+    private Map<String, List<String>> instanceMap() {
+	Map<String, List<String>> imap = new HashMap<>();
+	for (String fmri : fmris) {
+	    int i = fmri.lastIndexOf(':');
+	    if (i > 4 && fmri.startsWith("svc:")) {
+		imap.computeIfAbsent(fmri.substring(0, i),
+				k -> new ArrayList<>()).add(fmri);
+	    }
+	}
+	return imap;
+    }
+
+    /*
+     * A dependency line looks like
+     *   require_all/none svc:/a (online) svc:/b:default (online)
+     * where the targets may be services or instances, or files, which
+     * we ignore.
+     */
+    private void addDependencies(final Set<String> sdeps, final String line,
+				final Map<String, List<String>> instances) {
+	String[] ds = line.trim().split("\\s+");
+	for (int i = 1; i < ds.length; i++) {
+	    String target = ds[i];
+	    if (!target.startsWith("svc:")) {
+		continue;
+	    }
+	    if (basic.containsKey(target)) {
+		sdeps.add(target);
+	    } else if (instances.containsKey(target)) {
+		sdeps.addAll(instances.get(target));
+	    }
+	}
+    }
+}
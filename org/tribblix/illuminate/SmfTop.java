@@ -0,0 +1,183 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import uk.co.petertribble.jproc.api.JProc;
+import uk.co.petertribble.jproc.api.JProcInfo;
+import uk.co.petertribble.jproc.api.JProcess;
+
+/**
+ * SmfTop - the processor and memory usage of each SMF service.
+ *
+ * <p>Each sample makes a single pass over all processes, adding up the
+ * usage of the processes in each contract, and assigns each contract to
+ * its service using the contract ids in the snapshot, which an SmfWatcher
+ * keeps up to date. Processor usage is the processor time used since the
+ * previous sample, so the first sample shows none.
+ *
+ * @author Peter Tribble
+ * @version 1.0
+ */
+public final class SmfTop {
+
+    private final SmfSnapshot snap;
+    private final JProc jproc;
+
+    /*
+     * The processor time of each process at the previous sample.
+     */
+    private Map<Integer, Double> lastTimes = new HashMap<>();
+    private long lastSample;
+
+    /**
+     * The usage of one service.
+     */
+    public static final class Usage {
+	private final String fmri;
+	private final int contract;
+	private int nproc;
+	private double cpu;
+	private long rss;
+
+	Usage(final String fmri, final int contract) {
+	    this.fmri = fmri;
+	    this.contract = contract;
+	}
+
+	/**
+	 * Return the FMRI of this service.
+	 *
+	 * @return the FMRI of this service
+	 */
+	public String getFMRI() {
+	    return fmri;
+	}
+
+	/**
+	 * Return the contract id of this service.
+	 *
+	 * @return the contract id of this service
+	 */
+	public int getContract() {
+	    return contract;
+	}
+
+	/**
+	 * Return the number of processes in this service.
+	 *
+	 * @return the number of processes
+	 */
+	public int getProcessCount() {
+	    return nproc;
+	}
+
+	/**
+	 * Return the processor usage of this service since the previous
+	 * sample.
+	 *
+	 * @return the processor usage, as a percentage of one processor
+	 */
+	public double getCpu() {
+	    return cpu;
+	}
+
+	/**
+	 * Return the resident set size of the processes in this service.
+	 *
+	 * @return the total resident set size, in kilobytes
+	 */
+	public long getRss() {
+	    return rss;
+	}
+    }
+
+    /**
+     * Create an SmfTop for the services in a snapshot.
+     *
+     * @param snap the SmfSnapshot giving the contract of each service
+     * @param jproc the JProc to read process information from
+     */
+    public SmfTop(final SmfSnapshot snap, final JProc jproc) {
+	this.snap = snap;
+	this.jproc = jproc;
+    }
+
+    /**
+     * Sample the usage of all services. This reads information on every
+     * process, so shouldn't be called on the event thread.
+     *
+     * @return the usage of each service with running processes, busiest
+     * first
+     */
+    public synchronized List<Usage> sample() {
+	Map<Integer, Usage> byContract = new HashMap<>();
+	for (String fmri : snap.getFMRIs()) {
+	    int ct = snap.getContract(fmri);
+	    if (ct > 0) {
+		byContract.put(ct, new Usage(fmri, ct));
+	    }
+	}
+
+	long now = System.currentTimeMillis();
+	double elapsed = (now - lastSample) / 1000.0;
+	boolean first = lastTimes.isEmpty();
+	Map<Integer, Double> times = new HashMap<>();
+	for (JProcess p : jproc.getProcesses()) {
+	    JProcInfo info = p.getCachedInfo();
+	    if (info == null) {
+		info = jproc.getInfo(p);
+	    }
+	    if (info == null) {
+		continue;
+	    }
+	    times.put(p.getPid(), info.gettime());
+	    Usage u = byContract.get(info.getcontract());
+	    if (u == null) {
+		continue;
+	    }
+	    u.nproc++;
+	    u.rss += info.getrssize();
+	    if (!first) {
+		// a new process has used all its time since the last sample
+		Double last = lastTimes.get(p.getPid());
+		u.cpu += info.gettime() - ((last == null) ? 0.0 : last);
+	    }
+	}
+	lastTimes = times;
+	lastSample = now;
+
+	List<Usage> l = new ArrayList<>();
+	for (Usage u : byContract.values()) {
+	    if (u.nproc > 0) {
+		u.cpu = (first || elapsed <= 0) ? 0.0
+		    : Math.max(0.0, 100.0 * u.cpu / elapsed);
+		l.add(u);
+	    }
+	}
+	Collections.sort(l, (u1, u2) -> Double.compare(u2.cpu, u1.cpu));
+	return l;
+    }
+}
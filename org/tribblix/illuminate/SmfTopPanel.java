@@ -0,0 +1,185 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JSpinner;
+import javax.swing.JTable;
+import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.table.AbstractTableModel;
+import uk.co.petertribble.jproc.api.JProc;
+
+/**
+ * SmfTopPanel - show which services are using the most processor time
+ * and memory, updated at regular intervals while visible.
+ *
+ * @author Peter Tribble
+ * @version 1.0
+ */
+public final class SmfTopPanel extends JPanel implements ActionListener {
+
+    private static final long serialVersionUID = 1L;
+
+    /*
+     * The default interval between samples, in seconds.
+     */
+    private static final int DEFAULT_INTERVAL = 5;
+
+    private final transient SmfTop top;
+    private final TopTableModel tableModel;
+    private final Timer timer;
+    /*
+     * Don't start a sample while the previous one is still running.
+     */
+    private boolean sampling;
+
+    /**
+     * Create a panel showing the usage of the services in a snapshot.
+     *
+     * @param snap the SmfSnapshot giving the contract of each service
+     */
+    public SmfTopPanel(final SmfSnapshot snap) {
+	super(new BorderLayout());
+	top = new SmfTop(snap, new JProc());
+	int interval = Integer.getInteger("illuminate.smf.top.interval",
+					DEFAULT_INTERVAL);
+
+	JPanel tpanel = new JPanel(new FlowLayout(FlowLayout.LEADING));
+	tpanel.add(new JLabel(
+		IlluminateResources.getString("SMF.TOP.INTERVAL")));
+	final JSpinner spinner = new JSpinner(
+			new SpinnerNumberModel(interval, 1, 3600, 1));
+	tpanel.add(spinner);
+	add(tpanel, BorderLayout.PAGE_START);
+
+	tableModel = new TopTableModel();
+	JTable table = new JTable(tableModel);
+	table.setAutoCreateRowSorter(true);
+	table.getColumnModel().getColumn(0).setPreferredWidth(300);
+	add(new JScrollPane(table), BorderLayout.CENTER);
+
+	timer = new Timer(interval * 1000, this);
+	timer.setInitialDelay(0);
+	spinner.addChangeListener(new ChangeListener() {
+	    @Override
+	    public void stateChanged(final ChangeEvent e) {
+		timer.setDelay((Integer) spinner.getValue() * 1000);
+	    }
+	});
+	timer.start();
+    }
+
+    @Override
+    public void actionPerformed(final ActionEvent e) {
+	if (sampling || !isShowing()) {
+	    return;
+	}
+	sampling = true;
+	new SwingWorker<List<SmfTop.Usage>, Object>() {
+	    @Override
+	    public List<SmfTop.Usage> doInBackground() {
+		return top.sample();
+	    }
+
+	    @Override
+	    protected void done() {
+		sampling = false;
+		try {
+		    tableModel.setUsage(get());
+		} catch (InterruptedException | ExecutionException e) { }
+	    }
+	}.execute();
+    }
+
+    /*
+     * The usage of each service.
+     */
+    private static final class TopTableModel extends AbstractTableModel {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final String[] COLUMNS = {
+	    "SMF.TOP.SERVICE", "SMF.TOP.CONTRACT", "SMF.TOP.NPROC",
+	    "SMF.TOP.CPU", "SMF.TOP.RSS"
+	};
+	private static final Class<?>[] CLASSES = {
+	    String.class, Integer.class, Integer.class,
+	    Double.class, Long.class
+	};
+
+	private transient List<SmfTop.Usage> usage = Collections.emptyList();
+
+	void setUsage(final List<SmfTop.Usage> nusage) {
+	    usage = nusage;
+	    fireTableDataChanged();
+	}
+
+	@Override
+	public int getRowCount() {
+	    return usage.size();
+	}
+
+	@Override
+	public int getColumnCount() {
+	    return COLUMNS.length;
+	}
+
+	@Override
+	public String getColumnName(final int col) {
+	    return IlluminateResources.getString(COLUMNS[col]);
+	}
+
+	@Override
+	public Class<?> getColumnClass(final int col) {
+	    return CLASSES[col];
+	}
+
+	@Override
+	public Object getValueAt(final int row, final int col) {
+	    SmfTop.Usage u = usage.get(row);
+	    switch (col) {
+		case 0:
+		    return u.getFMRI();
+		case 1:
+		    return u.getContract();
+		case 2:
+		    return u.getProcessCount();
+		case 3:
+		    return Math.round(u.getCpu() * 10.0) / 10.0;
+		default:
+		    return u.getRss();
+	    }
+	}
+    }
+}
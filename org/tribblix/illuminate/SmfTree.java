@@ -25,12 +25,13 @@ import java.util.Map;
 import javax.swing.JTree;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreeNode;
 
 /**
  * SmfTree - shows SMF services in a tree.
  *
  * @author Peter Tribble
- * @version 1.0
+ * @version 1.3
  */
 public final class SmfTree extends JTree {
 
@@ -41,6 +42,18 @@ public final class SmfTree extends JTree {
      * building the tree.
      */
     private final transient Map<String, SmfTreeNode> treeMap = new HashMap<>();
+    /**
+     * The leaf node for each service, by FMRI.
+     */
+    private final transient Map<String, SmfTreeNode> leafMap = new HashMap<>();
+    /**
+     * The model, so that changes can be signalled.
+     */
+    private final DefaultTreeModel model;
+    /**
+     * The renderer, which marks flapping services.
+     */
+    private final SmfTreeCellRenderer renderer;
 
     /**
      * Display a tree of SMF services.
@@ -51,13 +64,29 @@ public final class SmfTree extends JTree {
 	DefaultMutableTreeNode root = new DefaultMutableTreeNode(
 				IlluminateResources.getString("SMF.SERVICES"));
 
-	// build up the tree
+	// build up the tree, then sort it and work out the status of each node
 	for (SmfService svc : sslist) {
 	    addService(svc, root);
 	}
+	for (int i = 0; i < root.getChildCount(); i++) {
+	    ((SmfTreeNode) root.getChildAt(i)).initialize();
+	}
 
-	setModel(new DefaultTreeModel(root));
-	setCellRenderer(new SmfTreeCellRenderer());
+	model = new DefaultTreeModel(root);
+	setModel(model);
+	renderer = new SmfTreeCellRenderer();
+	setCellRenderer(renderer);
+    }
+
+    /**
+     * Set the recorder of state changes, so that services that are
+     * flapping can be marked.
+     *
+     * @param history the SmfHistory to check for flapping services
+     */
+    public void setHistory(final SmfHistory history) {
+	renderer.setHistory(history);
+	repaint();
     }
 
     private void addService(final SmfService svc,
@@ -89,6 +118,32 @@ public final class SmfTree extends JTree {
 	    stn = stn2;
 	}
 	// the last is special too
-	stn.add(new SmfTreeNode(svc, parts[parts.length - 1]));
+	SmfTreeNode leaf = new SmfTreeNode(svc, parts[parts.length - 1]);
+	leafMap.put(svc.getFMRI(), leaf);
+	stn.add(leaf);
+    }
+
+    /**
+     * Notify the tree that a service has changed. The service's node,
+     * and those nodes above it whose status changes as a result, are
+     * updated.
+     *
+     * @param fmri the FMRI of the service that has changed
+     */
+    public void serviceChanged(final String fmri) {
+	SmfTreeNode leaf = leafMap.get(fmri);
+	if (leaf == null) {
+	    return;
+	}
+	SmfTreeNode top = leaf.updateStatus();
+	if (top == null) {
+	    // the status hasn't changed, but it may have started flapping
+	    model.nodeChanged(leaf);
+	    return;
+	}
+	for (TreeNode tn = leaf; tn != top; tn = tn.getParent()) {
+	    model.nodeChanged(tn);
+	}
+	model.nodeChanged(top);
     }
 }
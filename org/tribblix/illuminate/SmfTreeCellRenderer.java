@@ -29,9 +29,10 @@ import javax.swing.tree.DefaultTreeCellRenderer;
 
 /**
  * SmfTreeCellRenderer - adds tooltips and custom icons to an SMF tree.
+ * Services that are flapping are marked with a warning icon.
  *
  * @author Peter Tribble
- * @version 1.0
+ * @version 1.1
  */
 public final class SmfTreeCellRenderer extends DefaultTreeCellRenderer {
 
@@ -39,6 +40,9 @@ public final class SmfTreeCellRenderer extends DefaultTreeCellRenderer {
 
     private static ImageIcon failIcon;
     private static ImageIcon okIcon;
+    private static ImageIcon warnIcon;
+
+    private transient SmfHistory history;
 
     /**
      * Create an SmfTreeCellRenderer.
@@ -46,6 +50,17 @@ public final class SmfTreeCellRenderer extends DefaultTreeCellRenderer {
     public SmfTreeCellRenderer() {
 	failIcon = createImageIcon("/images/fail.png");
 	okIcon = createImageIcon("/images/ok.png");
+	warnIcon = createImageIcon("/images/warn.png");
+    }
+
+    /**
+     * Set the recorder of state changes, so that services that are
+     * flapping can be marked.
+     *
+     * @param nhistory the SmfHistory to check for flapping services
+     */
+    public void setHistory(final SmfHistory nhistory) {
+	history = nhistory;
     }
 
     @Override
@@ -70,6 +85,10 @@ public final class SmfTreeCellRenderer extends DefaultTreeCellRenderer {
 		setIcon(failIcon);
 	    }
 	    SmfService ss = (SmfService) stn.getUserObject();
+	    if (ss != null && history != null
+		    && history.isFlapping(ss.getFMRI())) {
+		setIcon(warnIcon);
+	    }
 	    setToolTipText(ss == null ? null : ss.getName());
 	} else {
 	    setToolTipText(null);
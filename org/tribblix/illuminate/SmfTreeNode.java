@@ -21,17 +21,16 @@
 package org.tribblix.illuminate;
 
 import java.util.Collections;
-import java.util.Enumeration;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.HashMap;
+import java.util.Map;
 import javax.swing.tree.DefaultMutableTreeNode;
-import javax.swing.tree.MutableTreeNode;
+import javax.swing.tree.TreeNode;
 
 /**
  * SmfTreeNode - represent SMF services as nodes in a tree.
  *
  * @author Peter Tribble
- * @version 1.0
+ * @version 2.0
  */
 public final class SmfTreeNode extends DefaultMutableTreeNode
     implements Comparable<SmfTreeNode> {
@@ -48,6 +47,16 @@ public final class SmfTreeNode extends DefaultMutableTreeNode
      */
     private final String node;
 
+    /**
+     * The status of this node, as last calculated.
+     */
+    private String status;
+
+    /**
+     * For an intermediate node, how many children have each status.
+     */
+    private final Map<String, Integer> childStatus = new HashMap<>();
+
     /**
      * An intermediate node in a tree of SMF services.
      *
@@ -68,11 +77,92 @@ public final class SmfTreeNode extends DefaultMutableTreeNode
 	node = nodename;
     }
 
-    @Override
+    /**
+     * Sort the children of this node, and all the nodes below it, and
+     * calculate their status. Call once the tree has been built.
+     */
     @SuppressWarnings("unchecked")
-    public void add(final MutableTreeNode newChild) {
-	super.add(newChild);
-	Collections.sort(this.children, SmfComparator.getInstance());
+    public void initialize() {
+	if (svc != null) {
+	    status = svc.getStatus();
+	    return;
+	}
+	if (children == null) {
+	    return;
+	}
+	Collections.sort(children, SmfComparator.getInstance());
+	childStatus.clear();
+	for (TreeNode tn : children) {
+	    SmfTreeNode stn = (SmfTreeNode) tn;
+	    stn.initialize();
+	    childStatus.merge(stn.getStatus(), 1, Integer::sum);
+	}
+	status = rollUp();
+    }
+
+    /**
+     * Update the status of a leaf node from its service, and propagate any
+     * change up the tree as far as it goes.
+     *
+     * @return the highest node whose status changed, or null if the status
+     * of this node didn't change
+     */
+    public SmfTreeNode updateStatus() {
+	if (svc == null) {
+	    return null;
+	}
+	String newStatus = svc.getStatus();
+	SmfTreeNode changed = null;
+	SmfTreeNode stn = this;
+	while (stn != null && !equal(stn.status, newStatus)) {
+	    String oldStatus = stn.status;
+	    stn.status = newStatus;
+	    changed = stn;
+	    if (!(stn.getParent() instanceof SmfTreeNode)) {
+		break;
+	    }
+	    SmfTreeNode parent = (SmfTreeNode) stn.getParent();
+	    parent.childStatus.merge(oldStatus, -1, Integer::sum);
+	    parent.childStatus.merge(newStatus, 1, Integer::sum);
+	    newStatus = parent.rollUp();
+	    stn = parent;
+	}
+	return changed;
+    }
+
+    private static boolean equal(final String s1, final String s2) {
+	return (s1 == null) ? s2 == null : s1.equals(s2);
+    }
+
+    /*
+     * Work out the status of an intermediate node from the number of
+     * children in each state.
+     */
+    private String rollUp() {
+	if (count("maintenance") > 0) {
+	    return "maintenance";
+	}
+	if (count("offline") > 0) {
+	    return "offline";
+	}
+	// ignore disabled ones, they shouldn't make things look bad
+	String consensus = null;
+	for (Map.Entry<String, Integer> entry : childStatus.entrySet()) {
+	    String s = entry.getKey();
+	    if (s == null || "disabled".equals(s) || entry.getValue() == 0) {
+		continue;
+	    }
+	    if (consensus != null) {
+		return null;
+	    }
+	    consensus = s;
+	}
+	return consensus;
+    }
+
+    private int count(final String s) {
+	Integer i = childStatus.get(s);
+	return (i == null) ? 0 : i;
     }
 
     @Override
@@ -93,31 +183,14 @@ public final class SmfTreeNode extends DefaultMutableTreeNode
      * null for now, except for the special case where there's a service in
      * maintenance in which case we propagate that up.
      *
+     * <p>The status is calculated by initialize() and kept up to date by
+     * updateStatus(), so this is cheap enough to call when rendering.
+     *
      * @return A String representing the status of the service represented
      * by this node or its children.
      */
     public String getStatus() {
-	if (svc != null) {
-	    return svc.getStatus();
-	}
-	Set<String> statuses = new HashSet<>();
-	for (Enumeration e = children(); e.hasMoreElements();) {
-	    SmfTreeNode stn = (SmfTreeNode) e.nextElement();
-	    statuses.add(stn.getStatus());
-	}
-	if (statuses.contains("maintenance")) {
-	    return "maintenance";
-	}
-	if (statuses.contains("offline")) {
-	    return "offline";
-	}
-	// ignore disabled ones, they shouldn't make things look bad
-	statuses.remove("disabled");
-	statuses.remove(null);
-	if (statuses.size() == 1) {
-	    return statuses.stream().findFirst().get();
-	}
-	return null;
+	return status;
     }
 
     /**
@@ -0,0 +1,135 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+
+/**
+ * SmfWatcher - keep an SmfSnapshot up to date, and tell listeners which
+ * services have changed.
+ *
+ * <p>At each interval the states of all services are loaded with a
+ * single svcs call, in the background, and compared with the snapshot.
+ * Listeners are then told, on the event thread, about just those
+ * services that have changed, if any.
+ *
+ * @author Peter Tribble
+ * @version 1.0
+ */
+public final class SmfWatcher implements ActionListener {
+
+    /**
+     * Notified when services change state.
+     */
+    public interface SmfWatchListener {
+	/**
+	 * Called on the event thread when services have changed.
+	 *
+	 * @param fmris the FMRIs of the services that have changed
+	 */
+	void servicesChanged(List<String> fmris);
+    }
+
+    private final SmfSnapshot snap;
+    private final Timer timer;
+    private final List<SmfWatchListener> listeners = new ArrayList<>();
+    /*
+     * Don't start a poll while the previous one is still running.
+     */
+    private boolean polling;
+
+    /**
+     * Create a watcher for the given snapshot. The watcher doesn't poll
+     * until started.
+     *
+     * @param snap the SmfSnapshot to keep up to date
+     * @param interval the interval between polls, in seconds
+     */
+    public SmfWatcher(final SmfSnapshot snap, final int interval) {
+	this.snap = snap;
+	timer = new Timer(interval * 1000, this);
+    }
+
+    /**
+     * Add a listener to be told about changes.
+     *
+     * @param l the listener to add
+     */
+    public void addListener(final SmfWatchListener l) {
+	listeners.add(l);
+    }
+
+    /**
+     * Start polling.
+     */
+    public void start() {
+	timer.start();
+    }
+
+    /**
+     * Stop polling.
+     */
+    public void stop() {
+	timer.stop();
+    }
+
+    /**
+     * Set the interval between polls.
+     *
+     * @param interval the interval between polls, in seconds
+     */
+    public void setInterval(final int interval) {
+	timer.setDelay(interval * 1000);
+    }
+
+    @Override
+    public void actionPerformed(final ActionEvent e) {
+	if (polling) {
+	    return;
+	}
+	polling = true;
+	new SwingWorker<List<String>, Object>() {
+	    @Override
+	    public List<String> doInBackground() {
+		return snap.poll();
+	    }
+
+	    @Override
+	    public void done() {
+		polling = false;
+		try {
+		    List<String> changed = get();
+		    if (!changed.isEmpty()) {
+			for (SmfWatchListener l : listeners) {
+			    l.servicesChanged(changed);
+			}
+		    }
+		} catch (InterruptedException | ExecutionException e) { }
+	    }
+	}.execute();
+    }
+}
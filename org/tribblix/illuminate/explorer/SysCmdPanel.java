@@ -22,6 +22,7 @@ package org.tribblix.illuminate.explorer;
 
 import java.awt.BorderLayout;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 import org.tribblix.illuminate.InfoCommand;
 import uk.co.petertribble.jingle.JingleTextPane;
 
@@ -29,19 +30,26 @@ import uk.co.petertribble.jingle.JingleTextPane;
  * SysCmdPanel - shows the output from a command.
  *
  * @author Peter Tribble
- * @version 1.0
+ * @version 1.1
  */
 public final class SysCmdPanel extends JPanel {
 
     private static final long serialVersionUID = 1L;
 
+    private final JingleTextPane tp;
+
     /**
      * Create a SysCmdPanel that shows the output from an InfoCommand.
+     * The command is run in the background, and its output shown when
+     * it finishes.
      *
      * @param ic The InfoCommand to show the output of
      */
     public SysCmdPanel(final InfoCommand ic) {
-	this(ic.getOutput());
+	this("");
+	ic.getOutputAsync().whenComplete((s, t) ->
+	    SwingUtilities.invokeLater(() ->
+		tp.setText((s == null) ? "" : s)));
     }
 
     /**
@@ -51,7 +59,7 @@ public final class SysCmdPanel extends JPanel {
      */
     public SysCmdPanel(final String s) {
 	setLayout(new BorderLayout());
-	JingleTextPane tp = new JingleTextPane("text/plain");
+	tp = new JingleTextPane("text/plain");
 	add(tp);
 	tp.setText(s);
     }
@@ -0,0 +1,80 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate.helpers;
+
+/**
+ * CommandResult - the outcome of running a command with CommandRunner.
+ *
+ * @author Peter Tribble
+ * @version 1.0
+ */
+public final class CommandResult {
+
+    private final String stdout;
+    private final String stderr;
+    private final int exitStatus;
+    private final boolean timedOut;
+
+    CommandResult(final String stdout, final String stderr,
+		final int exitStatus, final boolean timedOut) {
+	this.stdout = stdout;
+	this.stderr = stderr;
+	this.exitStatus = exitStatus;
+	this.timedOut = timedOut;
+    }
+
+    /**
+     * Returns the standard output.
+     *
+     * @return The contents of stdout
+     */
+    public String getOut() {
+	return stdout;
+    }
+
+    /**
+     * Returns the standard error.
+     *
+     * @return The contents of stderr
+     */
+    public String getErr() {
+	return stderr;
+    }
+
+    /**
+     * Returns the exit status of the command. If the command timed out
+     * and was killed, this is whatever status that left it with.
+     *
+     * @return The exit status of the command
+     */
+    public int getExitStatus() {
+	return exitStatus;
+    }
+
+    /**
+     * Returns whether the command was killed for taking too long.
+     *
+     * @return true if the command timed out
+     */
+    public boolean isTimedOut() {
+	return timedOut;
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate.helpers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * CommandRunner - run commands asynchronously.
+ *
+ * <p>Commands are run on a bounded pool of threads, whose size defaults to
+ * 4 and may be set with the illuminate.exec.threads property, and the
+ * result returned as a CompletableFuture, so callers need never block.
+ * The standard output and standard error of each command are read
+ * concurrently, so a command writing a lot to either can't stall. A
+ * command may be given a timeout, after which it is killed along with
+ * any processes it has started, as it is if its future is cancelled.
+ *
+ * <p>A caller that has to wait for the result anyway, and isn't on the
+ * event thread, can use runAndWait to run the command on its own thread
+ * instead, so that it doesn't take one of the pool's threads.
+ *
+ * <p>Once a command has exited, its output is only waited for briefly.
+ * A process it left behind, or one that escaped being killed, may still
+ * hold the output open, and the command's thread mustn't be tied up
+ * waiting for it; whatever output has been read by then is returned.
+ *
+ * @author Peter Tribble
+ * @version 1.2
+ */
+public final class CommandRunner {
+
+    private static final int DEFAULT_THREADS = 4;
+
+    /*
+     * How long to wait for the output after the command exits, in ms.
+     */
+    private static final long DRAIN_GRACE = 2000;
+
+    /*
+     * Commands are run on this bounded pool.
+     */
+    private static final ExecutorService RUNNERS =
+	Executors.newFixedThreadPool(
+	    Integer.getInteger("illuminate.exec.threads", DEFAULT_THREADS),
+	    daemonThreads("illuminate-exec"));
+
+    /*
+     * The output streams are read on threads of their own, which only
+     * wait for the commands already running on the bounded pool.
+     */
+    private static final ExecutorService DRAINERS =
+	Executors.newCachedThreadPool(daemonThreads("illuminate-drain"));
+
+    private static final File WORKDIR = new File("/tmp");
+
+    private CommandRunner() {
+    }
+
+    private static ThreadFactory daemonThreads(final String prefix) {
+	final AtomicInteger count = new AtomicInteger();
+	return r -> {
+	    Thread t = new Thread(r, prefix + "-" + count.incrementAndGet());
+	    t.setDaemon(true);
+	    return t;
+	};
+    }
+
+    /**
+     * Run a command, without a timeout.
+     *
+     * @param cmdarray The command to run
+     *
+     * @return a CompletableFuture that completes with the result of the
+     * command, or exceptionally if the command couldn't be run
+     */
+    public static CompletableFuture<CommandResult> run(
+			final String[] cmdarray) {
+	return run(cmdarray, 0, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Run a command, killing it if it takes longer than the given time.
+     *
+     * @param cmdarray The command to run
+     * @param timeout how long to wait for the command, or 0 to wait as
+     * long as it takes
+     * @param unit the unit of the timeout
+     *
+     * @return a CompletableFuture that completes with the result of the
+     * command, or exceptionally if the command couldn't be run
+     */
+    public static CompletableFuture<CommandResult> run(
+			final String[] cmdarray, final long timeout,
+			final TimeUnit unit) {
+	final CompletableFuture<CommandResult> future =
+	    new CompletableFuture<>();
+	final AtomicReference<Process> process = new AtomicReference<>();
+	// if the caller gives up, kill the command
+	future.whenComplete((r, t) -> {
+	    Process p = process.get();
+	    if (future.isCancelled() && p != null) {
+		destroyTree(p);
+	    }
+	});
+	RUNNERS.execute(() -> {
+	    if (future.isDone()) {
+		return;
+	    }
+	    try {
+		Process p = start(cmdarray);
+		process.set(p);
+		if (future.isCancelled()) {
+		    destroyTree(p);
+		    return;
+		}
+		future.complete(waitFor(p, timeout, unit));
+	    } catch (IOException | RuntimeException e) {
+		future.completeExceptionally(e);
+	    } catch (InterruptedException ie) {
+		Thread.currentThread().interrupt();
+		destroyTree(process.get());
+		future.completeExceptionally(ie);
+	    }
+	});
+	return future;
+    }
+
+    /**
+     * Run a command on the calling thread, waiting for it to finish or
+     * to run out of time. This blocks, so mustn't be used on the event
+     * thread.
+     *
+     * @param cmdarray The command to run
+     * @param timeout how long to wait for the command, or 0 to wait as
+     * long as it takes
+     * @param unit the unit of the timeout
+     *
+     * @return the result of the command
+     *
+     * @throws IOException if the command couldn't be run
+     * @throws InterruptedException if the calling thread is interrupted,
+     * in which case the command is killed
+     */
+    public static CommandResult runAndWait(final String[] cmdarray,
+			final long timeout, final TimeUnit unit)
+		throws IOException, InterruptedException {
+	Process p = start(cmdarray);
+	try {
+	    return waitFor(p, timeout, unit);
+	} catch (InterruptedException ie) {
+	    destroyTree(p);
+	    throw ie;
+	}
+    }
+
+    private static Process start(final String[] cmdarray)
+		throws IOException {
+	Process p = new ProcessBuilder(cmdarray).directory(WORKDIR).start();
+	p.getOutputStream().close();
+	return p;
+    }
+
+    /*
+     * Read both output streams while waiting for the process to exit, or
+     * to run out of time.
+     */
+    private static CommandResult waitFor(final Process p, final long timeout,
+		final TimeUnit unit) throws IOException, InterruptedException {
+	ByteArrayOutputStream obuf = new ByteArrayOutputStream();
+	ByteArrayOutputStream ebuf = new ByteArrayOutputStream();
+	CompletableFuture<Void> out = drain(p.getInputStream(), obuf);
+	CompletableFuture<Void> err = drain(p.getErrorStream(), ebuf);
+	boolean timedOut = false;
+	if (timeout > 0) {
+	    if (!p.waitFor(timeout, unit)) {
+		timedOut = true;
+		destroyTree(p);
+	    }
+	}
+	int status = p.waitFor();
+	try {
+	    CompletableFuture.allOf(out, err).get(DRAIN_GRACE,
+						TimeUnit.MILLISECONDS);
+	} catch (TimeoutException te) {
+	    // something else still has the output open, give up on it
+	    closeQuietly(p.getInputStream());
+	    closeQuietly(p.getErrorStream());
+	} catch (ExecutionException e) {
+	    Throwable t = e.getCause();
+	    throw (t instanceof IOException) ? (IOException) t
+		: new IOException(t);
+	}
+	return new CommandResult(toString(obuf), toString(ebuf), status,
+				timedOut);
+    }
+
+    /*
+     * Copy a stream into the given buffer. ByteArrayOutputStream is
+     * synchronized, so the buffer can be read while this is running.
+     */
+    private static CompletableFuture<Void> drain(final InputStream is,
+					final ByteArrayOutputStream bos) {
+	return CompletableFuture.runAsync(() -> {
+	    try (InputStream in = is) {
+		byte[] buf = new byte[8192];
+		int n;
+		while ((n = in.read(buf)) != -1) {
+		    bos.write(buf, 0, n);
+		}
+	    } catch (IOException ioe) {
+		throw new CompletionException(ioe);
+	    }
+	}, DRAINERS);
+    }
+
+    private static String toString(final ByteArrayOutputStream bos) {
+	return new String(bos.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void closeQuietly(final InputStream is) {
+	try {
+	    is.close();
+	} catch (IOException ioe) { }
+    }
+
+    /*
+     * Kill a process and everything it has started.
+     */
+    private static void destroyTree(final Process p) {
+	if (p != null) {
+	    p.descendants().forEach(ProcessHandle::destroyForcibly);
+	    p.destroyForcibly();
+	}
+    }
+}
@@ -20,54 +20,59 @@
 
 package org.tribblix.illuminate.helpers;
 
-import java.io.BufferedReader;
-import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
 
 /**
  * RunCommand - run a command and return the output.
  *
+ * <p>This waits for the command to finish, so mustn't be used on the
+ * event thread. Use CommandRunner to run commands without waiting.
+ *
+ * <p>The command runs on the calling thread rather than on CommandRunner's
+ * bounded pool, so a command that never finishes only holds up its own
+ * caller. There is no timeout; commands that might hang should be run
+ * through CommandRunner with a timeout.
+ *
+ * <p>The output is presented as if read a line at a time, so carriage
+ * returns are turned into newlines and the last line always ends in a
+ * newline.
+ *
  * @author Peter Tribble
- * @version 1.0
+ * @version 2.2
  */
 public final class RunCommand {
 
-    private StringBuilder stdout; // NOPMD
-    private StringBuilder stderr; // NOPMD
+    private String stdout = "";
+    private String stderr = "";
+    private int exitStatus = -1;
 
     /**
-     * Run a command and record its output.
+     * Run a command and record its output. If the command can't be run,
+     * the output is empty.
      *
      * @param cmdarray The command to run
      */
     public RunCommand(final String[] cmdarray) {
-	stdout = new StringBuilder();
-	stderr = new StringBuilder();
 	try {
-	    Process p = Runtime.getRuntime().exec(cmdarray,
-				(String[]) null, new File("/tmp"));
-
-	    try (BufferedReader reader1
-		= new BufferedReader(new InputStreamReader(p.getInputStream(),
-						StandardCharsets.UTF_8));
-		    BufferedReader reader2
-		 = new BufferedReader(new InputStreamReader(p.getErrorStream(),
-						StandardCharsets.UTF_8))) {
+	    CommandResult result = CommandRunner.runAndWait(cmdarray, 0,
+							TimeUnit.SECONDS);
+	    stdout = lines(result.getOut());
+	    stderr = lines(result.getErr());
+	    exitStatus = result.getExitStatus();
+	} catch (IOException ioe) {
+	    // can't be run, so there's no output
+	} catch (InterruptedException ie) {
+	    Thread.currentThread().interrupt();
+	}
+    }
 
-		String s;
-		while ((s = reader1.readLine()) != null) {
-		    stdout.append(s).append('\n');
-		}
-		while ((s = reader2.readLine()) != null) {
-		    stderr.append(s).append('\n');
-		}
-		try {
-		    p.waitFor();
-		} catch (InterruptedException ie) { }
-	    } catch (IOException ioe1) { }
-	} catch (IOException ioe) { }
+    private static String lines(final String s) {
+	if (s.isEmpty()) {
+	    return s;
+	}
+	String t = s.replace("\r\n", "\n").replace('\r', '\n');
+	return t.endsWith("\n") ? t : t + "\n";
     }
 
     /**
@@ -76,7 +81,7 @@ public final class RunCommand {
      * @return The contents of stdout
      */
     public String getOut() {
-	return stdout.toString();
+	return stdout;
     }
 
     /**
@@ -85,6 +90,15 @@ public final class RunCommand {
      * @return The contents of stderr
      */
     public String getErr() {
-	return stderr.toString();
+	return stderr;
+    }
+
+    /**
+     * Returns the exit status of the command.
+     *
+     * @return The exit status of the command, or -1 if it couldn't be run
+     */
+    public int getExitStatus() {
+	return exitStatus;
     }
 }
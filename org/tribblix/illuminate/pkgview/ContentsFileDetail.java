@@ -119,6 +119,16 @@ public final class ContentsFileDetail
 	return filename;
     }
 
+    /**
+     * Return the type of this entry, as the single character used in the
+     * contents file.
+     *
+     * @return the type of this entry
+     */
+    public char getType() {
+	return ftype;
+    }
+
     /**
      * Return the target of a link.
      *
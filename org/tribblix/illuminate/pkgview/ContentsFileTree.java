@@ -20,9 +20,18 @@
 
 package org.tribblix.illuminate.pkgview;
 
-import java.awt.Cursor;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.List;
 import javax.swing.JTree;
+import javax.swing.SwingWorker;
+import javax.swing.ToolTipManager;
 import javax.swing.event.TreeExpansionEvent;
 import javax.swing.event.TreeExpansionListener;
 import javax.swing.tree.DefaultTreeModel;
@@ -32,17 +41,34 @@ import javax.swing.tree.TreeSelectionModel;
 /**
  * ContentsFileTree - display local files.
  *
+ * <p>Directories are listed in the background when they're first
+ * expanded, and their entries added to the tree in batches as they're
+ * read, so that large directories don't hold up the display.
+ *
  * @author Peter Tribble
- * @version 1.0
+ * @version 2.0
  */
 public final class ContentsFileTree extends JTree {
 
     private static final long serialVersionUID = 1L;
 
+    /*
+     * How many entries to read before adding them to the tree.
+     */
+    private static final int BATCH_SIZE = 256;
+
     /**
      * The backing TreeModel.
      */
     private final DefaultTreeModel model;
+    /**
+     * Space used by directory, once the contents file has been parsed.
+     */
+    private transient DirectoryRollup rollup;
+    /**
+     * The contents file, once it has been parsed.
+     */
+    private transient ContentsParser cp;
 
     /**
      * Create a JTree representing local files and directories.
@@ -50,12 +76,19 @@ public final class ContentsFileTree extends JTree {
      * @param pkghdl a PackageHandler for this OS image
      */
     public ContentsFileTree(final PackageHandler pkghdl) {
-	ContentsFileTreeNode rootNode = new ContentsFileTreeNode(
-						new File(pkghdl.getRoot()));
-	rootNode.explore();
+	File rootFile = new File(pkghdl.getRoot());
+	BasicFileAttributes attrs = null;
+	try {
+	    attrs = Files.readAttributes(rootFile.toPath(),
+					BasicFileAttributes.class);
+	} catch (IOException ioe) { }
+	ContentsFileTreeNode rootNode = new ContentsFileTreeNode(rootFile,
+						attrs, "/");
 	model = new DefaultTreeModel(rootNode);
 
 	setModel(model);
+	setCellRenderer(new ContentsFileTreeCellRenderer());
+	ToolTipManager.sharedInstance().registerComponent(this);
 	createTreeModelListener();
 	this.getSelectionModel().setSelectionMode(
 	    TreeSelectionModel.SINGLE_TREE_SELECTION);
@@ -80,13 +113,127 @@ public final class ContentsFileTree extends JTree {
 	    }
 	});
 
+	explore(rootNode);
+    }
+
+    /**
+     * Annotate the directories in this tree with the space used by
+     * packaged files.
+     *
+     * @param nrollup the DirectoryRollup for this OS image
+     */
+    public void setDirectoryRollup(final DirectoryRollup nrollup) {
+	rollup = nrollup;
+	annotationsChanged();
+    }
+
+    /**
+     * Return the DirectoryRollup used to annotate this tree.
+     *
+     * @return the DirectoryRollup, or null if not yet available
+     */
+    public DirectoryRollup getDirectoryRollup() {
+	return rollup;
+    }
+
+    /**
+     * Annotate the files in this tree with the packages they belong to.
+     *
+     * @param ncp the ContentsParser for this OS image
+     */
+    public void setContentsParser(final ContentsParser ncp) {
+	cp = ncp;
+	annotationsChanged();
+    }
+
+    /**
+     * Return the ContentsParser used to annotate this tree.
+     *
+     * @return the ContentsParser, or null if not yet available
+     */
+    public ContentsParser getContentsParser() {
+	return cp;
+    }
+
+    /*
+     * The annotations change the text of the nodes, so tell the model
+     * the expanded nodes have changed, so their sizes get recalculated.
+     * The rest will be sized when they're first shown.
+     */
+    private void annotationsChanged() {
+	for (int i = 0; i < getRowCount(); i++) {
+	    model.nodeChanged((ContentsFileTreeNode)
+			getPathForRow(i).getLastPathComponent());
+	}
     }
 
     void explore(final ContentsFileTreeNode node) {
-	Cursor c = getCursor();
-	setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-	node.explore();
-	setCursor(c);
-	model.nodeStructureChanged(node);
+	if (node.isLeaf()) {
+	    return;
+	}
+	node.setExplored();
+	new DirectoryLister(node).execute();
+    }
+
+    /*
+     * List a directory in the background, reading the attributes of each
+     * entry without following symbolic links, and add the entries to the
+     * tree in sorted order as they arrive.
+     */
+    class DirectoryLister extends SwingWorker<Void, ContentsFileTreeNode> {
+	private final ContentsFileTreeNode dirNode;
+
+	DirectoryLister(final ContentsFileTreeNode dirNode) {
+	    this.dirNode = dirNode;
+	}
+
+	@Override
+	public Void doInBackground() {
+	    /*
+	     * If there's a problem, just stop. This includes permission
+	     * denied.
+	     */
+	    try (DirectoryStream<Path> ds =
+		    Files.newDirectoryStream(dirNode.getFile().toPath())) {
+		ContentsFileTreeNode[] batch =
+		    new ContentsFileTreeNode[BATCH_SIZE];
+		int n = 0;
+		for (Path p : ds) {
+		    BasicFileAttributes attrs = null;
+		    try {
+			attrs = Files.readAttributes(p,
+				BasicFileAttributes.class,
+				LinkOption.NOFOLLOW_LINKS);
+		    } catch (IOException ioe) { }
+		    String name = p.getFileName().toString();
+		    batch[n++] = new ContentsFileTreeNode(p.toFile(), attrs,
+					dirNode.childPath(name));
+		    if (n == BATCH_SIZE) {
+			publish(batch);
+			batch = new ContentsFileTreeNode[BATCH_SIZE];
+			n = 0;
+		    }
+		}
+		publish(Arrays.copyOf(batch, n));
+	    } catch (IOException | RuntimeException e) { }
+	    return null;
+	}
+
+	@Override
+	protected void process(final List<ContentsFileTreeNode> nodes) {
+	    for (ContentsFileTreeNode child : nodes) {
+		dirNode.insertSorted(child);
+	    }
+	    /*
+	     * The children are sorted, so each new node can be found
+	     * again, giving the ascending indices the model needs.
+	     */
+	    int[] indices = new int[nodes.size()];
+	    for (int i = 0; i < indices.length; i++) {
+		indices[i] = dirNode.indexOfName(nodes.get(i).toString());
+	    }
+	    Arrays.sort(indices);
+	    model.nodesWereInserted(dirNode, indices);
+	}
     }
 }
@@ -0,0 +1,104 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate.pkgview;
+
+import java.awt.Component;
+import javax.swing.JTree;
+import javax.swing.tree.DefaultTreeCellRenderer;
+
+/**
+ * Annotates directories in a filesystem tree with the space used by
+ * packaged files beneath them, and files with the package they belong
+ * to and their size.
+ *
+ * @author Peter Tribble
+ * @version 1.1
+ */
+public final class ContentsFileTreeCellRenderer
+	extends DefaultTreeCellRenderer {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Component getTreeCellRendererComponent(final JTree tree,
+						  final Object value,
+						  final boolean sel,
+						  final boolean expanded,
+						  final boolean leaf,
+						  final int row,
+						  final boolean hasFocus) {
+
+	super.getTreeCellRendererComponent(tree, value, sel,
+					   expanded, leaf, row,
+					   hasFocus);
+	setToolTipText(null);
+	if (tree instanceof ContentsFileTree
+		&& value instanceof ContentsFileTreeNode) {
+	    ContentsFileTree cft = (ContentsFileTree) tree;
+	    DirectoryRollup rollup = cft.getDirectoryRollup();
+	    ContentsParser cp = cft.getContentsParser();
+	    ContentsFileTreeNode node = (ContentsFileTreeNode) value;
+	    if (cp != null && leaf) {
+		ContentsFileDetail cfd = cp.getFileDetail(node.getImagePath());
+		if (cfd != null) {
+		    setText(fileText(node, cfd));
+		}
+	    } else if (rollup != null && !leaf) {
+		int id = rollup.getId(node.getImagePath());
+		if (id >= 0) {
+		    setText(node.toString() + " ("
+			+ PkgUtils.niceSpaceUsed(rollup.getTotalBytes(id))
+			+ ")");
+		    setToolTipText(topPackages(rollup, id));
+		}
+	    }
+	}
+	return this;
+    }
+
+    private String fileText(final ContentsFileTreeNode node,
+			final ContentsFileDetail cfd) {
+	StringBuilder sb = new StringBuilder(64);
+	sb.append(node.toString()).append(" (")
+	    .append(String.join(" ", cfd.getPackageNames()));
+	if (cfd.isRegular()) {
+	    sb.append(", ").append(PkgUtils.niceSpaceUsed(cfd.getSize()));
+	}
+	return sb.append(')').toString();
+    }
+
+    private String topPackages(final DirectoryRollup rollup, final int id) {
+	String[] pkgs = rollup.getTopPackages(id);
+	if (pkgs.length == 0) {
+	    return null;
+	}
+	long[] sizes = rollup.getTopPackageBytes(id);
+	StringBuilder sb = new StringBuilder(128);
+	sb.append("<html>").append(rollup.getEntryCount(id))
+	    .append(" entries");
+	for (int i = 0; i < pkgs.length; i++) {
+	    sb.append("<br>").append(pkgs[i]).append(": ")
+		.append(PkgUtils.niceSpaceUsed(sizes[i]));
+	}
+	sb.append("</html>");
+	return sb.toString();
+    }
+}
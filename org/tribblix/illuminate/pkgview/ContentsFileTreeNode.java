@@ -21,50 +21,75 @@
 package org.tribblix.illuminate.pkgview;
 
 import java.io.File;
-import java.io.IOException;
-import java.util.Arrays;
+import java.nio.file.attribute.BasicFileAttributes;
 import javax.swing.tree.DefaultMutableTreeNode;
 
 /**
  * Represents a Node in a local file tree.
  *
+ * <p>The attributes of the file are read once, when the directory
+ * containing it is listed, so the tree can be displayed without any
+ * further access to the filesystem.
+ *
  * @author Peter Tribble
- * @version 1.0
+ * @version 2.0
  */
 public final class ContentsFileTreeNode extends DefaultMutableTreeNode {
 
     private static final long serialVersionUID = 1L;
 
     /**
-     * Whether this node has been visited.
+     * Whether this node has been, or is being, listed.
      */
     private boolean explored;
     /**
      * The underlying File represented by this node.
      */
     private final File file;
+    /**
+     * The name of this file.
+     */
+    private final String name;
+    /**
+     * The path of this file as it would appear in the contents file.
+     */
+    private final String imagePath;
+    /**
+     * Whether this is a directory we can descend into.
+     */
+    private final boolean directory;
 
     /**
      * Create a node for the given pathname.
      *
      * @param filename The File representing the current pathname.
+     * @param attrs the attributes of the file, not following symbolic
+     * links, or null if they couldn't be read
+     * @param imagePath the path of the file relative to the root of the
+     * OS image
      */
-    public ContentsFileTreeNode(final File filename) {
+    public ContentsFileTreeNode(final File filename,
+			final BasicFileAttributes attrs,
+			final String imagePath) {
 	file = filename;
+	name = file.getName();
+	this.imagePath = imagePath;
+	/*
+	 * Symlinks are leaf nodes, from the point of view of packaging, as
+	 * is anything we can't read the attributes of.
+	 */
+	directory = attrs != null && attrs.isDirectory();
 	setUserObject(file);
     }
 
     @Override
     public boolean getAllowsChildren() {
-	return !isLeaf();
+	return directory;
     }
 
-    /**
-     * Symlinks are also leaf nodes, from the point of view of packaging.
-     */
     @Override
     public boolean isLeaf() {
-	return isLink() || !file.isDirectory();
+	return !directory;
     }
 
     /**
@@ -76,47 +101,83 @@ public final class ContentsFileTreeNode extends DefaultMutableTreeNode {
 	return explored;
     }
 
-    @Override
-    public String toString() {
-	return file.getName();
+    /**
+     * Mark this node as explored, so that it's only listed once.
+     */
+    public void setExplored() {
+	explored = true;
     }
 
-    /*
-     * Detect symbolic links. We want to stop when we find these. We
-     * return true on error as well, to force traversal to stop.
+    /**
+     * Return the File represented by this node.
+     *
+     * @return the File represented by this node
      */
-    private boolean isLink() {
-	try {
-	    return !file.getAbsolutePath().equals(file.getCanonicalPath());
-	} catch (IOException ioe) {
-	    return true;
-	}
+    public File getFile() {
+	return file;
     }
 
     /**
-     * Traverse the directory tree from this point. Stop if any problem
-     * is encountered.
+     * Return the path of this file as it would appear in the contents
+     * file, relative to the root of the OS image.
+     *
+     * @return the path of this file in the OS image
      */
-    public void explore() {
-	if (file.isDirectory() && !explored) {
-	    /*
-	     * If there's a problem, just don't traverse. This includes
-	     * permission denied.
-	     */
-	    try {
-		// no filter any more, as packaging includes dot-files
-		File[] children = file.listFiles();
-
-		// sort into alphabetic order
-		Arrays.sort(children);
-
-		for (File child : children) {
-		    add(new ContentsFileTreeNode(child));
-		}
-	    } catch (Exception e) {
-	    }
+    public String getImagePath() {
+	return imagePath;
+    }
+
+    /**
+     * Return the path of a child of this directory as it would appear in
+     * the contents file.
+     *
+     * @param childname the name of the child
+     *
+     * @return the path of the child in the OS image
+     */
+    public String childPath(final String childname) {
+	return "/".equals(imagePath) ? "/" + childname
+	    : imagePath + "/" + childname;
+    }
+
+    /**
+     * Add a child node, keeping the children sorted by name.
+     *
+     * @param child the node to add
+     *
+     * @return the index at which the child was added
+     */
+    public int insertSorted(final ContentsFileTreeNode child) {
+	int i = indexOfName(child.name);
+	insert(child, i);
+	return i;
+    }
 
-	    explored = true;
+    /**
+     * Find a child by name, if the children are sorted by name.
+     *
+     * @param childname the name of the child
+     *
+     * @return the index of the child, or where it would be inserted if
+     * there's no such child
+     */
+    public int indexOfName(final String childname) {
+	int lo = 0;
+	int hi = getChildCount();
+	while (lo < hi) {
+	    int mid = (lo + hi) >>> 1;
+	    if (((ContentsFileTreeNode) getChildAt(mid)).name
+		    .compareTo(childname) < 0) {
+		lo = mid + 1;
+	    } else {
+		hi = mid;
+	    }
 	}
+	return lo;
+    }
+
+    @Override
+    public String toString() {
+	return name;
     }
 }
@@ -0,0 +1,229 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate.pkgview;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Look up entries in the contents file without parsing all of it.
+ *
+ * <p>The contents file is sorted by path name, so we can memory map it
+ * and binary search for the line describing a given path, parsing just
+ * that one line. Partial path matches have to look at every line, but
+ * can do so by scanning the raw bytes in parallel, again only parsing
+ * the lines that match.
+ *
+ * <p>This is much cheaper than building a ContentsParser when you only
+ * want to answer a handful of questions.
+ *
+ * @author Peter Tribble
+ * @version 1.0
+ */
+public final class ContentsLookup {
+
+    private final PackageHandler pkghdl;
+    private final MappedByteBuffer buf;
+    private final int size;
+
+    /**
+     * Map the contents file for this OS image.
+     *
+     * @param phdl a PackageHandler for this OS image
+     *
+     * @throws IOException if the contents file cannot be mapped
+     */
+    public ContentsLookup(final PackageHandler phdl) throws IOException {
+	pkghdl = phdl;
+	try (FileChannel fc = FileChannel.open(
+			pkghdl.getContentsFile().toPath(),
+			StandardOpenOption.READ)) {
+	    if (fc.size() > Integer.MAX_VALUE) {
+		throw new IOException("contents file too large to map");
+	    }
+	    size = (int) fc.size();
+	    buf = fc.map(FileChannel.MapMode.READ_ONLY, 0, size);
+	}
+    }
+
+    /**
+     * Get the details of a particular path name.
+     *
+     * @param path the path name to return details of
+     *
+     * @return the corresponding ContentsFileDetail, or null if the path
+     * is not in the contents file
+     */
+    public ContentsFileDetail getFileDetail(final String path) {
+	byte[] target = path.getBytes(StandardCharsets.UTF_8);
+	/*
+	 * lo and hi are always at the start of a line. Every line before lo
+	 * is less than the target, every line from hi onward is not.
+	 */
+	int lo = 0;
+	int hi = size;
+	while (lo < hi) {
+	    int ls = lineStart((lo + hi) >>> 1);
+	    if (compareLine(ls, target) < 0) {
+		lo = lineEnd(ls) + 1;
+	    } else {
+		hi = ls;
+	    }
+	}
+	if (lo < size && compareLine(lo, target) == 0) {
+	    return parseLine(lo);
+	}
+	return null;
+    }
+
+    /**
+     * Find all the entries whose path name contains any of the given
+     * strings, other than at the very start. The file is split into
+     * chunks that are scanned in parallel.
+     *
+     * @param names the partial path names to search for
+     *
+     * @return a List of matching entries, sorted by path name
+     */
+    public List<ContentsFileDetail> findPartial(
+				final Collection<String> names) {
+	List<byte[]> targets = new ArrayList<>(names.size());
+	for (String name : names) {
+	    targets.add(name.getBytes(StandardCharsets.UTF_8));
+	}
+	int nchunks = Runtime.getRuntime().availableProcessors() * 4;
+	int[] bounds = new int[nchunks + 1];
+	for (int i = 1; i < nchunks; i++) {
+	    bounds[i] = Math.max(bounds[i - 1],
+				lineStart((int) ((long) size * i / nchunks)));
+	}
+	bounds[nchunks] = size;
+	return IntStream.range(0, nchunks).parallel()
+	    .mapToObj(i -> scanChunk(bounds[i], bounds[i + 1], targets))
+	    .flatMap(List::stream)
+	    .map(this::parseLine)
+	    .collect(Collectors.toList());
+    }
+
+    /*
+     * Return the offsets of the lines in the given range whose path
+     * contains one of the targets.
+     */
+    private List<Integer> scanChunk(final int start, final int end,
+				final List<byte[]> targets) {
+	List<Integer> matches = new ArrayList<>();
+	int ls = start;
+	while (ls < end) {
+	    if (buf.get(ls) == '/') {
+		int pe = pathEnd(ls);
+		for (byte[] target : targets) {
+		    if (contains(ls + 1, pe, target)) {
+			matches.add(ls);
+			break;
+		    }
+		}
+	    }
+	    ls = lineEnd(ls) + 1;
+	}
+	return matches;
+    }
+
+    private boolean contains(final int from, final int to,
+			final byte[] target) {
+	int last = to - target.length;
+	for (int i = from; i <= last; i++) {
+	    int j = 0;
+	    while (j < target.length && buf.get(i + j) == target[j]) {
+		j++;
+	    }
+	    if (j == target.length) {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    private int lineStart(final int offset) {
+	int i = offset;
+	while (i > 0 && buf.get(i - 1) != '\n') {
+	    i--;
+	}
+	return i;
+    }
+
+    private int lineEnd(final int ls) {
+	int i = ls;
+	while (i < size && buf.get(i) != '\n') {
+	    i++;
+	}
+	return i;
+    }
+
+    /*
+     * The path is the first field, terminated by a space or, for links,
+     * by the = that separates it from the link target.
+     */
+    private int pathEnd(final int ls) {
+	int i = ls;
+	while (i < size) {
+	    byte b = buf.get(i);
+	    if (b == ' ' || b == '=' || b == '\n') {
+		break;
+	    }
+	    i++;
+	}
+	return i;
+    }
+
+    /*
+     * Compare the path on the line starting at ls with the target, as
+     * unsigned bytes, which is the order used to sort the contents file.
+     */
+    private int compareLine(final int ls, final byte[] target) {
+	int pe = pathEnd(ls);
+	int len = pe - ls;
+	int n = Math.min(len, target.length);
+	for (int i = 0; i < n; i++) {
+	    int c = (buf.get(ls + i) & 0xff) - (target[i] & 0xff);
+	    if (c != 0) {
+		return c;
+	    }
+	}
+	return len - target.length;
+    }
+
+    private ContentsFileDetail parseLine(final int ls) {
+	byte[] line = new byte[lineEnd(ls) - ls];
+	for (int i = 0; i < line.length; i++) {
+	    line[i] = buf.get(ls + i);
+	}
+	return new ContentsFileDetail(pkghdl,
+				new String(line, StandardCharsets.UTF_8));
+    }
+}
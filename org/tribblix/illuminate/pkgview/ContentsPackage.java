@@ -20,6 +20,7 @@
 
 package org.tribblix.illuminate.pkgview;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.TreeSet;
@@ -33,6 +34,7 @@ import java.util.TreeSet;
 public final class ContentsPackage {
 
     private final Set<ContentsFileDetail> fileset = new HashSet<>();
+    private volatile ContentsFileDetail[] sorted;
 
     /**
      * Create a new empty ContentsPackage.
@@ -59,6 +61,7 @@ public final class ContentsPackage {
      */
     public void addFile(final ContentsFileDetail cfd) {
 	fileset.add(cfd);
+	sorted = null;
     }
 
     private void addPkgFiles(final Overlay ovl, final ContentsParser cp) {
@@ -198,4 +201,21 @@ public final class ContentsPackage {
     public Set<ContentsFileDetail> getDetails() {
 	return new TreeSet<>(fileset);
     }
+
+    /**
+     * Return the entries in this ContentsPackage as an array sorted by
+     * path name. The array is created once and shared, so callers must
+     * not modify it.
+     *
+     * @return an array of ContentsFileDetail objects, sorted by path name
+     */
+    public ContentsFileDetail[] getSortedDetails() {
+	ContentsFileDetail[] s = sorted;
+	if (s == null) {
+	    s = fileset.toArray(new ContentsFileDetail[0]);
+	    Arrays.sort(s);
+	    sorted = s;
+	}
+	return s;
+    }
 }
@@ -23,7 +23,8 @@ package org.tribblix.illuminate.pkgview;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -41,11 +42,6 @@ import java.util.Set;
  */
 public final class ContentsParser {
 
-    /**
-     * The name of the contents file.
-     */
-    private static final String CONTENTS_FILE = "/var/sadm/install/contents";
-
     private final Map<String, ContentsFileDetail> fileHash = new HashMap<>();
     private final Map<String, ContentsPackage> pkgHash = new HashMap<>();
 
@@ -75,8 +71,7 @@ public final class ContentsParser {
      */
     private void parse(final PackageHandler pkghdl) {
 	try (BufferedReader in
-		= Files.newBufferedReader(
-		    Paths.get(pkghdl.getRoot() + CONTENTS_FILE))) {
+		= Files.newBufferedReader(pkghdl.getContentsFile().toPath())) {
 	    String s;
 	    while ((s = in.readLine()) != null) {
 		if (s.charAt(0) == '/') {
@@ -104,6 +99,15 @@ public final class ContentsParser {
 	return fileHash.keySet();
     }
 
+    /**
+     * Return all the entries in the contents file.
+     *
+     * @return a Collection of all the entries in the contents file
+     */
+    public Collection<ContentsFileDetail> getFileDetails() {
+	return Collections.unmodifiableCollection(fileHash.values());
+    }
+
     /**
      * Get the details of a particular path name.
      *
@@ -0,0 +1,379 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate.pkgview;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * A query over the entries in the contents file. A query is a boolean
+ * expression of terms, each of which tests one attribute of an entry:
+ *
+ * <pre>
+ *   type=f          entry type, one or more contents(5) type letters
+ *   mode=0755       exact permissions, in octal
+ *   mode&amp;4000       any of the given permission bits set
+ *   owner=root      owner, also owner!=root
+ *   group=sys       group, also group!=sys
+ *   size&gt;1m         size, with =, &lt;, &gt;, &lt;=, &gt;= and k, m, g suffixes
+ *   pkg=TRIBzap     owning package, may be a glob
+ *   path=/etc/*     path name glob, where * also matches /
+ *   setuid setgid editable shared
+ * </pre>
+ *
+ * <p>Terms may be combined with and, or, not (or !) and parentheses;
+ * adjacent terms are implicitly anded. A query may start with
+ * "top N" to return only the N largest matching entries.
+ *
+ * @author Peter Tribble
+ * @version 1.0
+ */
+public final class ContentsQuery {
+
+    private static final Pattern TERM
+	= Pattern.compile("([a-z]+)(!=|<=|>=|=|<|>|&)(.+)");
+
+    private static final Comparator<ContentsFileDetail> BY_SIZE
+	= Comparator.comparingLong(ContentsFileDetail::getSize);
+
+    private final Predicate<ContentsFileDetail> predicate;
+    private final int topn;
+
+    private List<String> tokens;
+    private int pos;
+
+    /**
+     * Parse a query.
+     *
+     * @param query the text of the query
+     *
+     * @throws IllegalArgumentException if the query cannot be parsed
+     */
+    public ContentsQuery(final String query) {
+	tokens = tokenize(query);
+	pos = 0;
+	if (tokens.size() > 1 && "top".equals(tokens.get(0))) {
+	    int n;
+	    try {
+		n = Integer.parseInt(tokens.get(1));
+	    } catch (NumberFormatException nfe) {
+		n = 0;
+	    }
+	    if (n <= 0) {
+		throw new IllegalArgumentException("Invalid count "
+						+ tokens.get(1));
+	    }
+	    topn = n;
+	    pos = 2;
+	} else {
+	    topn = 0;
+	}
+	if (pos == tokens.size()) {
+	    predicate = cfd -> true;
+	} else {
+	    predicate = parseOr();
+	    if (pos != tokens.size()) {
+		throw new IllegalArgumentException("Unexpected "
+						+ tokens.get(pos));
+	    }
+	}
+	tokens = null;
+    }
+
+    /**
+     * Run this query against the given contents.
+     *
+     * @param cp the ContentsParser to query
+     *
+     * @return the matching entries, sorted by path name, or largest first
+     * if the query asked for the top entries
+     */
+    public List<ContentsFileDetail> run(final ContentsParser cp) {
+	if (topn > 0) {
+	    List<ContentsFileDetail> lcfd = new ArrayList<>(
+		cp.getFileDetails().parallelStream()
+		    .filter(predicate)
+		    .collect(() -> new PriorityQueue<>(topn + 1, BY_SIZE),
+			(q, cfd) -> offer(q, cfd),
+			(q1, q2) -> q2.forEach(cfd -> offer(q1, cfd))));
+	    lcfd.sort(BY_SIZE.reversed());
+	    return lcfd;
+	}
+	return cp.getFileDetails().parallelStream()
+		.filter(predicate)
+		.sorted()
+		.collect(Collectors.toList());
+    }
+
+    /*
+     * Bounded heap, keeping only the largest topn entries.
+     */
+    private void offer(final PriorityQueue<ContentsFileDetail> q,
+			final ContentsFileDetail cfd) {
+	if (q.size() < topn) {
+	    q.add(cfd);
+	} else if (cfd.getSize() > q.peek().getSize()) {
+	    q.poll();
+	    q.add(cfd);
+	}
+    }
+
+    /**
+     * Return whether the given entry matches this query.
+     *
+     * @param cfd the entry to test
+     *
+     * @return true if the entry matches
+     */
+    public boolean matches(final ContentsFileDetail cfd) {
+	return predicate.test(cfd);
+    }
+
+    /**
+     * Return whether this query asks for the largest entries.
+     *
+     * @return true if this is a top N query
+     */
+    public boolean isTop() {
+	return topn > 0;
+    }
+
+    private static List<String> tokenize(final String query) {
+	List<String> ltok = new ArrayList<>();
+	for (String s : query.trim().replace("(", " ( ").replace(")", " ) ")
+		.split("\\s+")) {
+	    if (s.length() > 1 && s.charAt(0) == '!'
+		    && s.charAt(1) != '=') {
+		ltok.add("!");
+		ltok.add(s.substring(1));
+	    } else if (!s.isEmpty()) {
+		ltok.add(s);
+	    }
+	}
+	return ltok;
+    }
+
+    private String peek() {
+	return (pos < tokens.size()) ? tokens.get(pos) : null;
+    }
+
+    private Predicate<ContentsFileDetail> parseOr() {
+	Predicate<ContentsFileDetail> p = parseAnd();
+	while ("or".equals(peek())) {
+	    pos++;
+	    p = p.or(parseAnd());
+	}
+	return p;
+    }
+
+    private Predicate<ContentsFileDetail> parseAnd() {
+	Predicate<ContentsFileDetail> p = parseUnary();
+	String s = peek();
+	while (s != null && !"or".equals(s) && !")".equals(s)) {
+	    if ("and".equals(s)) {
+		pos++;
+	    }
+	    p = p.and(parseUnary());
+	    s = peek();
+	}
+	return p;
+    }
+
+    private Predicate<ContentsFileDetail> parseUnary() {
+	String s = peek();
+	if (s == null) {
+	    throw new IllegalArgumentException("Incomplete query");
+	}
+	pos++;
+	if ("not".equals(s) || "!".equals(s)) {
+	    return parseUnary().negate();
+	}
+	if ("(".equals(s)) {
+	    Predicate<ContentsFileDetail> p = parseOr();
+	    if (!")".equals(peek())) {
+		throw new IllegalArgumentException("Missing )");
+	    }
+	    pos++;
+	    return p;
+	}
+	return parseTerm(s);
+    }
+
+    private Predicate<ContentsFileDetail> parseTerm(final String s) {
+	if ("setuid".equals(s)) {
+	    return cfd -> (modeOf(cfd) & 04000) != 0;
+	} else if ("setgid".equals(s)) {
+	    return cfd -> (modeOf(cfd) & 02000) != 0;
+	} else if ("editable".equals(s)) {
+	    return ContentsFileDetail::isEditable;
+	} else if ("shared".equals(s)) {
+	    return ContentsFileDetail::isShared;
+	}
+	Matcher m = TERM.matcher(s);
+	if (!m.matches()) {
+	    throw new IllegalArgumentException("Invalid term " + s);
+	}
+	String attr = m.group(1);
+	String op = m.group(2);
+	String value = m.group(3);
+	if ("type".equals(attr)) {
+	    return negateIf(op, cfd -> value.indexOf(cfd.getType()) >= 0);
+	} else if ("owner".equals(attr)) {
+	    return negateIf(op, cfd -> value.equals(cfd.getOwner()));
+	} else if ("group".equals(attr)) {
+	    return negateIf(op, cfd -> value.equals(cfd.getGroup()));
+	} else if ("path".equals(attr)) {
+	    Pattern p = globToPattern(value);
+	    return negateIf(op, cfd -> p.matcher(cfd.getName()).matches());
+	} else if ("pkg".equals(attr)) {
+	    Pattern p = globToPattern(value);
+	    return negateIf(op, cfd -> {
+		for (String pkg : cfd.getPackageNames()) {
+		    if (p.matcher(pkg).matches()) {
+			return true;
+		    }
+		}
+		return false;
+	    });
+	} else if ("mode".equals(attr)) {
+	    int mode = parseMode(value);
+	    if ("&".equals(op)) {
+		return cfd -> (modeOf(cfd) & mode) != 0;
+	    }
+	    return compare(op, mode, cfd -> modeOf(cfd));
+	} else if ("size".equals(attr)) {
+	    return compare(op, parseSize(value), ContentsFileDetail::getSize);
+	}
+	throw new IllegalArgumentException("Unknown attribute " + attr);
+    }
+
+    private static Predicate<ContentsFileDetail> negateIf(final String op,
+		final Predicate<ContentsFileDetail> p) {
+	if ("=".equals(op)) {
+	    return p;
+	} else if ("!=".equals(op)) {
+	    return p.negate();
+	}
+	throw new IllegalArgumentException("Invalid operator " + op);
+    }
+
+    private static Predicate<ContentsFileDetail> compare(final String op,
+		final long value, final ToLong f) {
+	switch (op) {
+	    case "=":
+		return cfd -> f.of(cfd) == value;
+	    case "!=":
+		return cfd -> f.of(cfd) != value;
+	    case "<":
+		return cfd -> f.of(cfd) < value;
+	    case ">":
+		return cfd -> f.of(cfd) > value;
+	    case "<=":
+		return cfd -> f.of(cfd) <= value;
+	    case ">=":
+		return cfd -> f.of(cfd) >= value;
+	    default:
+		throw new IllegalArgumentException("Invalid operator " + op);
+	}
+    }
+
+    /*
+     * Extract a numeric attribute from an entry.
+     */
+    @FunctionalInterface
+    private interface ToLong {
+	long of(ContentsFileDetail cfd);
+    }
+
+    /*
+     * Links have no mode, and the contents file uses ? for unknown values,
+     * so both of those are treated as no bits set.
+     */
+    private static int modeOf(final ContentsFileDetail cfd) {
+	String mode = cfd.getMode();
+	if (mode == null) {
+	    return 0;
+	}
+	try {
+	    return Integer.parseInt(mode, 8);
+	} catch (NumberFormatException nfe) {
+	    return 0;
+	}
+    }
+
+    private static int parseMode(final String s) {
+	try {
+	    return Integer.parseInt(s, 8);
+	} catch (NumberFormatException nfe) {
+	    throw new IllegalArgumentException("Invalid mode " + s);
+	}
+    }
+
+    private static long parseSize(final String s) {
+	long scale = 1;
+	String num = s;
+	char c = Character.toLowerCase(s.charAt(s.length() - 1));
+	if (c == 'k') {
+	    scale = 1024L;
+	} else if (c == 'm') {
+	    scale = 1024L * 1024L;
+	} else if (c == 'g') {
+	    scale = 1024L * 1024L * 1024L;
+	}
+	if (scale > 1) {
+	    num = s.substring(0, s.length() - 1);
+	}
+	try {
+	    return Long.parseLong(num) * scale;
+	} catch (NumberFormatException nfe) {
+	    throw new IllegalArgumentException("Invalid size " + s);
+	}
+    }
+
+    /*
+     * Convert a glob to a regular expression. Unlike the shell, * matches
+     * across directory boundaries, like find -path.
+     */
+    private static Pattern globToPattern(final String glob) {
+	StringBuilder sb = new StringBuilder(glob.length() + 16);
+	int start = 0;
+	for (int i = 0; i < glob.length(); i++) {
+	    char c = glob.charAt(i);
+	    if (c == '*' || c == '?') {
+		if (i > start) {
+		    sb.append(Pattern.quote(glob.substring(start, i)));
+		}
+		sb.append(c == '*' ? ".*" : ".");
+		start = i + 1;
+	    }
+	}
+	if (start < glob.length()) {
+	    sb.append(Pattern.quote(glob.substring(start)));
+	}
+	return Pattern.compile(sb.toString());
+    }
+}
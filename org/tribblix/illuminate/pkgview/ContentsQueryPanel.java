@@ -0,0 +1,248 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate.pkgview;
+
+import java.awt.BorderLayout;
+import java.awt.Cursor;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JSplitPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.SwingWorker;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * A panel allowing the contents file to be searched with a
+ * ContentsQuery, showing the matching entries in a table.
+ *
+ * @author Peter Tribble
+ * @version 1.0
+ */
+public final class ContentsQueryPanel extends JPanel
+	implements ActionListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient PackageHandler pkghdl;
+
+    /**
+     * The field the query is typed into.
+     */
+    private final JTextField queryField;
+    /**
+     * Shows the number of matches, or any error.
+     */
+    private final JLabel statusLabel;
+    /**
+     * The model holding the matching entries.
+     */
+    private final QueryTableModel qtm;
+    /**
+     * A table showing the matching entries.
+     */
+    private final JTable qtable;
+    /**
+     * A panel to show information about the selected entry.
+     */
+    private final PackageInformationPanel pip;
+
+    /**
+     * Create a new ContentsQueryPanel.
+     *
+     * @param phdl a PackageHandler for this OS image
+     */
+    public ContentsQueryPanel(final PackageHandler phdl) {
+	pkghdl = phdl;
+	setLayout(new BorderLayout());
+
+	JPanel qpanel = new JPanel(new BorderLayout());
+	qpanel.add(new JLabel(PkgResources.getString("PKG.QUERY.LABEL")),
+		BorderLayout.LINE_START);
+	queryField = new JTextField();
+	queryField.setToolTipText(PkgResources.getString("PKG.QUERY.TIP"));
+	queryField.setEnabled(false);
+	queryField.addActionListener(this);
+	qpanel.add(queryField, BorderLayout.CENTER);
+	statusLabel = new JLabel(PkgResources.getString("PKG.QUERY.WAIT"));
+	qpanel.add(statusLabel, BorderLayout.PAGE_END);
+
+	qtm = new QueryTableModel();
+	qtable = new JTable(qtm);
+	qtable.setAutoCreateRowSorter(true);
+	qtable.getSelectionModel().addListSelectionListener(
+		new ListSelectionListener() {
+	    @Override
+	    public void valueChanged(final ListSelectionEvent e) {
+		if (!e.getValueIsAdjusting()) {
+		    int irow = qtable.getSelectedRow();
+		    if (irow >= 0) {
+			pip.showFile(qtm.getDetailAtRow(
+			    qtable.convertRowIndexToModel(irow)).getName());
+		    }
+		}
+	    }
+	});
+
+	JPanel jpt = new JPanel(new BorderLayout());
+	jpt.add(qpanel, BorderLayout.PAGE_START);
+	jpt.add(new JScrollPane(qtable), BorderLayout.CENTER);
+
+	pip = new PackageInformationPanel(pkghdl, false);
+
+	JSplitPane psplit = new JSplitPane(JSplitPane.VERTICAL_SPLIT,
+		jpt, pip);
+	psplit.setOneTouchExpandable(true);
+	psplit.setDividerLocation(240);
+	add(psplit);
+    }
+
+    /**
+     * Enable queries, once the contents file has been parsed.
+     */
+    public void showDetailedView() {
+	pip.showDetailedView();
+	queryField.setEnabled(true);
+	statusLabel.setText(" ");
+    }
+
+    @Override
+    public void actionPerformed(final ActionEvent e) {
+	final ContentsQuery query;
+	try {
+	    query = new ContentsQuery(queryField.getText());
+	} catch (IllegalArgumentException iae) {
+	    statusLabel.setText(iae.getMessage());
+	    return;
+	}
+	queryField.setEnabled(false);
+	setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+	new QueryWorker(query).execute();
+    }
+
+    /*
+     * Run the query in the background.
+     */
+    class QueryWorker extends SwingWorker<List<ContentsFileDetail>, Object> {
+	private final ContentsQuery query;
+	private long elapsed;
+
+	QueryWorker(final ContentsQuery nquery) {
+	    query = nquery;
+	}
+
+	@Override
+	public List<ContentsFileDetail> doInBackground() {
+	    long start = System.currentTimeMillis();
+	    List<ContentsFileDetail> lcfd
+		= query.run(pkghdl.getContentsParser());
+	    elapsed = System.currentTimeMillis() - start;
+	    return lcfd;
+	}
+
+	@Override
+	protected void done() {
+	    try {
+		List<ContentsFileDetail> lcfd = get();
+		qtm.setDetails(lcfd);
+		statusLabel.setText(lcfd.size() + " "
+			+ PkgResources.getString("PKG.QUERY.MATCHES")
+			+ " (" + elapsed + "ms)");
+	    } catch (InterruptedException | ExecutionException e) {
+		statusLabel.setText(e.getMessage());
+	    }
+	    setCursor(Cursor.getDefaultCursor());
+	    queryField.setEnabled(true);
+	}
+    }
+
+    /*
+     * A table of contents entries.
+     */
+    static final class QueryTableModel extends AbstractTableModel {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String[] columnNames = {"Path", "Type", "Mode",
+					"Owner", "Group", "Size", "Packages"};
+
+	private transient List<ContentsFileDetail> details
+	    = new ArrayList<>();
+
+	void setDetails(final List<ContentsFileDetail> ndetails) {
+	    details = ndetails;
+	    fireTableDataChanged();
+	}
+
+	ContentsFileDetail getDetailAtRow(final int row) {
+	    return details.get(row);
+	}
+
+	@Override
+	public int getColumnCount() {
+	    return columnNames.length;
+	}
+
+	@Override
+	public int getRowCount() {
+	    return details.size();
+	}
+
+	@Override
+	public String getColumnName(final int col) {
+	    return columnNames[col];
+	}
+
+	@Override
+	public Object getValueAt(final int row, final int col) {
+	    ContentsFileDetail cfd = details.get(row);
+	    switch (col) {
+		case 0:
+		    return cfd.getName();
+		case 1:
+		    return String.valueOf(cfd.getType());
+		case 2:
+		    return cfd.getMode();
+		case 3:
+		    return cfd.getOwner();
+		case 4:
+		    return cfd.getGroup();
+		case 5:
+		    return cfd.getSize();
+		default:
+		    return String.join(" ", cfd.getPackageNames());
+	    }
+	}
+
+	@Override
+	public Class<?> getColumnClass(final int col) {
+	    return (col == 5) ? Long.class : String.class;
+	}
+    }
+}
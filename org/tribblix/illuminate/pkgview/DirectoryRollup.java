@@ -0,0 +1,292 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate.pkgview;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bottom-up aggregation of the contents file by directory. Every
+ * directory that appears in, or is the parent of an entry in, the
+ * contents file is given an integer id, and the total space, number
+ * of entries, and the packages contributing most space are held in
+ * arrays indexed by that id.
+ *
+ * <p>The whole thing is built in a single pass over the ContentsParser
+ * and never touches the filesystem, so it can be queried as often as
+ * a tree renderer likes.
+ *
+ * @author Peter Tribble
+ * @version 1.0
+ */
+public final class DirectoryRollup {
+
+    /**
+     * How many of the largest contributing packages to keep for each
+     * directory.
+     */
+    private static final int TOP_PACKAGES = 5;
+
+    private final Map<String, Integer> dirIds = new HashMap<>();
+    private final List<String> pkgNames = new ArrayList<>();
+    private final Map<String, Integer> pkgIds = new HashMap<>();
+
+    private int ndirs;
+    private int[] parent = new int[1024];
+    private int[] depth = new int[1024];
+    private long[] totalBytes = new long[1024];
+    private int[] entryCount = new int[1024];
+    private int[][] topPkgs;
+    private long[][] topBytes;
+
+    /*
+     * Per-package space for each directory, only used while building.
+     */
+    private List<Map<Integer, Long>> pkgSpace = new ArrayList<>(1024);
+
+    /**
+     * Aggregate the given contents by directory.
+     *
+     * @param cp a ContentsParser for this OS image
+     */
+    public DirectoryRollup(final ContentsParser cp) {
+	addDir("/", -1);
+	for (ContentsFileDetail cfd : cp.getFileDetails()) {
+	    addEntry(cfd);
+	}
+	rollup();
+    }
+
+    /*
+     * Account for an entry in its parent directory. Directories get an id
+     * of their own as well, so that empty ones still appear.
+     */
+    private void addEntry(final ContentsFileDetail cfd) {
+	String name = cfd.getName();
+	if ("/".equals(name)) {
+	    return;
+	}
+	if (cfd.isDirectory()) {
+	    getDirId(name);
+	}
+	int dir = getDirId(parentOf(name));
+	entryCount[dir]++;
+	if (cfd.isRegular()) {
+	    long size = cfd.getSize();
+	    totalBytes[dir] += size;
+	    Map<Integer, Long> pmap = pkgSpace.get(dir);
+	    if (pmap == null) {
+		pmap = new HashMap<>();
+		pkgSpace.set(dir, pmap);
+	    }
+	    for (String pkg : cfd.getPackageNames()) {
+		pmap.merge(getPkgId(pkg), size, Long::sum);
+	    }
+	}
+    }
+
+    private static String parentOf(final String name) {
+	int i = name.lastIndexOf('/');
+	return (i <= 0) ? "/" : name.substring(0, i);
+    }
+
+    private int getDirId(final String name) {
+	Integer id = dirIds.get(name);
+	if (id != null) {
+	    return id;
+	}
+	return addDir(name, getDirId(parentOf(name)));
+    }
+
+    private int addDir(final String name, final int pid) {
+	if (ndirs == parent.length) {
+	    int nsize = ndirs * 2;
+	    parent = Arrays.copyOf(parent, nsize);
+	    depth = Arrays.copyOf(depth, nsize);
+	    totalBytes = Arrays.copyOf(totalBytes, nsize);
+	    entryCount = Arrays.copyOf(entryCount, nsize);
+	}
+	int id = ndirs;
+	ndirs++;
+	parent[id] = pid;
+	depth[id] = (pid < 0) ? 0 : depth[pid] + 1;
+	pkgSpace.add(null);
+	dirIds.put(name, id);
+	return id;
+    }
+
+    private int getPkgId(final String pkg) {
+	Integer id = pkgIds.get(pkg);
+	if (id == null) {
+	    id = pkgNames.size();
+	    pkgNames.add(pkg);
+	    pkgIds.put(pkg, id);
+	}
+	return id;
+    }
+
+    /*
+     * Walk the directories deepest first, so that each directory is
+     * complete before it's added to its parent. The per-package maps
+     * are discarded as we go, leaving just the top few in arrays.
+     */
+    private void rollup() {
+	Integer[] order = new Integer[ndirs];
+	for (int i = 0; i < ndirs; i++) {
+	    order[i] = i;
+	}
+	Arrays.sort(order, (a, b) -> depth[b] - depth[a]);
+	topPkgs = new int[ndirs][];
+	topBytes = new long[ndirs][];
+	for (int d : order) {
+	    Map<Integer, Long> pmap = pkgSpace.get(d);
+	    int p = parent[d];
+	    if (p >= 0) {
+		totalBytes[p] += totalBytes[d];
+		entryCount[p] += entryCount[d];
+		if (pmap != null) {
+		    Map<Integer, Long> ppmap = pkgSpace.get(p);
+		    if (ppmap == null) {
+			ppmap = new HashMap<>();
+			pkgSpace.set(p, ppmap);
+		    }
+		    for (Map.Entry<Integer, Long> entry : pmap.entrySet()) {
+			ppmap.merge(entry.getKey(), entry.getValue(),
+				Long::sum);
+		    }
+		}
+	    }
+	    setTop(d, pmap);
+	    pkgSpace.set(d, null);
+	}
+	pkgSpace = null;
+	parent = Arrays.copyOf(parent, ndirs);
+	totalBytes = Arrays.copyOf(totalBytes, ndirs);
+	entryCount = Arrays.copyOf(entryCount, ndirs);
+	depth = null;
+    }
+
+    private void setTop(final int d, final Map<Integer, Long> pmap) {
+	if (pmap == null) {
+	    topPkgs[d] = new int[0];
+	    topBytes[d] = new long[0];
+	    return;
+	}
+	List<Map.Entry<Integer, Long>> entries = new ArrayList<>(
+		pmap.entrySet());
+	entries.sort(Collections.reverseOrder(Map.Entry.comparingByValue()));
+	int n = Math.min(TOP_PACKAGES, entries.size());
+	topPkgs[d] = new int[n];
+	topBytes[d] = new long[n];
+	for (int i = 0; i < n; i++) {
+	    topPkgs[d][i] = entries.get(i).getKey();
+	    topBytes[d][i] = entries.get(i).getValue();
+	}
+    }
+
+    /**
+     * Return the id of the given directory.
+     *
+     * @param name the path name of a directory
+     *
+     * @return the id of the given directory, or -1 if the directory
+     * holds nothing known to the contents file
+     */
+    public int getId(final String name) {
+	Integer id = dirIds.get(name);
+	return (id == null) ? -1 : id;
+    }
+
+    /**
+     * Return the number of directories.
+     *
+     * @return the number of directories
+     */
+    public int numDirectories() {
+	return ndirs;
+    }
+
+    /**
+     * Return the id of the parent of the given directory.
+     *
+     * @param id the id of a directory
+     *
+     * @return the id of the parent directory, or -1 for the root
+     */
+    public int getParent(final int id) {
+	return parent[id];
+    }
+
+    /**
+     * Return the space used by files at or below the given directory.
+     *
+     * @param id the id of a directory
+     *
+     * @return the total space used under the given directory, in bytes
+     */
+    public long getTotalBytes(final int id) {
+	return totalBytes[id];
+    }
+
+    /**
+     * Return the number of entries at or below the given directory,
+     * not counting the directory itself.
+     *
+     * @param id the id of a directory
+     *
+     * @return the number of entries under the given directory
+     */
+    public int getEntryCount(final int id) {
+	return entryCount[id];
+    }
+
+    /**
+     * Return the names of the packages contributing the most space under
+     * the given directory, largest first.
+     *
+     * @param id the id of a directory
+     *
+     * @return an array of package names
+     */
+    public String[] getTopPackages(final int id) {
+	String[] names = new String[topPkgs[id].length];
+	for (int i = 0; i < names.length; i++) {
+	    names[i] = pkgNames.get(topPkgs[id][i]);
+	}
+	return names;
+    }
+
+    /**
+     * Return the space contributed by each of the packages returned by
+     * {@link #getTopPackages}, in the same order.
+     *
+     * @param id the id of a directory
+     *
+     * @return an array of sizes, in bytes
+     */
+    public long[] getTopPackageBytes(final int id) {
+	return topBytes[id].clone();
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate.pkgview;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * ElfDependencies - compare the dependencies packages declare with the
+ * libraries their ELF objects actually need.
+ *
+ * <p>Every regular file in the contents file is checked, in parallel, to
+ * see whether it's a dynamic ELF object. Each needed library is resolved
+ * using the object's runpath and the default library directories, and
+ * the package delivering it looked up in the contents file.
+ *
+ * <p>A package is missing a dependency if it needs a library from a
+ * package it doesn't declare. A declared dependency is unnecessary if
+ * it delivers libraries but the package doesn't need any of them;
+ * dependencies on packages without libraries are assumed to be there
+ * for some other reason.
+ *
+ * @author Peter Tribble
+ * @version 1.0
+ */
+public final class ElfDependencies {
+
+    private static final int MAX_LINKS = 16;
+    private static final List<String> DEFAULT_32 =
+	List.of("/lib", "/usr/lib");
+    private static final List<String> DEFAULT_64 =
+	List.of("/lib/64", "/usr/lib/64");
+
+    private final PackageHandler pkghdl;
+    private final ContentsParser cp;
+    private final boolean verbose;
+
+    /*
+     * Cache of candidate library path to owning packages, an empty list
+     * meaning the path isn't in the contents file.
+     */
+    private final Map<String, List<String>> ownerCache =
+	new ConcurrentHashMap<>();
+
+    /*
+     * One needed library of one object, and the packages delivering it,
+     * empty if it couldn't be resolved.
+     */
+    private static final class Need {
+	private final String pkg;
+	private final String file;
+	private final String lib;
+	private final List<String> owners;
+
+	Need(final String pkg, final String file, final String lib,
+	     final List<String> owners) {
+	    this.pkg = pkg;
+	    this.file = file;
+	    this.lib = lib;
+	    this.owners = owners;
+	}
+    }
+
+    private ElfDependencies(final String altroot, final boolean verbose) {
+	pkghdl = PackageHandler.getHandler(altroot);
+	cp = pkghdl.getContentsParser();
+	this.verbose = verbose;
+    }
+
+    /*
+     * Read each regular file, returning what each ELF object needs.
+     */
+    private List<Need> findNeeds(final Set<String> pkgs) {
+	return cp.getFileDetails().parallelStream()
+	    .filter(ContentsFileDetail::isRegular)
+	    .filter(cfd -> pkgs.isEmpty()
+		    || !Collections.disjoint(pkgs, cfd.getPackageNames()))
+	    .flatMap(cfd -> examine(cfd).stream())
+	    .collect(Collectors.toList());
+    }
+
+    private List<Need> examine(final ContentsFileDetail cfd) {
+	ElfFile elf;
+	try {
+	    elf = ElfFile.read(new File(pkghdl.getRoot(), cfd.getName()));
+	} catch (IOException ioe) {
+	    return Collections.emptyList();
+	}
+	if (elf == null) {
+	    return Collections.emptyList();
+	}
+	String name = cfd.getName();
+	String origin = name.substring(0, name.lastIndexOf('/'));
+	List<String> dirs = new ArrayList<>();
+	for (String dir : elf.getRunpath()) {
+	    dirs.add(dir.replace("${ORIGIN}", origin)
+		     .replace("$ORIGIN", origin));
+	}
+	dirs.addAll(elf.is64bit() ? DEFAULT_64 : DEFAULT_32);
+	List<Need> needs = new ArrayList<>();
+	for (String lib : elf.getNeeded()) {
+	    List<String> owners = lib.indexOf('/') >= 0
+		? owners(lib.startsWith("/") ? lib : origin + "/" + lib)
+		: Collections.emptyList();
+	    for (String dir : dirs) {
+		if (!owners.isEmpty()) {
+		    break;
+		}
+		owners = owners(dir + "/" + lib);
+	    }
+	    for (String pkg : cfd.getPackageNames()) {
+		needs.add(new Need(pkg, name, lib, owners));
+	    }
+	}
+	return needs;
+    }
+
+    private List<String> owners(final String path) {
+	return ownerCache.computeIfAbsent(path, p -> {
+		ContentsFileDetail cfd = lookup(p);
+		return cfd == null ? Collections.emptyList()
+		    : cfd.getPackageNames();
+	    });
+    }
+
+    /*
+     * Find a path in the contents file, following any symbolic links
+     * in the directories leading to it.
+     */
+    private ContentsFileDetail lookup(final String path) {
+	String p = normalize(path);
+	for (int n = 0; n < MAX_LINKS && p != null; n++) {
+	    ContentsFileDetail cfd = cp.getFileDetail(p);
+	    if (cfd != null) {
+		return cfd;
+	    }
+	    p = expandLink(p);
+	}
+	return null;
+    }
+
+    /*
+     * Replace the first directory in the path that's a symbolic link by
+     * its target, returning null if there isn't one.
+     */
+    private String expandLink(final String path) {
+	int i = path.indexOf('/', 1);
+	while (i > 0) {
+	    String prefix = path.substring(0, i);
+	    ContentsFileDetail cfd = cp.getFileDetail(prefix);
+	    if (cfd != null && cfd.isSymLink()) {
+		String target = cfd.getTarget();
+		if (!target.startsWith("/")) {
+		    target = prefix.substring(0, prefix.lastIndexOf('/') + 1)
+			+ target;
+		}
+		return normalize(target + path.substring(i));
+	    }
+	    i = path.indexOf('/', i + 1);
+	}
+	return null;
+    }
+
+    private static String normalize(final String path) {
+	List<String> parts = new ArrayList<>();
+	for (String s : path.split("/")) {
+	    if ("..".equals(s)) {
+		if (!parts.isEmpty()) {
+		    parts.remove(parts.size() - 1);
+		}
+	    } else if (!s.isEmpty() && !".".equals(s)) {
+		parts.add(s);
+	    }
+	}
+	return "/" + String.join("/", parts);
+    }
+
+    private void report(final List<Need> needs, final Set<String> pkgs) {
+	PkgList plist = pkghdl.getPkgList();
+	/*
+	 * Packages that deliver shared libraries.
+	 */
+	Set<String> providers = new HashSet<>();
+	for (ContentsFileDetail cfd : cp.getFileDetails()) {
+	    String name = cfd.getName();
+	    if (!cfd.isDirectory()
+		    && name.indexOf(".so", name.lastIndexOf('/')) > 0) {
+		providers.addAll(cfd.getPackageNames());
+	    }
+	}
+	Map<String, List<Need>> bypkg = new TreeMap<>();
+	for (Need need : needs) {
+	    bypkg.computeIfAbsent(need.pkg, k -> new ArrayList<>()).add(need);
+	}
+	for (SVR4Package pkg : plist) {
+	    if (!pkgs.isEmpty() && !pkgs.contains(pkg.getName())) {
+		continue;
+	    }
+	    List<Need> pneeds = bypkg.getOrDefault(pkg.getName(),
+						Collections.emptyList());
+	    reportPackage(pkg, pneeds, providers);
+	}
+    }
+
+    private void reportPackage(final SVR4Package pkg,
+			final List<Need> pneeds, final Set<String> providers) {
+	String pname = pkg.getName();
+	Set<String> declared = pkg.getDependencySet();
+	Set<String> used = new HashSet<>();
+	Map<String, List<Need>> missing = new TreeMap<>();
+	List<Need> unresolved = new ArrayList<>();
+	for (Need need : pneeds) {
+	    if (need.owners.isEmpty()) {
+		unresolved.add(need);
+	    } else if (need.owners.contains(pname)) {
+		used.add(pname);
+	    } else {
+		List<String> sat = new ArrayList<>(need.owners);
+		sat.retainAll(declared);
+		if (sat.isEmpty()) {
+		    missing.computeIfAbsent(String.join("|", need.owners),
+					k -> new ArrayList<>()).add(need);
+		} else {
+		    used.addAll(sat);
+		}
+	    }
+	}
+	Set<String> unneeded = new TreeSet<>();
+	if (!pneeds.isEmpty()) {
+	    for (String dep : declared) {
+		if (providers.contains(dep) && !used.contains(dep)) {
+		    unneeded.add(dep);
+		}
+	    }
+	}
+	if (missing.isEmpty() && unneeded.isEmpty() && unresolved.isEmpty()) {
+	    return;
+	}
+	System.out.println("Package " + pname);
+	for (Map.Entry<String, List<Need>> me : missing.entrySet()) {
+	    System.out.println("  missing dependency " + me.getKey());
+	    showNeeds(me.getValue());
+	}
+	for (String dep : unneeded) {
+	    System.out.println("  unnecessary dependency " + dep);
+	}
+	if (!unresolved.isEmpty()) {
+	    System.out.println("  unresolved libraries");
+	    showNeeds(unresolved);
+	}
+    }
+
+    private void showNeeds(final List<Need> needs) {
+	int n = 0;
+	for (Need need : needs) {
+	    if (!verbose && n == 1) {
+		System.out.println("    ... and " + (needs.size() - 1)
+				   + " more");
+		break;
+	    }
+	    System.out.println("    " + need.lib + " needed by " + need.file);
+	    n++;
+	}
+    }
+
+    private static void usage() {
+	System.err.println("Usage: elfdepend [-R alt_root] [-v] "
+			   + "[package ...]");
+	System.exit(1);
+    }
+
+    /**
+     * Run the application.
+     *
+     * @param args Command line arguments
+     */
+    public static void main(final String[] args) {
+	String altroot = "/";
+	boolean verbose = false;
+	int i = 0;
+	while (i < args.length && args[i].startsWith("-")) {
+	    if ("-R".equals(args[i]) && i + 1 < args.length) {
+		altroot = args[i + 1];
+		i += 2;
+	    } else if ("-v".equals(args[i])) {
+		verbose = true;
+		i++;
+	    } else {
+		usage();
+	    }
+	}
+	Set<String> pkgs = new HashSet<>();
+	for (; i < args.length; i++) {
+	    pkgs.add(args[i]);
+	}
+	ElfDependencies ed = new ElfDependencies(altroot, verbose);
+	ed.report(ed.findNeeds(pkgs), pkgs);
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate.pkgview;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ElfFile - read the dynamic linking information from an ELF object.
+ *
+ * <p>Only as much of the file is read as is necessary to find the
+ * dynamic section and the string table it refers to, so that we can
+ * return the needed libraries and the runpath.
+ *
+ * @author Peter Tribble
+ * @version 1.1
+ */
+public final class ElfFile {
+
+    private static final int ELFCLASS64 = 2;
+    private static final int ELFDATA2MSB = 2;
+    private static final int ET_EXEC = 2;
+    private static final int ET_DYN = 3;
+    private static final int SHT_DYNAMIC = 6;
+    private static final long DT_NULL = 0;
+    private static final long DT_NEEDED = 1;
+    private static final long DT_RPATH = 15;
+    private static final long DT_RUNPATH = 29;
+
+    /*
+     * The smallest possible ELF header, that of a 32-bit object.
+     */
+    private static final int MIN_SIZE = 52;
+
+    private final boolean is64;
+    private final List<String> needed = new ArrayList<>();
+    private final List<String> runpath = new ArrayList<>();
+
+    private ElfFile(final boolean is64) {
+	this.is64 = is64;
+    }
+
+    /**
+     * Read the dynamic linking information from a file.
+     *
+     * @param f the File to read
+     *
+     * @return an ElfFile, or null if the file is not a dynamically linked
+     * executable or shared object
+     *
+     * @throws IOException if the file cannot be read
+     */
+    public static ElfFile read(final File f) throws IOException {
+	try (FileChannel fc = FileChannel.open(f.toPath(),
+					StandardOpenOption.READ)) {
+	    long size = fc.size();
+	    if (size < MIN_SIZE || size > Integer.MAX_VALUE) {
+		return null;
+	    }
+	    /*
+	     * Check the magic number before going to the expense of
+	     * mapping the file, most files won't be ELF.
+	     */
+	    ByteBuffer ident = ByteBuffer.allocate(4);
+	    fc.read(ident, 0);
+	    if (ident.get(0) != 0x7f || ident.get(1) != 'E'
+		    || ident.get(2) != 'L' || ident.get(3) != 'F') {
+		return null;
+	    }
+	    MappedByteBuffer buf = fc.map(FileChannel.MapMode.READ_ONLY,
+					0, size);
+	    try {
+		return parse(buf);
+	    } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+		// truncated or corrupt, treat as not ELF
+		return null;
+	    }
+	}
+    }
+
+    private static ElfFile parse(final ByteBuffer buf) {
+	boolean is64 = buf.get(4) == ELFCLASS64;
+	buf.order(buf.get(5) == ELFDATA2MSB
+		? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+	int etype = buf.getShort(16) & 0xffff;
+	if (etype != ET_EXEC && etype != ET_DYN) {
+	    return null;
+	}
+	long shoff = is64 ? buf.getLong(40) : buf.getInt(32) & 0xffffffffL;
+	int shentsize = buf.getShort(is64 ? 58 : 46) & 0xffff;
+	int shnum = buf.getShort(is64 ? 60 : 48) & 0xffff;
+	if (shoff == 0 || shnum == 0) {
+	    return null;
+	}
+	ElfFile elf = new ElfFile(is64);
+	for (int i = 0; i < shnum; i++) {
+	    int sh = position(buf, shoff + (long) i * shentsize);
+	    if (buf.getInt(sh + 4) != SHT_DYNAMIC) {
+		continue;
+	    }
+	    int dynoff = position(buf, sectionOffset(buf, sh, is64));
+	    long dynsize = sectionSize(buf, sh, is64);
+	    if (dynsize < 0 || dynsize > buf.limit() - dynoff) {
+		return null;
+	    }
+	    long link = buf.getInt(sh + (is64 ? 40 : 24)) & 0xffffffffL;
+	    int strsh = position(buf, shoff + link * shentsize);
+	    int stroff = position(buf, sectionOffset(buf, strsh, is64));
+	    elf.readDynamic(buf, dynoff, (int) dynsize, stroff);
+	    break;
+	}
+	return elf;
+    }
+
+    /*
+     * Convert an offset read from the file into a position in the buffer,
+     * checking it lies inside the file first so that a corrupt offset
+     * can't overflow when narrowed to an int.
+     */
+    private static int position(final ByteBuffer buf, final long off) {
+	if (off < 0 || off >= buf.limit()) {
+	    throw new IndexOutOfBoundsException("offset " + off);
+	}
+	return (int) off;
+    }
+
+    private static long sectionOffset(final ByteBuffer buf, final int sh,
+				final boolean is64) {
+	return is64 ? buf.getLong(sh + 24) : buf.getInt(sh + 16) & 0xffffffffL;
+    }
+
+    private static long sectionSize(final ByteBuffer buf, final int sh,
+				final boolean is64) {
+	return is64 ? buf.getLong(sh + 32) : buf.getInt(sh + 20) & 0xffffffffL;
+    }
+
+    private void readDynamic(final ByteBuffer buf, final int dynoff,
+			final int dynsize, final int stroff) {
+	int entsize = is64 ? 16 : 8;
+	String rpath = null;
+	String rnpath = null;
+	for (int d = dynoff; d + entsize <= dynoff + dynsize; d += entsize) {
+	    long tag = is64 ? buf.getLong(d) : buf.getInt(d);
+	    long val = is64 ? buf.getLong(d + 8)
+		: buf.getInt(d + 4) & 0xffffffffL;
+	    if (tag == DT_NULL) {
+		break;
+	    } else if (tag == DT_NEEDED) {
+		needed.add(readString(buf, stroff + val));
+	    } else if (tag == DT_RUNPATH) {
+		rnpath = readString(buf, stroff + val);
+	    } else if (tag == DT_RPATH) {
+		rpath = readString(buf, stroff + val);
+	    }
+	}
+	/*
+	 * If both are present, the runpath takes precedence.
+	 */
+	String path = rnpath == null ? rpath : rnpath;
+	if (path != null && !path.isEmpty()) {
+	    runpath.addAll(Arrays.asList(path.split(":")));
+	}
+    }
+
+    private static String readString(final ByteBuffer buf, final long off) {
+	int start = position(buf, off);
+	int end = start;
+	while (buf.get(end) != 0) {
+	    end++;
+	}
+	byte[] b = new byte[end - start];
+	for (int i = 0; i < b.length; i++) {
+	    b[i] = buf.get(start + i);
+	}
+	return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Return whether this is a 64-bit object.
+     *
+     * @return true if this is a 64-bit object
+     */
+    public boolean is64bit() {
+	return is64;
+    }
+
+    /**
+     * Return the libraries this object needs, from its DT_NEEDED entries.
+     *
+     * @return the List of needed libraries
+     */
+    public List<String> getNeeded() {
+	return Collections.unmodifiableList(needed);
+    }
+
+    /**
+     * Return the directories in this object's runpath.
+     *
+     * @return the List of runpath directories, which may be empty
+     */
+    public List<String> getRunpath() {
+	return Collections.unmodifiableList(runpath);
+    }
+}
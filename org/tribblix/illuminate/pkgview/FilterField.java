@@ -0,0 +1,189 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate.pkgview;
+
+import java.awt.BorderLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.concurrent.ExecutionException;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * A field to type filter text into, which searches a SubstringIndex as
+ * the user types and tells its listener which entries match.
+ *
+ * <p>Searches are only started once typing pauses, and run in the
+ * background so the user interface stays responsive however large the
+ * index. If a new search makes an earlier one obsolete, the results of
+ * the earlier one are simply discarded. When the text is extended, only
+ * the matches for the previous text need to be searched.
+ *
+ * @author Peter Tribble
+ * @version 1.0
+ */
+public final class FilterField extends JPanel implements DocumentListener {
+
+    private static final long serialVersionUID = 1L;
+
+    /*
+     * How long to wait after a keystroke before searching, in ms.
+     */
+    private static final int DELAY = 150;
+
+    /**
+     * Notified when the set of matching entries changes.
+     */
+    public interface FilterListener {
+	/**
+	 * Called, on the event thread, with the entries matching the
+	 * current filter text.
+	 *
+	 * @param matches the indices of the matching entries, in ascending
+	 * order, or null if there is no filter text
+	 */
+	void filterChanged(int[] matches);
+    }
+
+    private final JTextField textField;
+    private final JLabel countLabel;
+    private final Timer timer;
+    private final transient FilterListener listener;
+    private transient SubstringIndex index;
+
+    /*
+     * Incremented for each search, so that only the latest one is used.
+     */
+    private int generation;
+    /*
+     * The text and results of the last completed search.
+     */
+    private String lastText;
+    private int[] lastMatches;
+
+    /**
+     * Create a FilterField.
+     *
+     * @param tooltip the tooltip for the text field
+     * @param flistener notified when the filter results change
+     */
+    public FilterField(final String tooltip,
+			final FilterListener flistener) {
+	super(new BorderLayout());
+	listener = flistener;
+	add(new JLabel(PkgResources.getString("PKG.FILTER.LABEL")),
+		BorderLayout.LINE_START);
+	textField = new JTextField();
+	textField.setToolTipText(tooltip);
+	textField.getDocument().addDocumentListener(this);
+	add(textField, BorderLayout.CENTER);
+	countLabel = new JLabel();
+	add(countLabel, BorderLayout.LINE_END);
+	timer = new Timer(DELAY, new ActionListener() {
+	    @Override
+	    public void actionPerformed(final ActionEvent e) {
+		startSearch();
+	    }
+	});
+	timer.setRepeats(false);
+    }
+
+    /**
+     * Set the index to search. Any current filter text is applied to the
+     * new index straight away.
+     *
+     * @param sindex the SubstringIndex to search
+     */
+    public void setIndex(final SubstringIndex sindex) {
+	index = sindex;
+	lastText = null;
+	lastMatches = null;
+	startSearch();
+    }
+
+    /**
+     * Return whether any filter text has been entered.
+     *
+     * @return true if a filter is active
+     */
+    public boolean isFiltering() {
+	return !textField.getText().isEmpty();
+    }
+
+    private void startSearch() {
+	timer.stop();
+	final int gen = ++generation;
+	final String text = textField.getText();
+	if (text.isEmpty()) {
+	    countLabel.setText("");
+	    listener.filterChanged(null);
+	    return;
+	}
+	final SubstringIndex sindex = index;
+	if (sindex == null) {
+	    return;
+	}
+	final String ptext = lastText;
+	final int[] pmatches = lastMatches;
+	new SwingWorker<int[], Object>() {
+	    @Override
+	    public int[] doInBackground() {
+		return (ptext != null && text.contains(ptext))
+		    ? sindex.refine(pmatches, text) : sindex.search(text);
+	    }
+
+	    @Override
+	    public void done() {
+		if (gen != generation || sindex != index) {
+		    return;
+		}
+		try {
+		    int[] matches = get();
+		    lastText = text;
+		    lastMatches = matches;
+		    countLabel.setText(" " + matches.length + " / "
+				+ sindex.size() + " ");
+		    listener.filterChanged(matches);
+		} catch (InterruptedException | ExecutionException e) { }
+	    }
+	}.execute();
+    }
+
+    @Override
+    public void insertUpdate(final DocumentEvent e) {
+	timer.restart();
+    }
+
+    @Override
+    public void removeUpdate(final DocumentEvent e) {
+	timer.restart();
+    }
+
+    @Override
+    public void changedUpdate(final DocumentEvent e) {
+	timer.restart();
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate.pkgview;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * IPSAction - a single action from an IPS manifest or catalog, such as
+ * {@code set name=pkg.summary value="Core Solaris"}.
+ *
+ * <p>An action consists of its type, an optional payload hash, and a
+ * list of attributes. Attribute values may be quoted, and an attribute
+ * may appear more than once.
+ *
+ * @author Peter Tribble
+ * @version 1.1
+ */
+public final class IPSAction {
+
+    private final String type;
+    private String payload;
+    private final Map<String, List<String>> attributes = new HashMap<>();
+
+    private IPSAction(final String type) {
+	this.type = type;
+    }
+
+    /**
+     * Parse an action.
+     *
+     * @param line the text of the action
+     *
+     * @return the parsed IPSAction, or null if the line is empty
+     */
+    public static IPSAction parse(final String line) {
+	int len = line.length();
+	int i = skipSpace(line, 0);
+	int start = i;
+	while (i < len && !Character.isWhitespace(line.charAt(i))) {
+	    i++;
+	}
+	if (i == start) {
+	    return null;
+	}
+	IPSAction action = new IPSAction(line.substring(start, i));
+	StringBuilder sb = new StringBuilder();
+	while ((i = skipSpace(line, i)) < len) {
+	    start = i;
+	    while (i < len && line.charAt(i) != '='
+		   && !Character.isWhitespace(line.charAt(i))) {
+		i++;
+	    }
+	    String key = line.substring(start, i);
+	    if (i == len || line.charAt(i) != '=') {
+		// a bare word is the payload hash
+		action.payload = key;
+		continue;
+	    }
+	    i++;
+	    sb.setLength(0);
+	    if (i < len && (line.charAt(i) == '"' || line.charAt(i) == '\'')) {
+		char quote = line.charAt(i++);
+		while (i < len && line.charAt(i) != quote) {
+		    char c = line.charAt(i++);
+		    // backslash only escapes quotes and itself
+		    if (c == '\\' && i < len && (line.charAt(i) == quote
+					|| line.charAt(i) == '\\')) {
+			c = line.charAt(i++);
+		    }
+		    sb.append(c);
+		}
+		i++;
+	    } else {
+		while (i < len && !Character.isWhitespace(line.charAt(i))) {
+		    sb.append(line.charAt(i++));
+		}
+	    }
+	    action.attributes.computeIfAbsent(key, k -> new ArrayList<>(1))
+		.add(sb.toString());
+	}
+	return action;
+    }
+
+    private static int skipSpace(final String line, final int from) {
+	int i = from;
+	while (i < line.length() && Character.isWhitespace(line.charAt(i))) {
+	    i++;
+	}
+	return i;
+    }
+
+    /**
+     * Return the type of this action, such as file or depend.
+     *
+     * @return the type of this action
+     */
+    public String getType() {
+	return type;
+    }
+
+    /**
+     * Return the payload hash of this action.
+     *
+     * @return the payload hash of this action, or null if it has none
+     */
+    public String getPayload() {
+	return payload;
+    }
+
+    /**
+     * Return the value of the named attribute. If the attribute has
+     * multiple values, the first is returned.
+     *
+     * @param name the name of the attribute
+     *
+     * @return the value of the attribute, or null if it isn't present
+     */
+    public String getAttribute(final String name) {
+	List<String> values = attributes.get(name);
+	return values == null ? null : values.get(0);
+    }
+
+    /**
+     * Return the names of the attributes of this action.
+     *
+     * @return the Set of attribute names
+     */
+    public Set<String> getAttributeNames() {
+	return Collections.unmodifiableSet(attributes.keySet());
+    }
+
+    /**
+     * Return all the values of the named attribute.
+     *
+     * @param name the name of the attribute
+     *
+     * @return the List of values of the attribute, which may be empty
+     */
+    public List<String> getAttributes(final String name) {
+	List<String> values = attributes.get(name);
+	return values == null ? Collections.emptyList()
+	    : Collections.unmodifiableList(values);
+    }
+}
@@ -0,0 +1,442 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate.pkgview;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import com.github.openjson.JSONArray;
+import com.github.openjson.JSONException;
+import com.github.openjson.JSONObject;
+import com.github.openjson.JSONTokener;
+
+/**
+ * IPSCatalog - the catalog of installed IPS packages, read directly from
+ * the image's installed catalog rather than by running pkg(1).
+ *
+ * <p>The catalog is split into three parts: base, which lists the
+ * packages and their versions; summary, which holds the package metadata;
+ * and dependency, which holds the dependencies. The three parts are
+ * read in parallel.
+ *
+ * <p>Each part is walked token by token rather than being turned into
+ * a tree of JSON objects, so only one package version is ever held as
+ * a JSONObject, and from the summary and dependency parts only the
+ * few values we show are kept.
+ *
+ * @author Peter Tribble
+ * @version 1.3
+ */
+public final class IPSCatalog {
+
+    /**
+     * The location of the installed catalog, relative to the image root.
+     */
+    private static final String CATALOG_DIR = "/var/pkg/state/installed";
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final boolean valid;
+
+    /*
+     * Called for each version of each package as a part of the catalog
+     * is walked.
+     */
+    private interface VersionHandler {
+	void version(String pub, String stem, JSONObject v);
+    }
+
+    /*
+     * Called for each member of an object, to consume its value.
+     */
+    private interface KeyHandler {
+	void key(String key);
+    }
+
+    /**
+     * The catalog information for a single installed package.
+     */
+    public static final class Entry {
+	private final String publisher;
+	private final String version;
+	private String summary;
+	private String description;
+	private String classification;
+	private final List<String> depends = new ArrayList<>();
+
+	Entry(final String publisher, final String version) {
+	    this.publisher = publisher;
+	    this.version = version;
+	}
+
+	/**
+	 * Return the publisher this package was installed from.
+	 *
+	 * @return the publisher of this package
+	 */
+	public String getPublisher() {
+	    return publisher;
+	}
+
+	/**
+	 * Return the version of this package.
+	 *
+	 * @return the full version string of this package
+	 */
+	public String getVersion() {
+	    return version;
+	}
+
+	/**
+	 * Return the summary of this package.
+	 *
+	 * @return the summary of this package, or null if there is none
+	 */
+	public String getSummary() {
+	    return summary;
+	}
+
+	/**
+	 * Return the description of this package.
+	 *
+	 * @return the description of this package, or null if there is none
+	 */
+	public String getDescription() {
+	    return description;
+	}
+
+	/**
+	 * Return the classification of this package.
+	 *
+	 * @return the classification of this package, or null if there
+	 * is none
+	 */
+	public String getClassification() {
+	    return classification;
+	}
+
+	/**
+	 * Return the names of the packages this package requires.
+	 *
+	 * @return the List of required package names
+	 */
+	public List<String> getDepends() {
+	    return Collections.unmodifiableList(depends);
+	}
+    }
+
+    /**
+     * Read the installed catalog of the image at the given root.
+     *
+     * @param altroot the root of the image
+     */
+    public IPSCatalog(final String altroot) {
+	File catdir = new File(altroot + CATALOG_DIR);
+	CompletableFuture<Map<String, Entry>> fbase =
+	    CompletableFuture.supplyAsync(
+		() -> parseBase(new File(catdir, "catalog.base.C")));
+	CompletableFuture<Map<String, Entry>> fsummary =
+	    CompletableFuture.supplyAsync(
+		() -> parseActions(new File(catdir, "catalog.summary.C"), true));
+	CompletableFuture<Map<String, Entry>> fdepend =
+	    CompletableFuture.supplyAsync(
+		() -> parseActions(new File(catdir, "catalog.dependency.C"),
+				false));
+	Map<String, Entry> base = fbase.join();
+	Map<String, Entry> summary = fsummary.join();
+	Map<String, Entry> depend = fdepend.join();
+	valid = base != null && summary != null && depend != null;
+	if (valid) {
+	    merge(base, summary, depend);
+	}
+    }
+
+    /**
+     * Return whether the catalog could be read. If any part of the
+     * catalog was missing or corrupt then the catalog is empty.
+     *
+     * @return true if all parts of the catalog were read successfully
+     */
+    public boolean isValid() {
+	return valid;
+    }
+
+    /**
+     * Return whether the image at the given root has an installed IPS
+     * catalog.
+     *
+     * @param altroot the root of the image
+     *
+     * @return true if an installed catalog is present
+     */
+    public static boolean exists(final String altroot) {
+	return getCatalogFile(altroot).exists();
+    }
+
+    /**
+     * Return the base part of the installed catalog for the image at the
+     * given root, which is rewritten whenever packages are installed or
+     * removed.
+     *
+     * @param altroot the root of the image
+     *
+     * @return a File referring to the base part of the catalog
+     */
+    public static File getCatalogFile(final String altroot) {
+	return new File(altroot + CATALOG_DIR, "catalog.base.C");
+    }
+
+    /*
+     * Walk a part of the catalog, which maps each publisher to a map of
+     * package stems, each of which has a list of versions. Keys starting
+     * with an underscore, such as the signature, aren't publishers.
+     * Returns false if the file can't be read or parsed.
+     */
+    private static boolean walk(final File f, final VersionHandler handler) {
+	try (Reader r = Files.newBufferedReader(f.toPath())) {
+	    JSONTokener t = new JSONTokener(r);
+	    if (t.nextClean() != '{') {
+		return false;
+	    }
+	    walkObject(t, pub -> {
+		if (pub.startsWith("_") || !isNext(t, '{')) {
+		    t.nextValue();
+		    return;
+		}
+		t.nextClean();
+		walkObject(t, stem -> walkVersions(t, pub, stem, handler));
+	    });
+	    return true;
+	} catch (IOException | JSONException e) {
+	    return false;
+	}
+    }
+
+    /*
+     * Walk the members of an object whose opening brace has already been
+     * read, calling the handler to consume the value of each.
+     */
+    private static void walkObject(final JSONTokener t,
+				final KeyHandler handler) {
+	char c = t.nextClean();
+	if (c == '}') {
+	    return;
+	}
+	while (true) {
+	    if (c != '"') {
+		throw t.syntaxError("Expected a key");
+	    }
+	    String key = t.nextString('"');
+	    if (t.nextClean() != ':') {
+		throw t.syntaxError("Expected ':' after " + key);
+	    }
+	    handler.key(key);
+	    c = t.nextClean();
+	    if (c == '}') {
+		return;
+	    }
+	    if (c != ',') {
+		throw t.syntaxError("Expected ',' or '}'");
+	    }
+	    c = t.nextClean();
+	}
+    }
+
+    private static void walkVersions(final JSONTokener t, final String pub,
+				final String stem,
+				final VersionHandler handler) {
+	if (!isNext(t, '[')) {
+	    t.nextValue();
+	    return;
+	}
+	t.nextClean();
+	if (isNext(t, ']')) {
+	    t.nextClean();
+	    return;
+	}
+	while (true) {
+	    Object o = t.nextValue();
+	    if (o instanceof JSONObject) {
+		handler.version(pub, stem, (JSONObject) o);
+	    }
+	    char c = t.nextClean();
+	    if (c == ']') {
+		return;
+	    }
+	    if (c != ',') {
+		throw t.syntaxError("Expected ',' or ']'");
+	    }
+	}
+    }
+
+    /*
+     * Peek at the next significant character.
+     */
+    private static boolean isNext(final JSONTokener t, final char c) {
+	char n = t.nextClean();
+	t.back();
+	return n == c;
+    }
+
+    /*
+     * The base part lists the installed version of each package. Returns
+     * null if the file can't be read or parsed.
+     */
+    private static Map<String, Entry> parseBase(final File f) {
+	Map<String, Entry> base = new HashMap<>();
+	return walk(f, (pub, stem, v) -> base.putIfAbsent(stem,
+			new Entry(pub, v.optString("version", "-"))))
+	    ? base : null;
+    }
+
+    /*
+     * The summary and dependency parts share a layout, with a list of
+     * actions for each package version. Only the values we use are
+     * kept, in an Entry for each version, keyed by its publisher, stem
+     * and version. Returns null if the file can't be read or parsed.
+     */
+    private static Map<String, Entry> parseActions(final File f,
+						final boolean summary) {
+	Map<String, Entry> parsed = new HashMap<>();
+	return walk(f, (pub, stem, v) -> {
+	    JSONArray actions = v.optJSONArray("actions");
+	    if (actions == null) {
+		return;
+	    }
+	    String version = v.optString("version");
+	    Entry entry = new Entry(pub, version);
+	    for (int j = 0; j < actions.length(); j++) {
+		IPSAction action = IPSAction.parse(actions.optString(j));
+		if (action == null) {
+		    continue;
+		}
+		if (summary) {
+		    addSummary(entry, action);
+		} else {
+		    addDepend(entry, action);
+		}
+	    }
+	    parsed.put(key(pub, stem, version), entry);
+	}) ? parsed : null;
+    }
+
+    private static String key(final String pub, final String stem,
+			final String version) {
+	return pub + "/" + stem + "@" + version;
+    }
+
+    /*
+     * Fill in the installed packages from the versions that match in
+     * the summary and dependency parts.
+     */
+    private void merge(final Map<String, Entry> base,
+		final Map<String, Entry> summary,
+		final Map<String, Entry> depend) {
+	for (Map.Entry<String, Entry> me : base.entrySet()) {
+	    Entry entry = me.getValue();
+	    String k = key(entry.publisher, me.getKey(), entry.version);
+	    Entry s = summary.get(k);
+	    if (s != null) {
+		entry.summary = s.summary;
+		entry.description = s.description;
+		entry.classification = s.classification;
+	    }
+	    Entry d = depend.get(k);
+	    if (d != null) {
+		entry.depends.addAll(d.depends);
+	    }
+	}
+	entries.putAll(base);
+    }
+
+    private static void addSummary(final Entry entry,
+				final IPSAction action) {
+	if (!"set".equals(action.getType())) {
+	    return;
+	}
+	String name = action.getAttribute("name");
+	String value = action.getAttribute("value");
+	if ("pkg.summary".equals(name)) {
+	    entry.summary = value;
+	} else if ("pkg.description".equals(name)) {
+	    entry.description = value;
+	} else if ("info.classification".equals(name)) {
+	    entry.classification = value;
+	}
+    }
+
+    private static void addDepend(final Entry entry,
+				final IPSAction action) {
+	if ("depend".equals(action.getType())
+		&& "require".equals(action.getAttribute("type"))) {
+	    for (String fmri : action.getAttributes("fmri")) {
+		entry.depends.add(stem(fmri));
+	    }
+	}
+    }
+
+    /**
+     * Reduce an FMRI to its package stem, removing the scheme, publisher,
+     * and version.
+     *
+     * @param fmri the FMRI to reduce
+     *
+     * @return the package stem
+     */
+    public static String stem(final String fmri) {
+	String s = fmri;
+	if (s.startsWith("pkg://")) {
+	    s = s.substring(s.indexOf('/', 6) + 1);
+	} else if (s.startsWith("pkg:/")) {
+	    s = s.substring(5);
+	}
+	int i = s.indexOf('@');
+	return i < 0 ? s : s.substring(0, i);
+    }
+
+    /**
+     * Return the names of all the installed packages.
+     *
+     * @return the Set of installed package names
+     */
+    public Set<String> getPackageNames() {
+	return new TreeSet<>(entries.keySet());
+    }
+
+    /**
+     * Return the catalog entry for the named package.
+     *
+     * @param name the name of the package
+     *
+     * @return the Entry for the package, or null if it isn't installed
+     */
+    public Entry getEntry(final String name) {
+	return entries.get(name);
+    }
+}
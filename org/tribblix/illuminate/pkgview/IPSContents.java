@@ -0,0 +1,333 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate.pkgview;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * IPSContents - generate the equivalent of the SVR4 contents file from
+ * the manifests of the installed IPS packages.
+ *
+ * <p>The file, dir, link, and hardlink actions of each manifest are
+ * converted to contents(4) entries, with paths delivered by more than
+ * one package merged into a single entry. Actions that the image's
+ * variants and facets exclude, such as those for another architecture,
+ * aren't installed and are skipped. The manifests are parsed in
+ * parallel, and the result written to a cache file named after the
+ * set of installed package versions and the variants and facets, so
+ * that it only needs to be regenerated when those change. Older cache files
+ * for the same image are removed once a new one has been written.
+ *
+ * @author Peter Tribble
+ * @version 1.2
+ */
+public final class IPSContents {
+
+    private static final String PUBLISHER_DIR = "/var/pkg/publisher";
+    private static final String CACHE_PREFIX = "ips-contents-";
+    private static final DateTimeFormatter TIMESTAMP =
+	DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    /*
+     * One contents entry: everything up to the package names, and the
+     * packages delivering it.
+     */
+    private static final class Item {
+	private final String path;
+	private final String details;
+	private final String pkg;
+
+	Item(final String path, final String details, final String pkg) {
+	    this.path = path;
+	    this.details = details;
+	    this.pkg = pkg;
+	}
+    }
+
+    private IPSContents() {
+    }
+
+    /**
+     * Return a contents file for the given IPS image, generating it if
+     * there isn't a cached copy matching the installed packages.
+     *
+     * @param pkghdl an IPSPackageHandler for the image
+     *
+     * @return a File in contents(4) format
+     */
+    public static File getContentsFile(final IPSPackageHandler pkghdl) {
+	IPSCatalog catalog = pkghdl.getIPSCatalog();
+	IPSVariants variants = new IPSVariants(pkghdl.getRoot());
+	String prefix = CACHE_PREFIX + digest(pkghdl.getRoot(), 4) + "-";
+	File cfile = new File(cacheDir(), prefix
+			+ cacheKey(pkghdl.getRoot(), catalog, variants));
+	if (!cfile.exists()) {
+	    try {
+		write(cfile, parseManifests(pkghdl.getRoot(), catalog,
+					variants));
+		removeStale(cfile, prefix);
+	    } catch (IOException ioe) {
+		// leave it missing, the caller will see an empty image
+	    }
+	}
+	return cfile;
+    }
+
+    /*
+     * Remove any other cache files for this image, which must have been
+     * generated for a different set of installed packages.
+     */
+    private static void removeStale(final File cfile, final String prefix) {
+	File[] files = cfile.getParentFile().listFiles((dir, name) ->
+		name.startsWith(prefix) && !name.endsWith(".tmp"));
+	if (files == null) {
+	    return;
+	}
+	for (File f : files) {
+	    if (!f.equals(cfile)) {
+		try {
+		    Files.deleteIfExists(f.toPath());
+		} catch (IOException ioe) { }
+	    }
+	}
+    }
+
+    private static File cacheDir() {
+	File dir = new File(System.getProperty("user.home"),
+			".cache/illuminate");
+	if (dir.isDirectory() || dir.mkdirs()) {
+	    return dir;
+	}
+	return new File(System.getProperty("java.io.tmpdir"));
+    }
+
+    /*
+     * The key is a digest of the image root, its variants and facets,
+     * and every installed package version, so any change invalidates
+     * the cache.
+     */
+    private static String cacheKey(final String altroot,
+			final IPSCatalog catalog, final IPSVariants variants) {
+	StringBuilder sb = new StringBuilder(altroot).append('\n')
+	    .append(variants);
+	for (String name : catalog.getPackageNames()) {
+	    IPSCatalog.Entry entry = catalog.getEntry(name);
+	    sb.append(entry.getPublisher()).append('/').append(name)
+		.append('@').append(entry.getVersion()).append('\n');
+	}
+	return digest(sb.toString(), 16);
+    }
+
+    /*
+     * Return the first len bytes of the SHA-256 digest of s, in hex.
+     */
+    private static String digest(final String s, final int len) {
+	try {
+	    byte[] digest = MessageDigest.getInstance("SHA-256")
+		.digest(s.getBytes(StandardCharsets.UTF_8));
+	    StringBuilder hex = new StringBuilder();
+	    for (int i = 0; i < len; i++) {
+		hex.append(String.format("%02x", digest[i]));
+	    }
+	    return hex.toString();
+	} catch (NoSuchAlgorithmException nsae) {
+	    return Integer.toHexString(s.hashCode());
+	}
+    }
+
+    private static Map<String, List<Item>> parseManifests(
+			final String altroot, final IPSCatalog catalog,
+			final IPSVariants variants) {
+	List<Item> items = catalog.getPackageNames().parallelStream()
+	    .flatMap(name -> readManifest(altroot, name,
+				catalog.getEntry(name), variants).stream())
+	    .collect(Collectors.toList());
+	Map<String, List<Item>> merged = new TreeMap<>();
+	for (Item item : items) {
+	    List<Item> l = merged.computeIfAbsent(item.path,
+					k -> new ArrayList<>(1));
+	    // a package only needs to be listed once against a path
+	    if (!containsPackage(l, item.pkg)) {
+		l.add(item);
+	    }
+	}
+	return merged;
+    }
+
+    private static boolean containsPackage(final List<Item> items,
+					final String pkg) {
+	for (Item item : items) {
+	    if (item.pkg.equals(pkg)) {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    private static List<Item> readManifest(final String altroot,
+			final String name, final IPSCatalog.Entry entry,
+			final IPSVariants variants) {
+	File f = new File(altroot + PUBLISHER_DIR + "/"
+			+ entry.getPublisher() + "/pkg/" + encode(name) + "/"
+			+ encode(entry.getVersion()));
+	List<Item> items = new ArrayList<>();
+	try (BufferedReader in = Files.newBufferedReader(f.toPath())) {
+	    String s;
+	    while ((s = in.readLine()) != null) {
+		IPSAction action = IPSAction.parse(s);
+		Item item = (action == null || !variants.allows(action))
+		    ? null : toItem(action, name);
+		if (item != null) {
+		    items.add(item);
+		}
+	    }
+	} catch (IOException ioe) {
+	    // no manifest, so no files
+	}
+	return items;
+    }
+
+    /*
+     * Convert an action to the fields of a contents(4) entry.
+     */
+    private static Item toItem(final IPSAction action, final String pkg) {
+	if (action == null) {
+	    return null;
+	}
+	String path = action.getAttribute("path");
+	// the contents file can't represent spaces in names
+	if (path == null || path.indexOf(' ') >= 0) {
+	    return null;
+	}
+	path = "/" + path;
+	String type = action.getType();
+	StringBuilder sb = new StringBuilder(path);
+	if ("link".equals(type) || "hardlink".equals(type)) {
+	    sb.append('=').append(action.getAttribute("target"))
+		.append("link".equals(type) ? " s none" : " l none");
+	} else if ("dir".equals(type)) {
+	    sb.append(" d none ");
+	    appendOwnership(sb, action);
+	} else if ("file".equals(type)) {
+	    sb.append(action.getAttribute("preserve") == null
+		      ? " f none " : " e none ");
+	    appendOwnership(sb, action);
+	    String size = action.getAttribute("pkg.size");
+	    sb.append(' ').append(size == null ? "0" : size)
+		.append(" 0 ").append(modtime(action));
+	} else {
+	    return null;
+	}
+	return new Item(path, sb.toString(), pkg);
+    }
+
+    private static void appendOwnership(final StringBuilder sb,
+				final IPSAction action) {
+	sb.append(value(action, "mode", "0755")).append(' ')
+	    .append(value(action, "owner", "root")).append(' ')
+	    .append(value(action, "group", "bin"));
+    }
+
+    private static String value(final IPSAction action, final String name,
+				final String defvalue) {
+	String s = action.getAttribute(name);
+	return s == null ? defvalue : s;
+    }
+
+    /*
+     * Only files delivered with an explicit timestamp have a known
+     * modification time, otherwise return 0.
+     */
+    private static long modtime(final IPSAction action) {
+	String ts = action.getAttribute("timestamp");
+	if (ts != null) {
+	    try {
+		return LocalDateTime.parse(ts, TIMESTAMP)
+		    .toEpochSecond(ZoneOffset.UTC);
+	    } catch (DateTimeParseException dtpe) {
+		// fall through
+	    }
+	}
+	return 0;
+    }
+
+    /*
+     * Package stems and versions are stored url encoded, with nothing
+     * but alphanumerics and _.-~ left alone.
+     */
+    private static String encode(final String s) {
+	StringBuilder sb = new StringBuilder();
+	for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+	    char c = (char) (b & 0xff);
+	    if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+		    || (c >= '0' && c <= '9') || "_.-~".indexOf(c) >= 0) {
+		sb.append(c);
+	    } else {
+		sb.append(String.format("%%%02X", b & 0xff));
+	    }
+	}
+	return sb.toString();
+    }
+
+    /*
+     * Write the entries, already sorted by path, to a temporary file
+     * and rename it into place so readers never see a partial file.
+     */
+    private static void write(final File cfile,
+			final Map<String, List<Item>> merged)
+	    throws IOException {
+	File tmp = File.createTempFile(CACHE_PREFIX, ".tmp",
+				cfile.getParentFile());
+	try (BufferedWriter out = Files.newBufferedWriter(tmp.toPath())) {
+	    for (List<Item> items : merged.values()) {
+		out.write(items.get(0).details);
+		for (Item item : items) {
+		    out.write(' ');
+		    out.write(item.pkg);
+		}
+		out.write('\n');
+	    }
+	} catch (IOException ioe) {
+	    Files.deleteIfExists(tmp.toPath());
+	    throw ioe;
+	}
+	Files.move(tmp.toPath(), cfile.toPath(),
+		StandardCopyOption.REPLACE_EXISTING,
+		StandardCopyOption.ATOMIC_MOVE);
+    }
+}
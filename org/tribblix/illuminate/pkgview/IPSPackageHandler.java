@@ -0,0 +1,189 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate.pkgview;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * IPSPackageHandler - a PackageHandler for an image managed by IPS.
+ *
+ * <p>Package information comes from the installed catalog under
+ * /var/pkg rather than from /var/sadm, and is presented in the same
+ * form the SVR4 files would be, so that the rest of the package view
+ * doesn't need to know which packaging system is in use.
+ *
+ * @author Peter Tribble
+ * @version 1.2
+ */
+public class IPSPackageHandler extends PackageHandler {
+
+    /*
+     * The catalog is read by the event thread as it displays packages,
+     * so has its own lock rather than waiting behind the contents file.
+     * On a refresh, the new catalog is read before it replaces the old.
+     */
+    private final Object catalogLock = new Object();
+    private volatile IPSCatalog catalog;
+    private File contentsFile;
+
+    /**
+     * Create a new IPSPackageHandler, at the given root.
+     *
+     * @param nroot an alternate root directory for this OS image
+     */
+    public IPSPackageHandler(final String nroot) {
+	super(nroot);
+    }
+
+    /**
+     * Return whether the image at the given root is managed by IPS.
+     *
+     * @param altroot the root directory of the OS image
+     *
+     * @return true if the image has an installed IPS catalog
+     */
+    public static boolean isIPS(final String altroot) {
+	return IPSCatalog.exists(altroot);
+    }
+
+    /**
+     * Return whether the installed catalog for this OS image could be
+     * read. If not, the package lists will be empty.
+     *
+     * @return true if the installed catalog is valid
+     */
+    public boolean hasValidCatalog() {
+	return getIPSCatalog().isValid();
+    }
+
+    /**
+     * Return the installed catalog for this OS image.
+     *
+     * @return the IPSCatalog for this OS image
+     */
+    public IPSCatalog getIPSCatalog() {
+	IPSCatalog c = catalog;
+	if (c == null) {
+	    synchronized (catalogLock) {
+		c = catalog;
+		if (c == null) {
+		    c = new IPSCatalog(getRoot());
+		    catalog = c;
+		}
+	    }
+	}
+	return c;
+    }
+
+    @Override
+    protected void reload() {
+	IPSCatalog c = new IPSCatalog(getRoot());
+	synchronized (catalogLock) {
+	    catalog = c;
+	}
+	synchronized (this) {
+	    contentsFile = null;
+	}
+    }
+
+    @Override
+    protected File getStateFile() {
+	return IPSCatalog.getCatalogFile(getRoot());
+    }
+
+    /*
+     * There's no contents file, so generate one from the manifests.
+     */
+    @Override
+    protected synchronized File getContentsFile() {
+	if (contentsFile == null) {
+	    contentsFile = IPSContents.getContentsFile(this);
+	}
+	return contentsFile;
+    }
+
+    @Override
+    protected Set<String> listPackageNames() {
+	return getIPSCatalog().getPackageNames();
+    }
+
+    @Override
+    protected Set<String> listOverlayNames() {
+	return Collections.emptySet();
+    }
+
+    @Override
+    protected boolean isPkgInstalled(final String name) {
+	return getIPSCatalog().getEntry(name) != null;
+    }
+
+    /*
+     * Present the required packages as if they were P lines in an SVR4
+     * depend file.
+     */
+    @Override
+    protected List<String> getPkgDepend(final String name) {
+	IPSCatalog.Entry entry = getIPSCatalog().getEntry(name);
+	if (entry == null) {
+	    return Collections.emptyList();
+	}
+	List<String> lines = new ArrayList<>();
+	for (String dep : entry.getDepends()) {
+	    lines.add("P " + dep);
+	}
+	return lines;
+    }
+
+    /*
+     * Synthesize a pkginfo file from the catalog metadata.
+     */
+    @Override
+    protected String getPkgInfo(final String name) {
+	IPSCatalog.Entry entry = getIPSCatalog().getEntry(name);
+	if (entry == null) {
+	    return "";
+	}
+	StringBuilder sb = new StringBuilder(256);
+	sb.append("PKG=").append(name).append('\n');
+	// strip the timestamp from the version
+	String version = entry.getVersion();
+	int i = version.indexOf(':');
+	sb.append("VERSION=").append(i < 0 ? version : version.substring(0, i))
+	    .append('\n');
+	sb.append("PUBLISHER=").append(entry.getPublisher()).append('\n');
+	appendItem(sb, "NAME", entry.getSummary());
+	appendItem(sb, "DESC", entry.getDescription());
+	appendItem(sb, "CLASSIFICATION", entry.getClassification());
+	return sb.toString();
+    }
+
+    private static void appendItem(final StringBuilder sb, final String key,
+				final String value) {
+	if (value != null) {
+	    sb.append(key).append('=').append(value.replace('\n', ' '))
+		.append('\n');
+	}
+    }
+}
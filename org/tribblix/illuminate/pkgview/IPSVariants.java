@@ -0,0 +1,196 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate.pkgview;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.TreeMap;
+import org.tribblix.illuminate.helpers.RunCommand;
+
+/**
+ * IPSVariants - the variants and facets of an IPS image, which decide
+ * which of the actions in a manifest are actually installed.
+ *
+ * <p>They're read from the image configuration in /var/pkg/pkg5.image,
+ * or from pkg(1) if that can't be read. An action is installed if each
+ * of its variant tags matches the image, and, if it has any facet tags,
+ * at least one of those facets is enabled. Facets are enabled unless set
+ * otherwise, and may be set by a pattern such as facet.locale.*, in
+ * which case the longest matching pattern applies.
+ *
+ * @author Peter Tribble
+ * @version 1.0
+ */
+public final class IPSVariants {
+
+    private static final String IMAGE_CONFIG = "/var/pkg/pkg5.image";
+    private static final String PKG = "/usr/bin/pkg";
+    private static final String VARIANT = "variant.";
+    private static final String FACET = "facet.";
+    private static final String DEBUG_VARIANT = "variant.debug.";
+
+    private final Map<String, String> variants = new TreeMap<>();
+    private final Map<String, Boolean> facets = new TreeMap<>();
+
+    /**
+     * Read the variants and facets of the image at the given root.
+     *
+     * @param altroot the root of the image
+     */
+    public IPSVariants(final String altroot) {
+	if (!readConfig(new File(altroot + IMAGE_CONFIG))) {
+	    runPkg(altroot, "variant");
+	    runPkg(altroot, "facet");
+	}
+    }
+
+    /*
+     * The configuration is in ini format, but the variant and facet
+     * names carry their own prefix, so the sections can be ignored.
+     */
+    private boolean readConfig(final File f) {
+	try (BufferedReader in = Files.newBufferedReader(f.toPath())) {
+	    String s;
+	    while ((s = in.readLine()) != null) {
+		int i = s.indexOf('=');
+		if (i > 0) {
+		    add(s.substring(0, i).trim(), s.substring(i + 1).trim());
+		}
+	    }
+	    return true;
+	} catch (IOException ioe) {
+	    return false;
+	}
+    }
+
+    /*
+     * pkg variant -H and pkg facet -H print a name and value per line.
+     */
+    private void runPkg(final String altroot, final String subcmd) {
+	if (!new File(PKG).exists()) {
+	    return;
+	}
+	String[] cmd = {PKG, "-R", altroot, subcmd, "-H"};
+	for (String line : new RunCommand(cmd).getOut().split("\n")) {
+	    String[] ds = line.trim().split("\\s+");
+	    if (ds.length >= 2) {
+		add(ds[0], ds[1]);
+	    }
+	}
+    }
+
+    private void add(final String name, final String value) {
+	if (name.startsWith(VARIANT)) {
+	    variants.put(name, value);
+	} else if (name.startsWith(FACET)) {
+	    facets.put(name, Boolean.valueOf(value));
+	}
+    }
+
+    /**
+     * Return whether the given action is installed in this image.
+     *
+     * @param action the action to check
+     *
+     * @return true if the action's variants and facets allow it
+     */
+    public boolean allows(final IPSAction action) {
+	boolean hasFacet = false;
+	boolean facetAllowed = false;
+	for (String name : action.getAttributeNames()) {
+	    if (name.startsWith(VARIANT)) {
+		if (!variantAllows(name, action.getAttributes(name))) {
+		    return false;
+		}
+	    } else if (name.startsWith(FACET)) {
+		hasFacet = true;
+		if (!facetAllowed
+			&& "true".equalsIgnoreCase(action.getAttribute(name))) {
+		    facetAllowed = isFacetEnabled(name);
+		}
+	    }
+	}
+	return !hasFacet || facetAllowed;
+    }
+
+    /*
+     * A variant the image doesn't set is allowed, except that debug
+     * variants default to false.
+     */
+    private boolean variantAllows(final String name,
+				final Iterable<String> values) {
+	String value = variants.get(name);
+	if (value == null) {
+	    if (!name.startsWith(DEBUG_VARIANT)) {
+		return true;
+	    }
+	    value = "false";
+	}
+	for (String v : values) {
+	    if (value.equalsIgnoreCase(v)) {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    private boolean isFacetEnabled(final String name) {
+	Boolean b = facets.get(name);
+	if (b != null) {
+	    return b;
+	}
+	String best = null;
+	for (Map.Entry<String, Boolean> entry : facets.entrySet()) {
+	    String pattern = entry.getKey();
+	    if (pattern.endsWith("*")
+		    && name.startsWith(pattern.substring(0,
+						pattern.length() - 1))
+		    && (best == null || pattern.length() > best.length())) {
+		best = pattern;
+		b = entry.getValue();
+	    }
+	}
+	return b == null || b;
+    }
+
+    /**
+     * Return the variants and facets as text, one per line, so that a
+     * change to them can be detected.
+     *
+     * @return the variants and facets of the image
+     */
+    @Override
+    public String toString() {
+	StringBuilder sb = new StringBuilder();
+	for (Map.Entry<String, String> entry : variants.entrySet()) {
+	    sb.append(entry.getKey()).append('=').append(entry.getValue())
+		.append('\n');
+	}
+	for (Map.Entry<String, Boolean> entry : facets.entrySet()) {
+	    sb.append(entry.getKey()).append('=').append(entry.getValue())
+		.append('\n');
+	}
+	return sb.toString();
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate.pkgview;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * InfoPageCache - holds the rendered information pages for recently
+ * viewed packages and overlays, so that returning to one is instant.
+ *
+ * <p>The pages depend on the package data, so are only valid for the
+ * snapshot they were rendered from. When a new snapshot is published,
+ * for example once reverse dependencies are available, the whole cache
+ * is discarded.
+ *
+ * <p>Pages may also be rendered in the background ahead of being
+ * shown, such as for the neighbours of the current selection. The cache
+ * may be used from any thread.
+ *
+ * @author Peter Tribble
+ * @version 1.0
+ */
+public final class InfoPageCache {
+
+    /*
+     * The number of pages to keep.
+     */
+    private static final int CAPACITY = 128;
+
+    private final ZapConfig zc;
+    private PackageSnapshot cachedSnap;
+    private final Map<Object, InfoPage> pages =
+	new LinkedHashMap<Object, InfoPage>(CAPACITY, 0.75f, true) {
+	    private static final long serialVersionUID = 1L;
+
+	    @Override
+	    protected boolean removeEldestEntry(
+			final Map.Entry<Object, InfoPage> eldest) {
+		return size() > CAPACITY;
+	    }
+	};
+
+    /**
+     * Create an empty InfoPageCache.
+     *
+     * @param zc the ZapConfig used to show update status
+     */
+    public InfoPageCache(final ZapConfig zc) {
+	this.zc = zc;
+    }
+
+    /**
+     * Get the rendered page for a package, rendering it if necessary.
+     *
+     * @param snap the snapshot of package data to render from
+     * @param pkg the package of interest
+     *
+     * @return the page for the given package
+     */
+    public InfoPage getPage(final PackageSnapshot snap,
+			final SVR4Package pkg) {
+	InfoPage page = lookup(snap, pkg);
+	if (page == null) {
+	    page = render(snap, pkg);
+	    store(snap, pkg, page);
+	}
+	return page;
+    }
+
+    /**
+     * Get the rendered page for an overlay, rendering it if necessary.
+     *
+     * @param snap the snapshot of package data to render from
+     * @param ovl the overlay of interest
+     *
+     * @return the page for the given overlay
+     */
+    public InfoPage getPage(final PackageSnapshot snap, final Overlay ovl) {
+	InfoPage page = lookup(snap, ovl);
+	if (page == null) {
+	    page = render(snap, ovl);
+	    store(snap, ovl, page);
+	}
+	return page;
+    }
+
+    /**
+     * Render pages for the given packages in the background, if they
+     * aren't already cached.
+     *
+     * @param snap the snapshot of package data to render from
+     * @param pkgs the packages to render
+     */
+    public void prerender(final PackageSnapshot snap,
+			final Collection<SVR4Package> pkgs) {
+	for (final SVR4Package pkg : pkgs) {
+	    if (lookup(snap, pkg) == null) {
+		CompletableFuture.runAsync(() -> getPage(snap, pkg));
+	    }
+	}
+    }
+
+    private synchronized InfoPage lookup(final PackageSnapshot snap,
+					final Object key) {
+	if (snap != cachedSnap) {
+	    pages.clear();
+	    cachedSnap = snap;
+	}
+	return pages.get(key);
+    }
+
+    private synchronized void store(final PackageSnapshot snap,
+				final Object key, final InfoPage page) {
+	// a page rendered from an old snapshot is of no further use
+	if (snap == cachedSnap) {
+	    pages.put(key, page);
+	}
+    }
+
+    private InfoPage render(final PackageSnapshot snap,
+			final SVR4Package pkg) {
+	String info = "Not installed";
+	String depend = "";
+	String revdep = "";
+	if (pkg.isInstalled()) {
+	    info = PkgUtils.infoTable(pkg, zc);
+	    depend = PkgUtils.dependencyTable(pkg);
+	    revdep = PkgUtils.revDeps(snap.getDependantSet(pkg.getName()));
+	}
+	String overlay = PkgUtils.overlayMembership(pkg,
+						snap.getOverlayList());
+	String fileHeader = null;
+	ContentsPackage cpp = null;
+	ContentsParser cp = snap.getContentsParser();
+	if (cp != null) {
+	    cpp = cp.getPackage(pkg.getName());
+	    fileHeader = PkgUtils.detailTable(cpp);
+	    if (cpp != null) {
+		// sort the file list now, so it's ready to show
+		cpp.getSortedDetails();
+	    }
+	}
+	return new InfoPage(info, depend, revdep, overlay, fileHeader, cpp);
+    }
+
+    private InfoPage render(final PackageSnapshot snap, final Overlay ovl) {
+	return new InfoPage(PkgUtils.infoTable(ovl),
+		PkgUtils.dependencyTable(ovl),
+		PkgUtils.ovlDeps(snap.getOverlayList().containingOverlays(ovl)),
+		PkgUtils.overlayMembers(ovl), null, null);
+    }
+
+    /**
+     * The rendered text of the tabs describing a package or overlay.
+     */
+    public static final class InfoPage {
+	private final String info;
+	private final String depend;
+	private final String revdep;
+	private final String overlay;
+	private final String fileHeader;
+	private final ContentsPackage cpp;
+
+	InfoPage(final String info, final String depend, final String revdep,
+		final String overlay, final String fileHeader,
+		final ContentsPackage cpp) {
+	    this.info = info;
+	    this.depend = depend;
+	    this.revdep = revdep;
+	    this.overlay = overlay;
+	    this.fileHeader = fileHeader;
+	    this.cpp = cpp;
+	}
+
+	/**
+	 * Return the general information.
+	 *
+	 * @return the html for the information tab
+	 */
+	public String getInfo() {
+	    return info;
+	}
+
+	/**
+	 * Return the dependencies.
+	 *
+	 * @return the html for the dependencies tab
+	 */
+	public String getDepend() {
+	    return depend;
+	}
+
+	/**
+	 * Return the reverse dependencies.
+	 *
+	 * @return the html for the reverse dependencies tab
+	 */
+	public String getRevDepend() {
+	    return revdep;
+	}
+
+	/**
+	 * Return the overlays, for a package, or the members, for an
+	 * overlay.
+	 *
+	 * @return the html for the overlays tab
+	 */
+	public String getOverlay() {
+	    return overlay;
+	}
+
+	/**
+	 * Return the summary shown above the file list.
+	 *
+	 * @return the html for the file list header, or null if the
+	 * contents file hasn't been read
+	 */
+	public String getFileHeader() {
+	    return fileHeader;
+	}
+
+	/**
+	 * Return the package's entry in the contents file.
+	 *
+	 * @return the ContentsPackage, or null if there isn't one
+	 */
+	public ContentsPackage getContentsPackage() {
+	    return cpp;
+	}
+    }
+}
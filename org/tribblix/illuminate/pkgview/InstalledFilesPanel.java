@@ -21,11 +21,19 @@
 package org.tribblix.illuminate.pkgview;
 
 import java.awt.BorderLayout;
+import java.awt.CardLayout;
 import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import javax.swing.AbstractListModel;
+import javax.swing.JList;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JSplitPane;
-import javax.swing.JTree;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingWorker;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
 import javax.swing.event.TreeSelectionEvent;
 import javax.swing.event.TreeSelectionListener;
 import javax.swing.tree.DefaultMutableTreeNode;
@@ -35,8 +43,12 @@ import javax.swing.tree.DefaultMutableTreeNode;
  * information about the software package(s) associated with that file
  * to appear in an area to the right of the tree.
  *
+ * <p>Once the contents file has been read, the packaged paths can be
+ * filtered by name, in which case a list of matching paths replaces the
+ * tree.
+ *
  * @author Peter Tribble
- * @version 2.0
+ * @version 2.1
  */
 public final class InstalledFilesPanel extends JPanel {
 
@@ -46,13 +58,33 @@ public final class InstalledFilesPanel extends JPanel {
      * A panel to show the package information.
      */
     private final PackageInformationPanel pip;
+    /**
+     * The tree of files.
+     */
+    private final ContentsFileTree cft;
+    private final transient PackageHandler pkghdl;
+    /**
+     * The field to filter the paths with.
+     */
+    private final FilterField filterField;
+    /**
+     * Switches between the tree and the filtered list.
+     */
+    private final CardLayout cards;
+    private final JPanel jpcards;
+    /**
+     * The list of paths matching the filter.
+     */
+    private final JList<String> jl;
+    private final MatchListModel matchModel;
 
     /**
      * Create a new InstalledFilesPanel.
      *
-     * @param pkghdl a PackageHandler for this OS image
+     * @param phdl a PackageHandler for this OS image
      */
-    public InstalledFilesPanel(final PackageHandler pkghdl) {
+    public InstalledFilesPanel(final PackageHandler phdl) {
+	pkghdl = phdl;
 	setLayout(new BorderLayout());
 
 	JPanel jptree = new JPanel(new BorderLayout());
@@ -64,7 +96,7 @@ public final class InstalledFilesPanel extends JPanel {
 	psplit.setDividerLocation(180);
 	add(psplit);
 
-	final JTree cft = new ContentsFileTree(pkghdl);
+	cft = new ContentsFileTree(pkghdl);
 	cft.addTreeSelectionListener(new TreeSelectionListener() {
 	    @Override
 	    public void valueChanged(final TreeSelectionEvent e) {
@@ -77,7 +109,43 @@ public final class InstalledFilesPanel extends JPanel {
 	    }
 	});
 
-	jptree.add(new JScrollPane(cft));
+	matchModel = new MatchListModel();
+	jl = new JList<>(matchModel);
+	jl.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+	jl.setFixedCellHeight(jl.getFontMetrics(jl.getFont()).getHeight() + 2);
+	jl.addListSelectionListener(new ListSelectionListener() {
+	    @Override
+	    public void valueChanged(final ListSelectionEvent e) {
+		if (!e.getValueIsAdjusting() && jl.getSelectedValue() != null) {
+		    pip.showFile(jl.getSelectedValue());
+		}
+	    }
+	});
+
+	filterField = new FilterField(
+		PkgResources.getString("PKG.FILTER.TIP"),
+		new FilterField.FilterListener() {
+	    @Override
+	    public void filterChanged(final int[] matches) {
+		showMatches(matches);
+	    }
+	});
+	cards = new CardLayout();
+	jpcards = new JPanel(cards);
+	jpcards.add(new JScrollPane(cft), "tree");
+	jpcards.add(new JScrollPane(jl), "list");
+	jptree.add(filterField, BorderLayout.PAGE_START);
+	jptree.add(jpcards);
+    }
+
+    void showMatches(final int[] matches) {
+	if (matches == null) {
+	    cards.show(jpcards, "tree");
+	} else {
+	    jl.clearSelection();
+	    matchModel.setMatches(matches);
+	    cards.show(jpcards, "list");
+	}
     }
 
     void showFile(final File f) {
@@ -89,5 +157,80 @@ public final class InstalledFilesPanel extends JPanel {
      */
     public void showDetailedView() {
 	pip.showDetailedView();
+	cft.setDirectoryRollup(pkghdl.getDirectoryRollup());
+	cft.setContentsParser(pkghdl.getContentsParser());
+	new IndexWorker().execute();
+    }
+
+    /*
+     * Sort and index all the packaged paths in the background.
+     */
+    class IndexWorker extends SwingWorker<String[], Object> {
+	private SubstringIndex sindex;
+	private String longest = "";
+
+	@Override
+	public String[] doInBackground() {
+	    String[] paths = pkghdl.getContentsParser().getPaths()
+		.toArray(new String[0]);
+	    Arrays.sort(paths);
+	    for (String path : paths) {
+		if (path.length() > longest.length()) {
+		    longest = path;
+		}
+	    }
+	    sindex = new SubstringIndex(paths);
+	    return paths;
+	}
+
+	@Override
+	protected void done() {
+	    try {
+		// a fixed size means only the visible cells are rendered
+		jl.setFixedCellWidth(jl.getFontMetrics(jl.getFont())
+				.stringWidth(longest) + 16);
+		matchModel.setPaths(get());
+		filterField.setIndex(sindex);
+	    } catch (InterruptedException | ExecutionException e) { }
+	}
+    }
+
+    /*
+     * A list model presenting the paths matching the filter, without
+     * copying them.
+     */
+    static final class MatchListModel extends AbstractListModel<String> {
+
+	private static final long serialVersionUID = 1L;
+
+	private String[] paths = new String[0];
+	private int[] matches = new int[0];
+
+	void setPaths(final String[] newpaths) {
+	    paths = newpaths;
+	    setMatches(new int[0]);
+	}
+
+	void setMatches(final int[] newmatches) {
+	    int oldsize = matches.length;
+	    matches = new int[0];
+	    if (oldsize > 0) {
+		fireIntervalRemoved(this, 0, oldsize - 1);
+	    }
+	    matches = newmatches;
+	    if (matches.length > 0) {
+		fireIntervalAdded(this, 0, matches.length - 1);
+	    }
+	}
+
+	@Override
+	public int getSize() {
+	    return matches.length;
+	}
+
+	@Override
+	public String getElementAt(final int i) {
+	    return paths[matches[i]];
+	}
     }
 }
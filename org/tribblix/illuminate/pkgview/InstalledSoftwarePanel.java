@@ -20,28 +20,39 @@
 
 package org.tribblix.illuminate.pkgview;
 
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.concurrent.ExecutionException;
 import javax.swing.JTabbedPane;
 import javax.swing.SwingWorker;
+import javax.swing.Timer;
 
 /**
  * Generates a view of the software installed on a system. The display
- * is broken into three tabs, which show a list of installed packages,
- * a tree view based on overlays, and (optionally) a view
- * based on the files in the filesystem.
+ * is broken into tabs, which show a list of installed packages,
+ * a tree view based on overlays, a view based on the files in the
+ * filesystem, and a query view over the contents file.
+ *
+ * <p>The packaging data is checked periodically, and if packages have
+ * been installed or removed it is reread in the background and the
+ * views rebuilt once the new data is ready.
  *
  * @author Peter Tribble
- * @version 2.0
+ * @version 2.1
  */
-public final class InstalledSoftwarePanel extends JTabbedPane {
+public final class InstalledSoftwarePanel extends JTabbedPane
+	implements ActionListener {
 
     private static final long serialVersionUID = 1L;
 
-    transient PackageHandler pkghdl;
-
     /**
-     * The list of packages.
+     * How often, in seconds, to check whether the packaging data has
+     * changed.
      */
-    PkgList plist;
+    private static final int DEFAULT_INTERVAL = 60;
+
+    transient PackageHandler pkghdl;
+
     /**
      * A panel displaying installed packages.
      */
@@ -54,6 +65,16 @@ public final class InstalledSoftwarePanel extends JTabbedPane {
      * A panel displaying installed files.
      */
     InstalledFilesPanel ifp;
+    /**
+     * A panel for querying the contents file.
+     */
+    ContentsQueryPanel cqp;
+
+    private final Timer timer;
+    /*
+     * Don't start a refresh while the previous one is still running.
+     */
+    private boolean refreshing;
 
     /**
      * Create a panel to display installed software.
@@ -61,8 +82,30 @@ public final class InstalledSoftwarePanel extends JTabbedPane {
      * @param altroot An alternate root directory for this OS image
      */
     public InstalledSoftwarePanel(final String altroot) {
-	pkghdl = new PackageHandler(altroot);
-	plist = pkghdl.getPkgList();
+	this(PackageHandler.getHandler(altroot));
+    }
+
+    /**
+     * Create a panel to display installed software.
+     *
+     * @param phdl A PackageHandler for this OS image
+     */
+    public InstalledSoftwarePanel(final PackageHandler phdl) {
+	pkghdl = phdl;
+	createViews();
+
+	new RevDependencyWorker().execute();
+	new ContentsWorker().execute();
+
+	timer = new Timer(Integer.getInteger("illuminate.pkg.refresh.interval",
+					DEFAULT_INTERVAL) * 1000, this);
+	timer.start();
+    }
+
+    /*
+     * Create the views from the current packaging data.
+     */
+    private void createViews() {
 	OverlayList ovlist = pkghdl.getOverlayList();
 
 	ipp = new PackagePanel(pkghdl);
@@ -76,8 +119,17 @@ public final class InstalledSoftwarePanel extends JTabbedPane {
 	ifp = new InstalledFilesPanel(pkghdl);
 	add(PkgResources.getString("PKG.FS"), ifp);
 
-	new RevDependencyWorker().execute();
-	new ContentsWorker().execute();
+	cqp = new ContentsQueryPanel(pkghdl);
+	add(PkgResources.getString("PKG.QUERY"), cqp);
+    }
+
+    @Override
+    public void actionPerformed(final ActionEvent e) {
+	if (refreshing || !isShowing() || !pkghdl.hasChanged()) {
+	    return;
+	}
+	refreshing = true;
+	new RefreshWorker().execute();
     }
 
     /*
@@ -89,14 +141,19 @@ public final class InstalledSoftwarePanel extends JTabbedPane {
 	@Override
 	public String doInBackground() {
 	    pkghdl.getContentsParser();
+	    pkghdl.getDirectoryRollup();
 	    return "done";
 	}
 
 	@Override
 	protected void done() {
-	    ipp.showDetailedView();
-	    ifp.showDetailedView();
-	    ovp.showDetailedView();
+	    /*
+	     * If the data was refreshed while we were working, the refresh
+	     * will update the views.
+	     */
+	    if (pkghdl.getSnapshot().getDirectoryRollup() != null) {
+		showDetailedView();
+	    }
 	}
     }
 
@@ -107,14 +164,66 @@ public final class InstalledSoftwarePanel extends JTabbedPane {
     class RevDependencyWorker extends SwingWorker<String, Object> {
 	@Override
 	public String doInBackground() {
-	    plist.createRevDependencies();
+	    pkghdl.loadRevDependencies();
 	    return "done";
 	}
 
 	@Override
 	protected void done() {
-	    ipp.showRevDependencies();
-	    ovp.showRevDependencies();
+	    if (pkghdl.getSnapshot().hasRevDependencies()) {
+		showRevDependencies();
+	    }
+	}
+    }
+
+    private void showDetailedView() {
+	ipp.showDetailedView();
+	ifp.showDetailedView();
+	ovp.showDetailedView();
+	cqp.showDetailedView();
+    }
+
+    private void showRevDependencies() {
+	ipp.showRevDependencies();
+	ovp.showRevDependencies();
+    }
+
+    /*
+     * Reread the packaging data in the background. The existing views
+     * carry on showing the old data until the new data is complete,
+     * and are then replaced.
+     */
+    class RefreshWorker extends SwingWorker<PackageSnapshot, Object> {
+	@Override
+	public PackageSnapshot doInBackground() {
+	    return pkghdl.refresh();
+	}
+
+	@Override
+	protected void done() {
+	    refreshing = false;
+	    PackageSnapshot snap;
+	    try {
+		snap = get();
+	    } catch (InterruptedException | ExecutionException e) {
+		return;
+	    }
+	    int selected = getSelectedIndex();
+	    removeAll();
+	    createViews();
+	    if (selected >= 0 && selected < getTabCount()) {
+		setSelectedIndex(selected);
+	    }
+	    if (snap.hasRevDependencies()) {
+		showRevDependencies();
+	    } else {
+		new RevDependencyWorker().execute();
+	    }
+	    if (snap.getDirectoryRollup() != null) {
+		showDetailedView();
+	    } else {
+		new ContentsWorker().execute();
+	    }
 	}
     }
 }
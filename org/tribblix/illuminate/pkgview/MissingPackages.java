@@ -42,7 +42,7 @@ public final class MissingPackages {
 	if (args.length == 2 && "-R".equals(args[0])) {
 	    altroot = args[1];
 	}
-	PackageHandler pkghdl = new PackageHandler(altroot);
+	PackageHandler pkghdl = PackageHandler.getHandler(altroot);
 	PkgList plist = pkghdl.getPkgList();
 	/*
 	 * Go through installed packages and create a complete list
@@ -62,11 +62,11 @@ public final class MissingPackages {
 	/*
 	 * Map the reverse dependencies.
 	 */
-	plist.createRevDependencies();
+	PackageSnapshot snap = pkghdl.loadRevDependencies();
 
 	for (String s : deps) {
 	    System.out.print("missing package " + s);
-	    System.out.println(" needed by " + plist.getDependantSet(s));
+	    System.out.println(" needed by " + snap.getDependantSet(s));
 	}
     }
 }
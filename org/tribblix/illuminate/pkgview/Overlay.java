@@ -20,11 +20,13 @@
 
 package org.tribblix.illuminate.pkgview;
 
+import java.util.Collections;
 import java.util.Set;
 import java.util.TreeSet;
 
 /**
- * Describe a Tribblix overlay.
+ * Describe a Tribblix overlay. An Overlay is populated once, by the
+ * OverlayList that creates it, and not modified thereafter.
  *
  * @author Peter Tribble
  * @version 1.0
@@ -128,7 +130,7 @@ public final class Overlay implements Comparable<Overlay> {
      * @return A Set of the overlays required by this Overlay.
      */
     public Set<Overlay> getOverlays() {
-	return overlays;
+	return Collections.unmodifiableSet(overlays);
     }
 
     /**
@@ -137,7 +139,7 @@ public final class Overlay implements Comparable<Overlay> {
      * @return A Set of the services controlled by this Overlay.
      */
     public Set<String> getServices() {
-	return services;
+	return Collections.unmodifiableSet(services);
     }
 
     /**
@@ -208,7 +210,7 @@ public final class Overlay implements Comparable<Overlay> {
      * in this Overlay.
      */
     public Set<SVR4Package> getPackages() {
-	return packages;
+	return Collections.unmodifiableSet(packages);
     }
 
     /**
@@ -20,6 +20,7 @@
 
 package org.tribblix.illuminate.pkgview;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -30,7 +31,7 @@ import java.util.TreeSet;
  * OverlayList - shows available overlays in a JList.
  *
  * @author Peter Tribble
- * @version 1.0
+ * @version 1.1
  */
 public final class OverlayList {
 
@@ -38,6 +39,12 @@ public final class OverlayList {
 
     private final Set<Overlay> ovlist = new TreeSet<>();
     private final Map<String, Overlay> ovMap = new HashMap<>();
+    /*
+     * Reverse indexes, from the name of a package or overlay to the
+     * overlays containing it.
+     */
+    private final Map<String, Set<Overlay>> pkgParents = new HashMap<>();
+    private final Map<String, Set<Overlay>> ovlParents = new HashMap<>();
 
     /**
      * Create an overlay list.
@@ -45,10 +52,9 @@ public final class OverlayList {
      * <p>There should be a .ovl file and a .pkgs file for each overlay
      *
      * @param pkghdl a PackageHandler for this OS image
+     * @param plist the list of installed packages
      */
-    public OverlayList(final PackageHandler pkghdl) {
-	PkgList plist = pkghdl.getPkgList();
-
+    public OverlayList(final PackageHandler pkghdl, final PkgList plist) {
 	// first create a list of empty overlays
         for (String s : pkghdl.listOverlayNames()) {
 	    Overlay ovl = new Overlay(pkghdl, s);
@@ -62,6 +68,17 @@ public final class OverlayList {
 	for (Overlay ovl : ovlist) {
 	    ovl.populate(plist, this);
 	}
+
+	for (Overlay ovl : ovlist) {
+	    for (SVR4Package pkg : ovl.getPackages()) {
+		pkgParents.computeIfAbsent(pkg.getName(),
+					k -> new TreeSet<>()).add(ovl);
+	    }
+	    for (Overlay ov : ovl.getOverlays()) {
+		ovlParents.computeIfAbsent(ov.getName(),
+					k -> new TreeSet<>()).add(ovl);
+	    }
+	}
     }
 
     /**
@@ -79,7 +96,7 @@ public final class OverlayList {
      * @return a Set of the system's overlays
      */
     public Set<Overlay> getOverlays() {
-	return ovlist;
+	return Collections.unmodifiableSet(ovlist);
     }
 
     /**
@@ -102,13 +119,8 @@ public final class OverlayList {
      * @return the Set of overlays requiring the given overlay
      */
     public Set<Overlay> containingOverlays(final Overlay ovl) {
-	Set<Overlay> h = new TreeSet<>();
-	for (Overlay ov1 : ovlist) {
-	    if (ov1.containsOverlay(ovl)) {
-		h.add(ov1);
-	    }
-	}
-	return h;
+	return Collections.unmodifiableSet(ovlParents.getOrDefault(
+			ovl.getName(), Collections.emptySet()));
     }
 
     /**
@@ -119,13 +131,8 @@ public final class OverlayList {
      * @return the Set of overlays containing the given package
      */
     public Set<Overlay> containingOverlays(final SVR4Package pkg) {
-	Set<Overlay> h = new TreeSet<>();
-	for (Overlay ovl : ovlist) {
-	    if (ovl.containsPackage(pkg.getName())) {
-		h.add(ovl);
-	    }
-	}
-	return h;
+	return Collections.unmodifiableSet(pkgParents.getOrDefault(
+			pkg.getName(), Collections.emptySet()));
     }
 
     /**
@@ -27,13 +27,12 @@ import javax.swing.JSplitPane;
 import javax.swing.ToolTipManager;
 import javax.swing.event.TreeSelectionEvent;
 import javax.swing.event.TreeSelectionListener;
-import javax.swing.tree.DefaultMutableTreeNode;
 
 /**
- * A panel showing overlays.
+ * A panel showing overlays, which may be filtered by name or description.
  *
  * @author Peter Tribble
- * @version 2.0
+ * @version 2.1
  */
 public final class OverlayPanel extends JPanel {
 
@@ -62,6 +61,25 @@ public final class OverlayPanel extends JPanel {
 	tree = new OverlayTree(ovlist);
 	tree.expandRow(0);
 
+	/*
+	 * The filter matches the name or the description of the overlay,
+	 * indexed in the same order as the tree.
+	 */
+	String[] names = new String[ovlist.getOverlays().size()];
+	int i = 0;
+	for (Overlay ovl : ovlist.getOverlays()) {
+	    names[i++] = ovl.getName() + " " + ovl.getDescription();
+	}
+	FilterField filterField = new FilterField(
+		PkgResources.getString("PKG.FILTER.OVL.TIP"),
+		new FilterField.FilterListener() {
+	    @Override
+	    public void filterChanged(final int[] matches) {
+		tree.setShown(matches);
+	    }
+	});
+	filterField.setIndex(new SubstringIndex(names));
+
 	/*
 	 * Set a renderer to do tooltips and custom icons.
 	 * Show the installed status.
@@ -73,16 +91,11 @@ public final class OverlayPanel extends JPanel {
 	tree.addTreeSelectionListener(new TreeSelectionListener() {
 	    @Override
 	    public void valueChanged(final TreeSelectionEvent e) {
-		DefaultMutableTreeNode node = (DefaultMutableTreeNode)
-		    tree.getLastSelectedPathComponent();
-
-		if (node != null) {
-		    Object o = node.getUserObject();
-		    if (o instanceof SVR4Package) {
-			showPkg((SVR4Package) o);
-		    } else if (o instanceof Overlay) {
-			showOverlay((Overlay) o);
-		    }
+		Object o = tree.getLastSelectedPathComponent();
+		if (o instanceof SVR4Package) {
+		    showPkg((SVR4Package) o);
+		} else if (o instanceof Overlay) {
+		    showOverlay((Overlay) o);
 		}
 	    }
 	});
@@ -92,8 +105,11 @@ public final class OverlayPanel extends JPanel {
 	pip = new PackageInformationPanel(pkghdl);
 
 	// split pane to hold the lot
+	JPanel jptree = new JPanel(new BorderLayout());
+	jptree.add(filterField, BorderLayout.PAGE_START);
+	jptree.add(new JScrollPane(tree));
 	JSplitPane psplit = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT,
-		new JScrollPane(tree), pip);
+		jptree, pip);
 	psplit.setOneTouchExpandable(true);
 	psplit.setDividerLocation(180);
 	add(psplit);
@@ -38,7 +38,7 @@ public final class OverlaySizes {
 	if (args.length == 2 && "-R".equals(args[0])) {
 	    altroot = args[1];
 	}
-	PackageHandler pkghdl = new PackageHandler(altroot);
+	PackageHandler pkghdl = PackageHandler.getHandler(altroot);
 	ContentsParser cp = pkghdl.getContentsParser();
 	for (Overlay ovl : pkghdl.getOverlayList().getOverlays()) {
 	    ContentsPackage cc = cp.getOverlay(ovl);
@@ -20,20 +20,18 @@
 
 package org.tribblix.illuminate.pkgview;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
 import javax.swing.JTree;
-import javax.swing.tree.DefaultMutableTreeNode;
-import javax.swing.tree.DefaultTreeModel;
 
 /**
  * A tree structure representing the hierarchical structure of overlays
- * and packages.
+ * and packages. The overlays shown at the top level can be filtered.
+ *
+ * <p>The tree is backed by an OverlayTreeModel, whose nodes are the
+ * overlays and packages themselves, and which only works out the
+ * children of an overlay when it's expanded.
  *
  * @author Peter Tribble
- * @version 1.0
+ * @version 2.0
  */
 public final class OverlayTree extends JTree {
 
@@ -42,100 +40,48 @@ public final class OverlayTree extends JTree {
     /**
      * The backing TreeModel.
      */
-    private final DefaultTreeModel model;
-    private final transient Map<SVR4Package, NodeSet> pkgmap = new HashMap<>();
-    private final transient Map<Overlay, NodeSet> ovmap = new HashMap<>();
+    private final transient OverlayTreeModel model;
 
     /**
-     * Create a tree from an overlay list and add it to the parent node.
+     * Create a tree from an overlay list.
      *
      * @param ovlist A list of overlays
      */
     public OverlayTree(final OverlayList ovlist) {
-	DefaultMutableTreeNode topmenu = new DefaultMutableTreeNode("Overlays");
-	model = new DefaultTreeModel(topmenu);
+	model = new OverlayTreeModel("Overlays", ovlist);
 	setModel(model);
-	for (Overlay ovl : ovlist.getOverlays()) {
-	    DefaultMutableTreeNode mitem = new DefaultMutableTreeNode(ovl);
-	    topmenu.add(mitem);
-	    addMC(mitem, ovl);
-	}
     }
 
     /**
-     * Notification of a package change, propagated to the model.
+     * Show only some of the overlays at the top level of the tree.
+     *
+     * @param shown the indices, in overlay list order, of the overlays to
+     * show, or null to show them all
+     */
+    public void setShown(final int[] shown) {
+	model.setShown(shown);
+	expandRow(0);
+    }
+
+    /**
+     * Notification of a package change. The same package may be shown
+     * in many places, and its appearance depends only on the package,
+     * so all of them are redrawn.
      *
      * @param pkg the package that's changed
      */
     public void nodeChanged(final SVR4Package pkg) {
-	NodeSet ns = pkgmap.get(pkg);
-	if (ns != null) {
-	    for (DefaultMutableTreeNode node : ns.getNodes()) {
-		model.nodeChanged(node);
-	    }
-	}
+	repaint();
     }
 
     /**
-     * Notification of an overlay change, propagated to the model.
+     * Notification of an overlay change. The same overlay may be shown
+     * in many places, and its appearance depends only on the overlay,
+     * so all of them are redrawn.
      *
      * @param ovl the overlay that's changed
      */
     public void nodeChanged(final Overlay ovl) {
-	NodeSet ns = ovmap.get(ovl);
-	if (ns != null) {
-	    for (DefaultMutableTreeNode node : ns.getNodes()) {
-		model.nodeChanged(node);
-	    }
-	}
-    }
-
-    private void addMC(final DefaultMutableTreeNode node, final Overlay ovl) {
-	for (Overlay ov : ovl.getOverlays()) {
-	    node.add(addNode(ov));
-	}
-	for (SVR4Package pkg : ovl.getPackages()) {
-	    node.add(addNode(pkg));
-	}
-    }
-
-    private DefaultMutableTreeNode addNode(final Overlay ovl) {
-	DefaultMutableTreeNode mitem = new DefaultMutableTreeNode(ovl);
-	for (Overlay ov : ovl.getOverlays()) {
-	    mitem.add(addNode(ov));
-	}
-	for (SVR4Package pkg : ovl.getPackages()) {
-	    mitem.add(addNode(pkg));
-	}
-	NodeSet ns = ovmap.get(ovl);
-	if (ns == null) {
-	    ns = new NodeSet();
-	    ovmap.put(ovl, ns);
-	}
-	ns.add(mitem);
-	return mitem;
-    }
-
-    private DefaultMutableTreeNode addNode(final SVR4Package pkg) {
-	DefaultMutableTreeNode node = new DefaultMutableTreeNode(pkg);
-	NodeSet ns = pkgmap.get(pkg);
-	if (ns == null) {
-	    ns = new NodeSet();
-	    pkgmap.put(pkg, ns);
-	}
-	ns.add(node);
-	return node;
-    }
-
-    class NodeSet {
-	private final Set<DefaultMutableTreeNode> nodes = new HashSet<>();
-
-	public void add(final DefaultMutableTreeNode node) {
-	    nodes.add(node);
-	}
-
-	public Set<DefaultMutableTreeNode> getNodes() {
-	    return nodes;
-	}
+	repaint();
     }
 }
@@ -24,14 +24,13 @@ import java.awt.Component;
 import java.net.URL;
 import javax.swing.ImageIcon;
 import javax.swing.JTree;
-import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeCellRenderer;
 
 /**
  * Adds tooltips and custom icons to an overlay/package tree.
  *
  * @author Peter Tribble
- * @version 1.0
+ * @version 1.1
  */
 public final class OverlayTreeCellRenderer extends DefaultTreeCellRenderer {
 
@@ -65,7 +64,8 @@ public final class OverlayTreeCellRenderer extends DefaultTreeCellRenderer {
 	super.getTreeCellRendererComponent(tree, value, sel,
 					   expanded, leaf, row,
 					   hasFocus);
-	Object o = ((DefaultMutableTreeNode) value).getUserObject();
+	// the tree nodes are the packages and overlays themselves
+	Object o = value;
 	if (o instanceof SVR4Package) {
 	    /*
 	     * It would be nice if the description were more than the name.
@@ -0,0 +1,175 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate.pkgview;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.swing.event.EventListenerList;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+
+/**
+ * A TreeModel presenting overlays and the overlays and packages they
+ * contain.
+ *
+ * <p>The nodes of the tree are the Overlay and SVR4Package objects
+ * themselves, under a String root. An overlay required by several others
+ * appears in the tree under each of them, but its children are only
+ * worked out once, the first time any of those copies is expanded, and
+ * are shared between them. So the cost of the model is proportional to
+ * the number of overlays, however they're nested.
+ *
+ * @author Peter Tribble
+ * @version 1.0
+ */
+public final class OverlayTreeModel implements TreeModel {
+
+    private static final Object[] NO_CHILDREN = new Object[0];
+
+    private final String root;
+    /**
+     * The overlays at the top level, in overlay list order.
+     */
+    private final Overlay[] overlays;
+    /**
+     * The overlays currently shown at the top level.
+     */
+    private Overlay[] shown;
+    /*
+     * The children of each overlay expanded so far.
+     */
+    private final Map<Overlay, Object[]> children = new HashMap<>();
+    private final EventListenerList listeners = new EventListenerList();
+
+    /**
+     * Create a tree model showing all the overlays in an overlay list.
+     *
+     * @param root the object to show as the root of the tree
+     * @param ovlist A list of overlays
+     */
+    public OverlayTreeModel(final String root, final OverlayList ovlist) {
+	this.root = root;
+	overlays = ovlist.getOverlays().toArray(new Overlay[0]);
+	shown = overlays;
+    }
+
+    /**
+     * Show only some of the overlays at the top level of the tree.
+     *
+     * @param indices the indices, in overlay list order, of the overlays
+     * to show, or null to show them all
+     */
+    public void setShown(final int[] indices) {
+	if (indices == null) {
+	    shown = overlays;
+	} else {
+	    shown = new Overlay[indices.length];
+	    for (int i = 0; i < indices.length; i++) {
+		shown[i] = overlays[indices[i]];
+	    }
+	}
+	fireStructureChanged();
+    }
+
+    private Object[] getChildren(final Object parent) {
+	if (parent == root) {
+	    return shown;
+	}
+	if (parent instanceof Overlay) {
+	    Overlay ovl = (Overlay) parent;
+	    Object[] kids = children.get(ovl);
+	    if (kids == null) {
+		kids = new Object[ovl.getOverlays().size()
+				+ ovl.getPackages().size()];
+		int i = 0;
+		for (Overlay ov : ovl.getOverlays()) {
+		    kids[i++] = ov;
+		}
+		for (SVR4Package pkg : ovl.getPackages()) {
+		    kids[i++] = pkg;
+		}
+		children.put(ovl, kids);
+	    }
+	    return kids;
+	}
+	return NO_CHILDREN;
+    }
+
+    @Override
+    public Object getRoot() {
+	return root;
+    }
+
+    @Override
+    public Object getChild(final Object parent, final int index) {
+	return getChildren(parent)[index];
+    }
+
+    @Override
+    public int getChildCount(final Object parent) {
+	return getChildren(parent).length;
+    }
+
+    @Override
+    public boolean isLeaf(final Object node) {
+	return node instanceof SVR4Package;
+    }
+
+    @Override
+    public int getIndexOfChild(final Object parent, final Object child) {
+	if (parent == null || child == null) {
+	    return -1;
+	}
+	Object[] kids = getChildren(parent);
+	for (int i = 0; i < kids.length; i++) {
+	    if (kids[i] == child) {
+		return i;
+	    }
+	}
+	return -1;
+    }
+
+    @Override
+    public void valueForPathChanged(final TreePath path,
+				final Object newValue) {
+	// the tree isn't editable
+    }
+
+    @Override
+    public void addTreeModelListener(final TreeModelListener l) {
+	listeners.add(TreeModelListener.class, l);
+    }
+
+    @Override
+    public void removeTreeModelListener(final TreeModelListener l) {
+	listeners.remove(TreeModelListener.class, l);
+    }
+
+    private void fireStructureChanged() {
+	TreeModelEvent e = new TreeModelEvent(this, new Object[] {root});
+	for (TreeModelListener l
+		: listeners.getListeners(TreeModelListener.class)) {
+	    l.treeStructureChanged(e);
+	}
+    }
+}
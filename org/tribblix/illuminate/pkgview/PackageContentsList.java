@@ -0,0 +1,217 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate.pkgview;
+
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.util.concurrent.ExecutionException;
+import javax.swing.AbstractListModel;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.SwingWorker;
+
+/**
+ * A list of the entries in a package, with a field allowing the list to
+ * be filtered by path name as you type.
+ *
+ * <p>The list works directly on the package's sorted array of entries,
+ * and uses a fixed cell height so only the visible rows are ever laid
+ * out or rendered, however large the package. The names are indexed in
+ * the background and searched by a FilterField, as in the other views.
+ *
+ * @author Peter Tribble
+ * @version 1.1
+ */
+public final class PackageContentsList extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final ContentsFileDetail[] NO_ENTRIES =
+	new ContentsFileDetail[0];
+    private static final int[] NO_MATCHES = new int[0];
+
+    /**
+     * The field the filter is typed into.
+     */
+    private final FilterField filterField;
+    /**
+     * The model backing the list.
+     */
+    private final ContentsListModel model;
+    /**
+     * The list itself.
+     */
+    private final JList<ContentsFileDetail> jl;
+    /*
+     * The entries being shown, so that an index built for a package
+     * that is no longer shown can be discarded.
+     */
+    private transient ContentsFileDetail[] current = NO_ENTRIES;
+
+    /**
+     * Create an empty PackageContentsList.
+     */
+    public PackageContentsList() {
+	super(new BorderLayout());
+	model = new ContentsListModel();
+	jl = new JList<>(model);
+	jl.setFixedCellHeight(jl.getFontMetrics(jl.getFont()).getHeight() + 2);
+	jl.setCellRenderer(new DefaultListCellRenderer() {
+	    private static final long serialVersionUID = 1L;
+
+	    @Override
+	    public Component getListCellRendererComponent(final JList<?> list,
+			final Object value, final int index,
+			final boolean isSelected, final boolean cellHasFocus) {
+		return super.getListCellRendererComponent(list,
+			((ContentsFileDetail) value).getName(), index,
+			isSelected, cellHasFocus);
+	    }
+	});
+
+	filterField = new FilterField(
+		PkgResources.getString("PKG.FILTER.TIP"),
+		new FilterField.FilterListener() {
+	    @Override
+	    public void filterChanged(final int[] matches) {
+		model.setMatches(matches);
+	    }
+	});
+
+	add(filterField, BorderLayout.PAGE_START);
+	add(new JScrollPane(jl), BorderLayout.CENTER);
+    }
+
+    /**
+     * Show the entries in the given package, keeping the current filter.
+     *
+     * @param cpp the ContentsPackage to show, or null to clear the list
+     */
+    public void setPackage(final ContentsPackage cpp) {
+	current = (cpp == null) ? NO_ENTRIES : cpp.getSortedDetails();
+	/*
+	 * Until the new index is ready, show nothing if there's a filter
+	 * rather than entries that might not match it.
+	 */
+	model.setEntries(current, filterField.isFiltering() ? NO_MATCHES
+			: null);
+	new IndexWorker(current).execute();
+    }
+
+    /*
+     * Index the names of the entries in the background, and work out
+     * the widest so the list doesn't have to render every cell to find
+     * out how wide it needs to be.
+     */
+    class IndexWorker extends SwingWorker<SubstringIndex, Object> {
+	private final ContentsFileDetail[] entries;
+	private String longest = "";
+
+	IndexWorker(final ContentsFileDetail[] entries) {
+	    this.entries = entries;
+	}
+
+	@Override
+	public SubstringIndex doInBackground() {
+	    String[] names = new String[entries.length];
+	    for (int i = 0; i < entries.length; i++) {
+		names[i] = entries[i].getName();
+		if (names[i].length() > longest.length()) {
+		    longest = names[i];
+		}
+	    }
+	    return new SubstringIndex(names);
+	}
+
+	@Override
+	protected void done() {
+	    if (entries != current) {
+		return;
+	    }
+	    try {
+		jl.setFixedCellWidth(jl.getFontMetrics(jl.getFont())
+				.stringWidth(longest) + 16);
+		filterField.setIndex(get());
+	    } catch (InterruptedException | ExecutionException e) { }
+	}
+    }
+
+    /*
+     * A ListModel over the entries, holding the indices of those that
+     * match the current filter.
+     */
+    static final class ContentsListModel
+	    extends AbstractListModel<ContentsFileDetail> {
+
+	private static final long serialVersionUID = 1L;
+
+	private transient ContentsFileDetail[] entries = NO_ENTRIES;
+	private int[] matches;
+
+	void setEntries(final ContentsFileDetail[] nentries,
+			final int[] nmatches) {
+	    clear();
+	    entries = nentries;
+	    show(nmatches);
+	}
+
+	/*
+	 * The matches come from the FilterField, and are null if there's
+	 * no filter.
+	 */
+	void setMatches(final int[] nmatches) {
+	    clear();
+	    show(nmatches);
+	}
+
+	/*
+	 * The size has to be right at the point each event is fired, so
+	 * empty the list first and then fill it again.
+	 */
+	private void clear() {
+	    int oldsize = getSize();
+	    matches = NO_MATCHES;
+	    if (oldsize > 0) {
+		fireIntervalRemoved(this, 0, oldsize - 1);
+	    }
+	}
+
+	private void show(final int[] nmatches) {
+	    matches = nmatches;
+	    int size = getSize();
+	    if (size > 0) {
+		fireIntervalAdded(this, 0, size - 1);
+	    }
+	}
+
+	@Override
+	public int getSize() {
+	    return (matches == null) ? entries.length : matches.length;
+	}
+
+	@Override
+	public ContentsFileDetail getElementAt(final int index) {
+	    return entries[matches == null ? index : matches[index]];
+	}
+    }
+}
@@ -22,8 +22,15 @@ package org.tribblix.illuminate.pkgview;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import uk.co.petertribble.jumble.JumbleFile;
 
 /**
@@ -38,7 +45,7 @@ import uk.co.petertribble.jumble.JumbleFile;
  * from the filesystem, and shouldn't do so directly themselves.
  *
  * @author Peter Tribble
- * @version 1.0
+ * @version 1.2
  */
 public class PackageHandler {
 
@@ -48,6 +55,7 @@ public class PackageHandler {
     private static final String PKG_ROOT = "/var/sadm/pkg";
     private static final String OVL_ROOT = "/var/sadm/overlays";
     private static final String ZAP_ROOT = "/etc/zap";
+    private static final String CONTENTS_FILE = "/var/sadm/install/contents";
 
     private final String altroot;
 
@@ -61,11 +69,30 @@ public class PackageHandler {
     private final File zapdirf;
 
     /*
-     * These are our copies of the relevant data, created on demand.
+     * The current snapshot of the packaging data, created on demand.
+     * Readers just take the current value. The contents and reverse
+     * dependencies are built without holding any lock and then merged
+     * into whatever the current snapshot is by then.
      */
-    private PkgList pkglist;
-    private OverlayList ovlist;
-    private ContentsParser cp;
+    private final AtomicReference<PackageSnapshot> snapshot =
+	new AtomicReference<>();
+    /*
+     * The loads currently in progress. Only the first caller does the
+     * work, anyone else asking at the same time waits for its result.
+     */
+    private final AtomicReference<CompletableFuture<PackageSnapshot>>
+	contentsLoad = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<PackageSnapshot>>
+	rollupLoad = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<PackageSnapshot>>
+	revdepLoad = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<PackageSnapshot>>
+	refreshLoad = new AtomicReference<>();
+    /*
+     * The modification time of the state file when the current
+     * snapshot was started.
+     */
+    private volatile long stamp;
     private ZapConfig zc;
 
     /**
@@ -87,6 +114,20 @@ public class PackageHandler {
 	zapdirf = new File(altroot + ZAP_ROOT);
     }
 
+    /**
+     * Create a PackageHandler for the packaging system used by the OS
+     * image at the given root.
+     *
+     * @param nroot an alternate root directory for this OS image
+     *
+     * @return an IPSPackageHandler if the image is managed by IPS, else
+     * a PackageHandler
+     */
+    public static PackageHandler getHandler(final String nroot) {
+	return IPSPackageHandler.isIPS(nroot) ? new IPSPackageHandler(nroot)
+	    : new PackageHandler(nroot);
+    }
+
     /**
      * Get the root of this OS image. The intention is that most consumers
      * should not need to know this.
@@ -97,16 +138,40 @@ public class PackageHandler {
 	return altroot;
     }
 
+    /**
+     * Return the current snapshot of the packaging data for this OS image.
+     * The package and overlay lists are always present, the contents and
+     * reverse dependencies only once they've been asked for.
+     *
+     * @return the current PackageSnapshot for this OS image
+     */
+    public PackageSnapshot getSnapshot() {
+	PackageSnapshot snap = snapshot.get();
+	return (snap == null) ? createSnapshot() : snap;
+    }
+
+    private synchronized PackageSnapshot createSnapshot() {
+	PackageSnapshot snap = snapshot.get();
+	if (snap == null) {
+	    snap = newSnapshot();
+	    snapshot.set(snap);
+	}
+	return snap;
+    }
+
+    private PackageSnapshot newSnapshot() {
+	stamp = getStateFile().lastModified();
+	PkgList plist = new PkgList(this);
+	return new PackageSnapshot(plist, new OverlayList(this, plist));
+    }
+
     /**
      * Return the list of packages for this OS image.
      *
      * @return a PkgList containing the list of packages in this OS image
      */
-    public synchronized PkgList getPkgList() {
-	if (pkglist == null) {
-	    pkglist = new PkgList(this);
-	}
-	return pkglist;
+    public PkgList getPkgList() {
+	return getSnapshot().getPkgList();
     }
 
     /**
@@ -114,23 +179,189 @@ public class PackageHandler {
      *
      * @return an OverlayList containing the list of overlays in this OS image
      */
-    public synchronized OverlayList getOverlayList() {
-	if (ovlist == null) {
-	    ovlist = new OverlayList(this);
-	}
-	return ovlist;
+    public OverlayList getOverlayList() {
+	return getSnapshot().getOverlayList();
     }
 
     /**
-     * Return the ContentsParser for this OS image.
+     * Return the ContentsParser for this OS image, parsing the contents
+     * file if necessary.
      *
      * @return a ContentsParser for this OS image
      */
-    public synchronized ContentsParser getContentsParser() {
-	if (cp == null) {
-	    cp = new ContentsParser(this);
+    public ContentsParser getContentsParser() {
+	ContentsParser cp = getSnapshot().getContentsParser();
+	return (cp == null) ? loadContents().getContentsParser() : cp;
+    }
+
+    /**
+     * Return the DirectoryRollup for this OS image, parsing the contents
+     * file if necessary.
+     *
+     * @return a DirectoryRollup for this OS image
+     */
+    public DirectoryRollup getDirectoryRollup() {
+	DirectoryRollup rollup = getSnapshot().getDirectoryRollup();
+	return (rollup == null) ? loadRollup().getDirectoryRollup() : rollup;
+    }
+
+    /*
+     * Parse the contents file and publish a snapshot containing it. If
+     * the snapshot was refreshed in the meantime, ours is stale so
+     * isn't published, but is still returned to the caller.
+     */
+    private PackageSnapshot loadContents() {
+	PackageSnapshot snap = getSnapshot();
+	if (snap.getContentsParser() != null) {
+	    return snap;
+	}
+	return loadOnce(contentsLoad, () -> {
+	    PackageSnapshot base = getSnapshot();
+	    if (base.getContentsParser() != null) {
+		return base;
+	    }
+	    ContentsParser ncp = new ContentsParser(this);
+	    return publish(base, cur -> cur.getContentsParser() == null,
+			cur -> cur.withContents(ncp, null));
+	});
+    }
+
+    /*
+     * Build the directory rollup and publish a snapshot containing it.
+     */
+    private PackageSnapshot loadRollup() {
+	PackageSnapshot snap = loadContents();
+	if (snap.getDirectoryRollup() != null) {
+	    return snap;
+	}
+	return loadOnce(rollupLoad, () -> {
+	    PackageSnapshot base = loadContents();
+	    if (base.getDirectoryRollup() != null) {
+		return base;
+	    }
+	    ContentsParser ncp = base.getContentsParser();
+	    DirectoryRollup nrollup = new DirectoryRollup(ncp);
+	    return publish(base, cur -> cur.getDirectoryRollup() == null
+				&& cur.getContentsParser() == ncp,
+			cur -> cur.withContents(ncp, nrollup));
+	});
+    }
+
+    /**
+     * Generate the reverse dependencies for this OS image, if necessary,
+     * and return a snapshot containing them.
+     *
+     * @return a PackageSnapshot with reverse dependencies
+     */
+    public PackageSnapshot loadRevDependencies() {
+	PackageSnapshot snap = getSnapshot();
+	if (snap.hasRevDependencies()) {
+	    return snap;
+	}
+	return loadOnce(revdepLoad, () -> {
+	    PackageSnapshot base = getSnapshot();
+	    if (base.hasRevDependencies()) {
+		return base;
+	    }
+	    Map<String, Set<SVR4Package>> nrevdeps =
+		base.getPkgList().createRevDependencies();
+	    return publish(base, cur -> !cur.hasRevDependencies(),
+			cur -> cur.withRevDependencies(nrevdeps));
+	});
+    }
+
+    /**
+     * Reread the packaging data for this OS image. The new snapshot is
+     * built in full, including the contents and reverse dependencies if
+     * the current one has them, before it replaces the current one, so
+     * readers carry on using the old data until then.
+     *
+     * @return the new PackageSnapshot
+     */
+    public PackageSnapshot refresh() {
+	return loadOnce(refreshLoad, () -> {
+	    PackageSnapshot old = getSnapshot();
+	    reload();
+	    PackageSnapshot nsnap = newSnapshot();
+	    if (old.getContentsParser() != null) {
+		ContentsParser ncp = new ContentsParser(this);
+		nsnap = nsnap.withContents(ncp,
+			(old.getDirectoryRollup() == null) ? null
+			    : new DirectoryRollup(ncp));
+	    }
+	    if (old.hasRevDependencies()) {
+		nsnap = nsnap.withRevDependencies(
+			nsnap.getPkgList().createRevDependencies());
+	    }
+	    snapshot.set(nsnap);
+	    return nsnap;
+	});
+    }
+
+    /**
+     * Return whether the packaging data for this OS image has been
+     * modified since the current snapshot was read.
+     *
+     * @return true if the snapshot is out of date
+     */
+    public boolean hasChanged() {
+	return getStateFile().lastModified() != stamp;
+    }
+
+    /**
+     * Discard any cached data so that a refresh reads it afresh. Called
+     * by refresh() before the new snapshot is built.
+     */
+    protected void reload() {
+    }
+
+    /*
+     * Run the given load, unless the same load is already in progress,
+     * in which case wait for that one to finish and use its result.
+     */
+    private static PackageSnapshot loadOnce(
+		final AtomicReference<CompletableFuture<PackageSnapshot>> ref,
+		final Supplier<PackageSnapshot> loader) {
+	CompletableFuture<PackageSnapshot> f = new CompletableFuture<>();
+	CompletableFuture<PackageSnapshot> running =
+	    ref.compareAndExchange(null, f);
+	if (running != null) {
+	    try {
+		return running.join();
+	    } catch (CompletionException ce) {
+		if (ce.getCause() instanceof RuntimeException) {
+		    throw (RuntimeException) ce.getCause();
+		}
+		throw ce;
+	    }
 	}
-	return cp;
+	try {
+	    PackageSnapshot snap = loader.get();
+	    f.complete(snap);
+	    return snap;
+	} catch (RuntimeException | Error e) {
+	    f.completeExceptionally(e);
+	    throw e;
+	} finally {
+	    ref.set(null);
+	}
+    }
+
+    /*
+     * Add the newly loaded data to the current snapshot, as long as
+     * it's still built from the same package list as the one the data
+     * came from and doesn't already have it. Either way, the caller
+     * gets a snapshot with the data in.
+     */
+    private PackageSnapshot publish(final PackageSnapshot base,
+				final Predicate<PackageSnapshot> missing,
+				final UnaryOperator<PackageSnapshot> add) {
+	PkgList plist = base.getPkgList();
+	PackageSnapshot cur = snapshot.updateAndGet(c ->
+			(c.getPkgList() == plist && missing.test(c))
+			? add.apply(c) : c);
+	return (cur.getPkgList() == plist && !missing.test(cur))
+	    ? cur : add.apply(base);
     }
 
     /**
@@ -206,6 +437,26 @@ public class PackageHandler {
 	return JumbleFile.readAllLines(zapdirf, "repo.list");
     }
 
+    /**
+     * Return the file whose modification time tells us that the
+     * packaging data for this OS image has changed.
+     *
+     * @return a File that is updated when packages are installed or
+     * removed
+     */
+    protected File getStateFile() {
+	return new File(altroot + CONTENTS_FILE);
+    }
+
+    /**
+     * Return the contents file for this OS image.
+     *
+     * @return a File referring to the contents file
+     */
+    protected File getContentsFile() {
+	return new File(altroot + CONTENTS_FILE);
+    }
+
     /**
      * Returns whether the package of interest is installed.
      *
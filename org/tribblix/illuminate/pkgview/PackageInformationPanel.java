@@ -22,6 +22,7 @@ package org.tribblix.illuminate.pkgview;
 
 import java.awt.BorderLayout;
 import java.awt.Cursor;
+import java.util.Collection;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTabbedPane;
@@ -29,10 +30,11 @@ import uk.co.petertribble.jingle.JingleTextPane;
 
 /**
  * Show information about installed files or packages in a set of
- * tabbed panels.
+ * tabbed panels. Rendered pages are cached, and may be prepared in the
+ * background before they're asked for.
  *
  * @author Peter Tribble
- * @version 2.0
+ * @version 2.1
  */
 public final class PackageInformationPanel extends JTabbedPane {
 
@@ -67,15 +69,20 @@ public final class PackageInformationPanel extends JTabbedPane {
     /**
      * Shows the actual list of files.
      */
-    private JingleTextPane flistPane;
+    private PackageContentsList flist;
     /**
      * Whether the files in the package should be shown.
      */
     private boolean showfiles;
 
+    /*
+     * The snapshot of package data we're displaying. This is only
+     * accessed on the event thread, and updated when we're told that
+     * more data is available.
+     */
+    private transient PackageSnapshot snap;
     private transient OverlayList ovlist;
-    private transient ContentsParser cp;
-    private transient ZapConfig zc;
+    private transient InfoPageCache pageCache;
 
     /**
      * Create a default PackageInformationPanel showing the default tabs.
@@ -95,15 +102,16 @@ public final class PackageInformationPanel extends JTabbedPane {
     public PackageInformationPanel(final PackageHandler phdl,
 				final boolean showdependencies) {
 	pkghdl = phdl;
-	ovlist = pkghdl.getOverlayList();
-	zc = pkghdl.getZapConfig();
+	snap = pkghdl.getSnapshot();
+	ovlist = snap.getOverlayList();
+	pageCache = new InfoPageCache(pkghdl.getZapConfig());
 
 	infoPane = new PackageTextPane();
 	dependPane = new PackageTextPane();
 	revdepPane = new PackageTextPane();
 	overlayPane = new PackageTextPane();
 	filehPane = new JingleTextPane();
-	flistPane = new JingleTextPane("text/plain");
+	flist = new PackageContentsList();
 	add(PkgResources.getString("PKG.INFO"), new JScrollPane(infoPane));
 	if (showdependencies) {
 	    add(PkgResources.getString("PKG.DEPENDENCIES"),
@@ -122,22 +130,25 @@ public final class PackageInformationPanel extends JTabbedPane {
      */
     public void showPkg(final SVR4Package pkg) {
 	setOvlTab(PkgResources.getString("PKG.OVERLAYS"));
-	if (pkg.isInstalled()) {
-	    setInfoText(PkgUtils.infoTable(pkg, zc),
-		    PkgUtils.dependencyTable(pkg),
-		    PkgUtils.revDeps(pkg.getDependantSet()));
-	} else {
-	    setInfoText("Not installed", "", "");
-	}
-	setOverlayText(PkgUtils.overlayMembership(pkg, ovlist));
-	if (cp != null) {
-	    Cursor c = getCursor();
-	    ContentsPackage cpp = cp.getPackage(pkg.getName());
-	    setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-	    setFilesText(PkgUtils.detailTable(cpp),
-			 PkgUtils.doTextFileList(cpp));
-	    setCursor(c);
+	Cursor c = getCursor();
+	setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+	InfoPageCache.InfoPage page = pageCache.getPage(snap, pkg);
+	setInfoText(page.getInfo(), page.getDepend(), page.getRevDepend());
+	setOverlayText(page.getOverlay());
+	if (page.getFileHeader() != null) {
+	    setFilesText(page.getFileHeader(), page.getContentsPackage());
 	}
+	setCursor(c);
+    }
+
+    /**
+     * Prepare the pages for the given packages in the background, so
+     * they can be shown without delay.
+     *
+     * @param pkgs the packages likely to be shown next
+     */
+    public void prerender(final Collection<SVR4Package> pkgs) {
+	pageCache.prerender(snap, pkgs);
     }
 
     /**
@@ -147,10 +158,9 @@ public final class PackageInformationPanel extends JTabbedPane {
      */
     public void showOverlay(final Overlay ovl) {
 	setOvlTab(PkgResources.getString("PKG.PACKAGES"));
-	setInfoText(PkgUtils.infoTable(ovl),
-		    PkgUtils.dependencyTable(ovl),
-		    PkgUtils.ovlDeps(ovlist.containingOverlays(ovl)));
-	setOverlayText(PkgUtils.overlayMembers(ovl));
+	InfoPageCache.InfoPage page = pageCache.getPage(snap, ovl);
+	setInfoText(page.getInfo(), page.getDepend(), page.getRevDepend());
+	setOverlayText(page.getOverlay());
 	disableFilesTab();
     }
 
@@ -161,18 +171,24 @@ public final class PackageInformationPanel extends JTabbedPane {
      */
     public void showFile(final String fname) {
 	setOvlTab(PkgResources.getString("PKG.OVERLAYS"));
-	if (cp == null) {
+	ContentsParser cp = snap.getContentsParser();
+	DirectoryRollup rollup = snap.getDirectoryRollup();
+	if (cp == null || rollup == null) {
 	    infoOnly("Package information not available.");
 	} else {
 	    // need to remove any altroot from the filename before
 	    // matching it against the contents file
-	    ContentsFileDetail cfd = cp.getFileDetail(fname
-					.replaceFirst(pkghdl.getRoot(), "/")
-					.replaceFirst("//", "/"));
+	    String path = fname.replaceFirst(pkghdl.getRoot(), "/")
+					.replaceFirst("//", "/");
+	    ContentsFileDetail cfd = cp.getFileDetail(path);
+	    int id = rollup.getId(path);
+	    String dirinfo = (id < 0) ? ""
+				: PkgUtils.directoryTable(rollup, id);
 	    if (cfd == null) {
-		infoOnly("Not a member of any package.");
+		setInfoText(dirinfo + "Not a member of any package.", "", "");
+		setOverlayText("");
 	    } else {
-		setInfoText(PkgUtils.fileDetailTable(cfd), "", "");
+		setInfoText(PkgUtils.fileDetailTable(cfd) + dirinfo, "", "");
 		setOverlayText(PkgUtils.overlayMembership(ovlist, cfd));
 	    }
 	}
@@ -199,13 +215,14 @@ public final class PackageInformationPanel extends JTabbedPane {
 	overlayPane.setText(s);
     }
 
-    private void setFilesText(final String shead, final String slist) {
+    private void setFilesText(final String shead,
+			final ContentsPackage cpp) {
 	if (!showfiles) {
 	    showFilesTab();
 	}
 	enableFiles();
 	filehPane.setText(shead);
-	flistPane.setText(slist);
+	flist.setPackage(cpp);
     }
 
     /**
@@ -214,6 +231,7 @@ public final class PackageInformationPanel extends JTabbedPane {
      * @param pkg the package to show
      */
     public void showRevDependencies(final SVR4Package pkg) {
+	snap = pkghdl.getSnapshot();
 	add(PkgResources.getString("PKG.DEPENDANTS"),
 	    new JScrollPane(revdepPane));
 	if (pkg != null) {
@@ -227,8 +245,8 @@ public final class PackageInformationPanel extends JTabbedPane {
     private void showFilesTab() {
 	JPanel jfp = new JPanel(new BorderLayout());
 	jfp.add(filehPane, BorderLayout.PAGE_START);
-	jfp.add(flistPane, BorderLayout.CENTER);
-	add(PkgResources.getString("PKG.CONTENTS"), new JScrollPane(jfp));
+	jfp.add(flist, BorderLayout.CENTER);
+	add(PkgResources.getString("PKG.CONTENTS"), jfp);
 	showfiles = true;
     }
 
@@ -270,6 +288,6 @@ public final class PackageInformationPanel extends JTabbedPane {
      * Cause the detailed view of package contents to be shown.
      */
     public void showDetailedView() {
-	cp = pkghdl.getContentsParser();
+	snap = pkghdl.getSnapshot();
     }
 }
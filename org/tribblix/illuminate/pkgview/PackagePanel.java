@@ -21,26 +21,43 @@
 package org.tribblix.illuminate.pkgview;
 
 import java.awt.BorderLayout;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
 import javax.swing.DefaultListSelectionModel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JSplitPane;
 import javax.swing.JTable;
+import javax.swing.RowFilter;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
+import javax.swing.event.RowSorterEvent;
+import javax.swing.event.RowSorterListener;
+import javax.swing.table.TableRowSorter;
 
 /**
  * Show a table inside a Scroll pane, displaying the packages installed.
  * The columns can be sorted by clicking the column headers. Selecting
  * a row causes information to appear in a tabbed area below the table.
+ * The packages shown can be filtered by name.
  *
  * @author Peter Tribble
- * @version 2.0
+ * @version 2.2
  */
 public final class PackagePanel extends JPanel {
 
     private static final long serialVersionUID = 1L;
 
+    /*
+     * How many rows either side of the selection to prepare in advance.
+     */
+    private static final int NEIGHBOURS = 3;
+
     /**
      * A JTable to show the list of packages.
      */
@@ -50,6 +67,18 @@ public final class PackagePanel extends JPanel {
      */
     private final PackageInformationPanel pip;
     private transient SVR4Package currentPackage;
+    /**
+     * Sorts and filters the table.
+     */
+    private final TableRowSorter<PackageTableModel> sorter;
+    /**
+     * The field to filter the package list with.
+     */
+    private final FilterField filterField;
+    /*
+     * The model rows matching the filter, or null if not filtering.
+     */
+    private BitSet shown;
 
     /**
      * Create a new PackagePanel allowing the details of any of a list
@@ -66,8 +95,51 @@ public final class PackagePanel extends JPanel {
 	JPanel jpp = new JPanel(new BorderLayout());
 	final PackageTableModel ptm = new PackageTableModel(plist);
 	ptable = new JTable(ptm);
-	ptable.setAutoCreateRowSorter(true);
-	jpp.add(new JScrollPane(ptable));
+	sorter = new TableRowSorter<>(ptm);
+	ptable.setRowSorter(sorter);
+	/*
+	 * Re-sorting on every batch of metadata would be expensive, so
+	 * sort once more when it's all arrived.
+	 */
+	ptm.setMetadataListener(new PackageTableModel.MetadataListener() {
+	    @Override
+	    public void metadataLoaded() {
+		if (!sorter.getSortKeys().isEmpty()) {
+		    sorter.sort();
+		}
+	    }
+	});
+	filterField = new FilterField(
+		PkgResources.getString("PKG.FILTER.PKG.TIP"),
+		new FilterField.FilterListener() {
+	    @Override
+	    public void filterChanged(final int[] matches) {
+		showMatches(matches);
+	    }
+	});
+	addFilter(plist);
+	final JScrollPane jsp = new JScrollPane(ptable);
+	jpp.add(jsp);
+	jpp.add(filterField, BorderLayout.PAGE_START);
+
+	/*
+	 * Whenever the visible rows change, by scrolling or sorting, ask
+	 * for their metadata to be loaded first.
+	 */
+	jsp.getViewport().addChangeListener(new ChangeListener() {
+	    @Override
+	    public void stateChanged(final ChangeEvent e) {
+		prioritizeVisible(jsp, ptm);
+	    }
+	});
+	sorter.addRowSorterListener(new RowSorterListener() {
+	    @Override
+	    public void sorterChanged(final RowSorterEvent e) {
+		if (e.getType() == RowSorterEvent.Type.SORT_ORDER_CHANGED) {
+		    prioritizeVisible(jsp, ptm);
+		}
+	    }
+	});
 
 	pip = new PackageInformationPanel(pkghdl);
 
@@ -88,12 +160,83 @@ public final class PackagePanel extends JPanel {
 			// sorted table, need to convert the index
 			showPkg(ptm.getPackageAtRow(
 			    ptable.convertRowIndexToModel(irow)));
+			prerenderNeighbours(ptm, irow);
 		    }
 		}
 	    }
 	});
     }
 
+    /*
+     * The table model has the packages in list order, so the package
+     * names are indexed in the same order and the matches from the index
+     * are model rows.
+     */
+    private void addFilter(final PkgList plist) {
+	String[] names = new String[plist.size()];
+	int i = 0;
+	for (SVR4Package pkg : plist) {
+	    names[i++] = pkg.getName();
+	}
+	filterField.setIndex(new SubstringIndex(names));
+	sorter.setRowFilter(new RowFilter<PackageTableModel, Integer>() {
+	    @Override
+	    public boolean include(final Entry<? extends PackageTableModel,
+				? extends Integer> entry) {
+		return shown == null || shown.get(entry.getIdentifier());
+	    }
+	});
+    }
+
+    void showMatches(final int[] matches) {
+	if (matches == null) {
+	    shown = null;
+	} else {
+	    shown = new BitSet();
+	    for (int i : matches) {
+		shown.set(i);
+	    }
+	}
+	sorter.sort();
+    }
+
+    /*
+     * Users often step through the table with the arrow keys, so get
+     * the pages for the rows around the selection ready.
+     */
+    void prerenderNeighbours(final PackageTableModel ptm, final int irow) {
+	List<SVR4Package> pkgs = new ArrayList<>();
+	for (int i = 1; i <= NEIGHBOURS; i++) {
+	    if (irow + i < ptable.getRowCount()) {
+		pkgs.add(ptm.getPackageAtRow(
+			ptable.convertRowIndexToModel(irow + i)));
+	    }
+	    if (irow - i >= 0) {
+		pkgs.add(ptm.getPackageAtRow(
+			ptable.convertRowIndexToModel(irow - i)));
+	    }
+	}
+	pip.prerender(pkgs);
+    }
+
+    void prioritizeVisible(final JScrollPane jsp,
+			final PackageTableModel ptm) {
+	Rectangle r = jsp.getViewport().getViewRect();
+	int first = ptable.rowAtPoint(r.getLocation());
+	if (first < 0) {
+	    return;
+	}
+	int last = ptable.rowAtPoint(new Point(r.x, r.y + r.height - 1));
+	if (last < 0) {
+	    last = ptable.getRowCount() - 1;
+	}
+	int[] rows = new int[last - first + 1];
+	for (int i = first; i <= last; i++) {
+	    rows[i - first] = ptable.convertRowIndexToModel(i);
+	}
+	ptm.prioritize(rows);
+    }
+
     void showPkg(final SVR4Package pkg) {
 	pip.showPkg(pkg);
 	if (pkg.isInstalled()) {
@@ -0,0 +1,273 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate.pkgview;
+
+import com.github.openjson.JSONArray;
+import com.github.openjson.JSONObject;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * PackageReport - produce the package size, overlay size, and missing
+ * package reports together, in a machine readable format.
+ *
+ * <p>Each source of data is loaded once and shared between the reports.
+ * Reading the contents file and reading package dependencies are
+ * independent, so are done in parallel, as are the reports themselves.
+ * The time taken by each phase is included in the output.
+ *
+ * @author Peter Tribble
+ * @version 1.0
+ */
+public final class PackageReport {
+
+    private final PackageHandler pkghdl;
+    private final Map<String, Long> timings = new LinkedHashMap<>();
+
+    private List<String[]> pkgSizes;
+    private List<String[]> ovlSizes;
+    private Map<String, Set<String>> missing;
+
+    /**
+     * Create the reports for an OS image.
+     *
+     * @param altroot the root of the OS image
+     */
+    public PackageReport(final String altroot) {
+	pkghdl = PackageHandler.getHandler(altroot);
+    }
+
+    /*
+     * Run a phase of the report, recording how long it took in ms.
+     */
+    private <T> T timed(final String phase, final Supplier<T> task) {
+	long start = System.nanoTime();
+	T result = task.get();
+	long elapsed = (System.nanoTime() - start) / 1000000;
+	synchronized (timings) {
+	    timings.put(phase, elapsed);
+	}
+	return result;
+    }
+
+    /**
+     * Gather the data and generate all the reports.
+     */
+    public void run() {
+	long start = System.nanoTime();
+	PackageSnapshot snap = timed("packages", pkghdl::getSnapshot);
+	PkgList plist = snap.getPkgList();
+
+	CompletableFuture<ContentsParser> fcontents =
+	    CompletableFuture.supplyAsync(
+		() -> timed("contents", pkghdl::getContentsParser));
+	CompletableFuture<Map<String, Set<SVR4Package>>> fdepends =
+	    CompletableFuture.supplyAsync(
+		() -> timed("dependencies", () -> {
+		    // read the depend files in parallel
+		    plist.getPackages().parallelStream()
+			.forEach(SVR4Package::getDependencySet);
+		    return plist.createRevDependencies();
+		}));
+
+	CompletableFuture<Void> fpkgs = fcontents.thenAcceptAsync(
+		cp -> pkgSizes = timed("packagesizes",
+					() -> packageSizes(plist, cp)));
+	CompletableFuture<Void> fovls = fcontents.thenAcceptAsync(
+		cp -> ovlSizes = timed("overlaysizes",
+			() -> overlaySizes(snap.getOverlayList(), cp)));
+	CompletableFuture<Void> fmissing = fdepends.thenAcceptAsync(
+		revdeps -> missing = timed("missingpackages",
+			() -> missingPackages(plist, revdeps)));
+	CompletableFuture.allOf(fpkgs, fovls, fmissing).join();
+	timings.put("total", (System.nanoTime() - start) / 1000000);
+    }
+
+    private static List<String[]> packageSizes(final PkgList plist,
+					final ContentsParser cp) {
+	List<String[]> rows = new ArrayList<>();
+	for (String pkg : plist.getPackageNames()) {
+	    ContentsPackage cc = cp.getPackage(pkg);
+	    rows.add(new String[] {pkg,
+		    Long.toString(cc == null ? 0 : cc.spaceUsed()),
+		    Integer.toString(cc == null ? 0 : cc.numEntries())});
+	}
+	return rows;
+    }
+
+    private static List<String[]> overlaySizes(final OverlayList ovlist,
+					final ContentsParser cp) {
+	List<String[]> rows = new ArrayList<>();
+	for (Overlay ovl : ovlist.getOverlays()) {
+	    ContentsPackage cc = cp.getOverlay(ovl);
+	    rows.add(new String[] {ovl.getName(),
+		    Long.toString(cc.spaceUsed()),
+		    Integer.toString(cc.numEntries()),
+		    ovl.getDescription()});
+	}
+	return rows;
+    }
+
+    /*
+     * Packages that are depended on but not installed, and the packages
+     * that need them.
+     */
+    private static Map<String, Set<String>> missingPackages(
+		final PkgList plist,
+		final Map<String, Set<SVR4Package>> revdeps) {
+	Map<String, Set<String>> mmap = new LinkedHashMap<>();
+	for (String s : new TreeSet<>(revdeps.keySet())) {
+	    if (plist.getPackage(s) == null) {
+		Set<String> needers = new TreeSet<>();
+		for (SVR4Package pkg : revdeps.get(s)) {
+		    needers.add(pkg.getName());
+		}
+		mmap.put(s, needers);
+	    }
+	}
+	return mmap;
+    }
+
+    /**
+     * Return the reports as a JSON object.
+     *
+     * @return the reports in JSON format
+     */
+    public String toJSON() {
+	JSONObject json = new JSONObject();
+	json.put("root", pkghdl.getRoot());
+	json.put("timings", new JSONObject(timings));
+	JSONArray jpkgs = new JSONArray();
+	for (String[] row : pkgSizes) {
+	    JSONObject jo = new JSONObject();
+	    jo.put("name", row[0]);
+	    jo.put("size", Long.parseLong(row[1]));
+	    jo.put("entries", Integer.parseInt(row[2]));
+	    jpkgs.put(jo);
+	}
+	json.put("packages", jpkgs);
+	JSONArray jovls = new JSONArray();
+	for (String[] row : ovlSizes) {
+	    JSONObject jo = new JSONObject();
+	    jo.put("name", row[0]);
+	    jo.put("size", Long.parseLong(row[1]));
+	    jo.put("entries", Integer.parseInt(row[2]));
+	    jo.put("description", row[3]);
+	    jovls.put(jo);
+	}
+	json.put("overlays", jovls);
+	JSONArray jmissing = new JSONArray();
+	for (Map.Entry<String, Set<String>> me : missing.entrySet()) {
+	    JSONObject jo = new JSONObject();
+	    jo.put("name", me.getKey());
+	    jo.put("neededBy", new JSONArray(me.getValue()));
+	    jmissing.put(jo);
+	}
+	json.put("missing", jmissing);
+	return json.toString(2);
+    }
+
+    /**
+     * Return the reports in CSV format. Every row has the same columns:
+     * the report, name, size, number of entries, description, and the
+     * packages needing a missing package, separated by spaces. For the
+     * timings, the size column holds the time taken in ms.
+     *
+     * @return the reports in CSV format
+     */
+    public String toCSV() {
+	StringBuilder sb = new StringBuilder();
+	csvRow(sb, "report", "name", "size", "entries", "description",
+		"needed_by");
+	for (String[] row : pkgSizes) {
+	    csvRow(sb, "package", row[0], row[1], row[2], "", "");
+	}
+	for (String[] row : ovlSizes) {
+	    csvRow(sb, "overlay", row[0], row[1], row[2], row[3], "");
+	}
+	for (Map.Entry<String, Set<String>> me : missing.entrySet()) {
+	    csvRow(sb, "missing", me.getKey(), "", "", "",
+		String.join(" ", me.getValue()));
+	}
+	for (Map.Entry<String, Long> me : timings.entrySet()) {
+	    csvRow(sb, "timing", me.getKey(), me.getValue().toString(),
+		"", "", "");
+	}
+	return sb.toString();
+    }
+
+    private static void csvRow(final StringBuilder sb,
+				final String... fields) {
+	for (int i = 0; i < fields.length; i++) {
+	    if (i > 0) {
+		sb.append(',');
+	    }
+	    String f = fields[i];
+	    if (f.indexOf(',') >= 0 || f.indexOf('"') >= 0
+		    || f.indexOf('\n') >= 0) {
+		sb.append('"').append(f.replace("\"", "\"\"")).append('"');
+	    } else {
+		sb.append(f);
+	    }
+	}
+	sb.append('\n');
+    }
+
+    private static void usage() {
+	System.err.println("Usage: report [-R alt_root] [-f json|csv]");
+	System.exit(1);
+    }
+
+    /**
+     * Run the application.
+     *
+     * @param args Command line arguments
+     */
+    public static void main(final String[] args) {
+	String altroot = "/";
+	String format = "json";
+	int i = 0;
+	while (i < args.length) {
+	    if ("-R".equals(args[i]) && i + 1 < args.length) {
+		altroot = args[i + 1];
+		i += 2;
+	    } else if ("-f".equals(args[i]) && i + 1 < args.length) {
+		format = args[i + 1];
+		i += 2;
+	    } else {
+		usage();
+	    }
+	}
+	if (!"json".equals(format) && !"csv".equals(format)) {
+	    usage();
+	}
+	PackageReport report = new PackageReport(altroot);
+	report.run();
+	System.out.print("csv".equals(format) ? report.toCSV()
+			: report.toJSON() + "\n");
+    }
+}
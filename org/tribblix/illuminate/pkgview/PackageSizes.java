@@ -38,7 +38,7 @@ public final class PackageSizes {
 	if (args.length == 2 && "-R".equals(args[0])) {
 	    altroot = args[1];
 	}
-	PackageHandler pkghdl = new PackageHandler(altroot);
+	PackageHandler pkghdl = PackageHandler.getHandler(altroot);
 	ContentsParser cp = pkghdl.getContentsParser();
 	for (String pkg : pkghdl.getPkgList().getPackageNames()) {
 	    ContentsPackage cc = cp.getPackage(pkg);
@@ -0,0 +1,152 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate.pkgview;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * PackageSnapshot - an immutable view of the packaging data for an OS
+ * image at a point in time.
+ *
+ * <p>Snapshots are built away from the event thread and published by the
+ * PackageHandler as a whole, so a reader holding a snapshot always sees
+ * a consistent set of data. The more expensive parts, the contents file
+ * and reverse dependencies, are added later by publishing a new snapshot
+ * with them filled in; until then they are null.
+ *
+ * @author Peter Tribble
+ * @version 1.0
+ */
+public final class PackageSnapshot {
+
+    private final PkgList pkglist;
+    private final OverlayList ovlist;
+    private final ContentsParser cp;
+    private final DirectoryRollup rollup;
+    private final Map<String, Set<SVR4Package>> revdeps;
+
+    /**
+     * Create a snapshot containing just the package and overlay lists.
+     *
+     * @param pkglist the list of installed packages
+     * @param ovlist the list of overlays
+     */
+    public PackageSnapshot(final PkgList pkglist, final OverlayList ovlist) {
+	this(pkglist, ovlist, null, null, null);
+    }
+
+    private PackageSnapshot(final PkgList pkglist, final OverlayList ovlist,
+			final ContentsParser cp, final DirectoryRollup rollup,
+			final Map<String, Set<SVR4Package>> revdeps) {
+	this.pkglist = pkglist;
+	this.ovlist = ovlist;
+	this.cp = cp;
+	this.rollup = rollup;
+	this.revdeps = revdeps;
+    }
+
+    /**
+     * Return a copy of this snapshot with the contents file data added.
+     *
+     * @param ncp the parsed contents file
+     * @param nrollup the directory rollup of the contents file, which
+     * may be null
+     *
+     * @return a new PackageSnapshot
+     */
+    public PackageSnapshot withContents(final ContentsParser ncp,
+				final DirectoryRollup nrollup) {
+	return new PackageSnapshot(pkglist, ovlist, ncp, nrollup, revdeps);
+    }
+
+    /**
+     * Return a copy of this snapshot with the reverse dependencies added.
+     *
+     * @param nrevdeps an unmodifiable Map of package name to the packages
+     * that depend on it
+     *
+     * @return a new PackageSnapshot
+     */
+    public PackageSnapshot withRevDependencies(
+			final Map<String, Set<SVR4Package>> nrevdeps) {
+	return new PackageSnapshot(pkglist, ovlist, cp, rollup, nrevdeps);
+    }
+
+    /**
+     * Return the list of installed packages.
+     *
+     * @return the PkgList in this snapshot
+     */
+    public PkgList getPkgList() {
+	return pkglist;
+    }
+
+    /**
+     * Return the list of overlays.
+     *
+     * @return the OverlayList in this snapshot
+     */
+    public OverlayList getOverlayList() {
+	return ovlist;
+    }
+
+    /**
+     * Return the parsed contents file.
+     *
+     * @return the ContentsParser in this snapshot, or null if the
+     * contents file hasn't been parsed yet
+     */
+    public ContentsParser getContentsParser() {
+	return cp;
+    }
+
+    /**
+     * Return the directory rollup of the contents file.
+     *
+     * @return the DirectoryRollup in this snapshot, or null if it
+     * hasn't been built yet
+     */
+    public DirectoryRollup getDirectoryRollup() {
+	return rollup;
+    }
+
+    /**
+     * Return whether the reverse dependencies have been generated.
+     *
+     * @return true if reverse dependencies are available
+     */
+    public boolean hasRevDependencies() {
+	return revdeps != null;
+    }
+
+    /**
+     * Get the dependants of the given package.
+     *
+     * @param pkg the name of the package to query
+     *
+     * @return a Set of packages that depend on the given package, or null
+     * if there are none or they haven't been generated yet
+     */
+    public Set<SVR4Package> getDependantSet(final String pkg) {
+	return (revdeps == null) ? null : revdeps.get(pkg);
+    }
+}
@@ -20,21 +20,52 @@
 
 package org.tribblix.illuminate.pkgview;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+import javax.swing.SwingWorker;
 import javax.swing.table.AbstractTableModel;
 
 /**
  * A TableModel describing SVR4 packages.
  *
+ * <p>Showing the version and description means reading each package's
+ * pkginfo file, which is slow for a large number of packages. So the
+ * table initially shows a placeholder, and the files are read in the
+ * background. Rows that are visible can be moved to the front of the
+ * queue with {@link #prioritize}. A {@link MetadataListener} is told
+ * once all the metadata has been loaded.
+ *
  * @author Peter Tribble
- * @version 2.0
+ * @version 3.1
  */
 public final class PackageTableModel extends AbstractTableModel {
 
     private static final long serialVersionUID = 1L;
 
-    private final transient List<SVR4Package> pkgs;
+    private static final String PLACEHOLDER =
+	PkgResources.getString("PKG.LOADING");
+
+    private final transient SVR4Package[] pkgs;
+    /*
+     * The loaded metadata, null until loaded. Only accessed on the
+     * event thread.
+     */
+    private final String[] versions;
+    private final String[] descriptions;
+
+    /*
+     * Rows waiting to be loaded. Everything is queued in order to start
+     * with, and visible rows are pushed onto the front.
+     */
+    private final transient LinkedBlockingDeque<Integer> queue =
+	new LinkedBlockingDeque<>();
+
+    /*
+     * Whether all the metadata has been loaded, and who to tell when it
+     * has. Only accessed on the event thread.
+     */
+    private boolean loaded;
+    private transient MetadataListener listener;
 
     /**
      * Columns to show.
@@ -42,12 +73,56 @@ public final class PackageTableModel extends AbstractTableModel {
     private final String[] columnNames = {"Name", "Version", "Description"};
 
     /**
-     * Create a new PackageTableModel.
+     * Create a new PackageTableModel, and start loading the package
+     * metadata in the background.
      *
      * @param plist a PkgList
      */
     public PackageTableModel(final PkgList plist) {
-	pkgs = new ArrayList<>(plist);
+	pkgs = plist.getPackages().toArray(new SVR4Package[0]);
+	versions = new String[pkgs.length];
+	descriptions = new String[pkgs.length];
+	for (int i = 0; i < pkgs.length; i++) {
+	    queue.add(i);
+	}
+	new MetadataLoader().execute();
+    }
+
+    /**
+     * Notified on the event thread once all the package metadata has
+     * been loaded.
+     */
+    public interface MetadataListener {
+	/**
+	 * Called when the last of the metadata has been loaded.
+	 */
+	void metadataLoaded();
+    }
+
+    /**
+     * Set the listener to be told when all the metadata has been loaded.
+     * If loading has already finished, the listener is called immediately.
+     *
+     * @param l the MetadataListener to notify
+     */
+    public void setMetadataListener(final MetadataListener l) {
+	listener = l;
+	if (loaded) {
+	    l.metadataLoaded();
+	}
+    }
+
+    /**
+     * Load the metadata for the given rows before any others.
+     *
+     * @param rows the model indices of the rows to load first
+     */
+    public void prioritize(final int[] rows) {
+	for (int i = rows.length - 1; i >= 0; i--) {
+	    if (versions[rows[i]] == null) {
+		queue.offerFirst(rows[i]);
+	    }
+	}
     }
 
     @Override
@@ -57,7 +132,7 @@ public final class PackageTableModel extends AbstractTableModel {
 
     @Override
     public int getRowCount() {
-	return pkgs.size();
+	return pkgs.length;
     }
 
     @Override
@@ -77,14 +152,11 @@ public final class PackageTableModel extends AbstractTableModel {
      */
     @Override
     public Object getValueAt(final int row, final int col) {
-	SVR4Package pkg = pkgs.get(row);
 	if (col == 0) {
-	    return pkg.getName();
-	} else if (col == 1) {
-	    return pkg.getVersion();
-	} else {
-	    return pkg.getDescription();
+	    return pkgs[row].getName();
 	}
+	String s = (col == 1) ? versions[row] : descriptions[row];
+	return (s == null) ? PLACEHOLDER : s;
     }
 
     @Override
@@ -100,6 +172,64 @@ public final class PackageTableModel extends AbstractTableModel {
      * @return the SVR4Package on the given row
      */
     public SVR4Package getPackageAtRow(final int row) {
-	return pkgs.get(row);
+	return pkgs[row];
+    }
+
+    /*
+     * The metadata for a row, passed from the loader to the event thread.
+     */
+    private static final class RowData {
+	private final int row;
+	private final String version;
+	private final String description;
+
+	RowData(final int row, final String version,
+		final String description) {
+	    this.row = row;
+	    this.version = version;
+	    this.description = description;
+	}
+    }
+
+    /*
+     * Read the metadata in queue order. Rows arriving together are
+     * applied in one go, with a single update event.
+     */
+    final class MetadataLoader extends SwingWorker<Void, RowData> {
+	@Override
+	public Void doInBackground() {
+	    boolean[] done = new boolean[pkgs.length];
+	    Integer row;
+	    while ((row = queue.pollFirst()) != null) {
+		if (!done[row]) {
+		    done[row] = true;
+		    SVR4Package pkg = pkgs[row];
+		    publish(new RowData(row, pkg.getVersion(),
+					pkg.getDescription()));
+		}
+	    }
+	    return null;
+	}
+
+	@Override
+	protected void process(final List<RowData> chunk) {
+	    int first = Integer.MAX_VALUE;
+	    int last = -1;
+	    for (RowData rd : chunk) {
+		versions[rd.row] = rd.version;
+		descriptions[rd.row] = rd.description;
+		first = Math.min(first, rd.row);
+		last = Math.max(last, rd.row);
+	    }
+	    fireTableRowsUpdated(first, last);
+	}
+
+	@Override
+	protected void done() {
+	    loaded = true;
+	    if (listener != null) {
+		listener.metadataLoaded();
+	    }
+	}
     }
 }
@@ -21,6 +21,7 @@
 package org.tribblix.illuminate.pkgview;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
@@ -48,19 +49,27 @@ public final class PkgCheck {
      * @param args a list of package, overlay, or file names
      */
     public PkgCheck(final String altroot, final String[] args) {
-	pkghdl = new PackageHandler(altroot);
-	PkgList plist = pkghdl.getPkgList();
+	pkghdl = PackageHandler.getHandler(altroot);
 	Set<String> names = parseArgs(args);
 	if (checkovl) {
 	    doOverlays(names);
 	} else if (dopaths || partpaths) {
-	    cp = pkghdl.getContentsParser();
-	    if (dopaths) {
-		doPathNames(names);
-	    } else {
-		doPartPathNames(names);
+	    /*
+	     * Looking up a few paths doesn't need the whole contents file
+	     * parsed, so search it directly.
+	     */
+	    try {
+		ContentsLookup cl = new ContentsLookup(pkghdl);
+		if (dopaths) {
+		    doPathNames(cl, names);
+		} else {
+		    doPartPathNames(cl, names);
+		}
+	    } catch (IOException ioe) {
+		System.err.println("ERROR: unable to read contents file");
 	    }
 	} else {
+	    PkgList plist = pkghdl.getPkgList();
 	    cp = pkghdl.getContentsParser();
 	    for (String pkg : allpkgs ? plist.getPackageNames() : names) {
 		if (plist.getPackage(pkg) == null) {
@@ -114,9 +123,10 @@ public final class PkgCheck {
 	return names;
     }
 
-    private void doPathNames(final Set<String> names) {
+    private void doPathNames(final ContentsLookup cl,
+			     final Set<String> names) {
 	for (String name : names) {
-	    ContentsFileDetail cfd = cp.getFileDetail(name);
+	    ContentsFileDetail cfd = cl.getFileDetail(name);
 	    if (cfd == null) {
 		System.err.println("ERROR: invalid name " + name);
 	    } else {
@@ -125,13 +135,10 @@ public final class PkgCheck {
 	}
     }
 
-    private void doPartPathNames(final Set<String> names) {
-	for (String path : cp.getPaths()) {
-	    for (String name : names) {
-		if (path.indexOf(name) > 0) {
-		    showFile(cp.getFileDetail(path));
-		}
-	    }
+    private void doPartPathNames(final ContentsLookup cl,
+				 final Set<String> names) {
+	for (ContentsFileDetail cfd : cl.findPartial(names)) {
+	    showFile(cfd);
 	}
     }
 
@@ -224,8 +231,8 @@ public final class PkgCheck {
 					    + " has incorrect size");
 			}
 		    }
-		    // allow a little rounding error
-		    if (Math.abs(fmodtime - pmodtime) >= 2) {
+		    // allow a little rounding error, 0 means not recorded
+		    if (pmodtime != 0 && Math.abs(fmodtime - pmodtime) >= 2) {
 			if (cfd.isEditable()) {
 			    if (verbose) {
 				System.out.println("WARNING: File "
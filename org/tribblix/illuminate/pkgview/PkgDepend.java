@@ -20,6 +20,7 @@
 
 package org.tribblix.illuminate.pkgview;
 
+import java.util.Collections;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -33,9 +34,17 @@ public final class PkgDepend {
 
     private final String name;
     private final PackageHandler pkghdl;
-    private Set<String> dependson;
-    private Set<String> rdepends;
-    private Set<String> incompatibles;
+    /*
+     * The parsed depend file, created on first use. It's immutable, so
+     * it's safe for several threads to race to create it.
+     */
+    private volatile Depends depends;
+
+    private static final class Depends {
+	private final Set<String> dependson = new TreeSet<>();
+	private final Set<String> rdepends = new TreeSet<>();
+	private final Set<String> incompatibles = new TreeSet<>();
+    }
 
     /**
      * Create an SVR4 pkg dependency container.
@@ -54,10 +63,7 @@ public final class PkgDepend {
      * @return the Set of package names this package depends on
      */
     public Set<String> getDependencySet() {
-	if (dependson == null) {
-	    parseDepend();
-	}
-	return dependson;
+	return Collections.unmodifiableSet(parseDepend().dependson);
     }
 
     /**
@@ -68,10 +74,7 @@ public final class PkgDepend {
      * dependent on it
      */
     public Set<String> getRDependencySet() {
-	if (rdepends == null) {
-	    parseDepend();
-	}
-	return rdepends;
+	return Collections.unmodifiableSet(parseDepend().rdepends);
     }
 
     /**
@@ -81,31 +84,32 @@ public final class PkgDepend {
      * incompatible with it
      */
     public Set<String> getIncompatibleSet() {
-	if (incompatibles == null) {
-	    parseDepend();
-	}
-	return incompatibles;
+	return Collections.unmodifiableSet(parseDepend().incompatibles);
     }
 
     /*
-     * Actually parse the depend file
+     * Actually parse the depend file, if not already done.
      */
-    private void parseDepend() {
-	dependson = new TreeSet<>();
-	rdepends = new TreeSet<>();
-	incompatibles = new TreeSet<>();
+    private Depends parseDepend() {
+	Depends d = depends;
+	if (d != null) {
+	    return d;
+	}
+	d = new Depends();
 	for (String s : pkghdl.getPkgDepend(name)) {
 	    String[] ds = s.split("\\s+", 3);
 	    // Must have at least 2 words
 	    if (ds.length > 1) {
 		if ("P".equals(ds[0])) {
-		    dependson.add(ds[1]);
+		    d.dependson.add(ds[1]);
 		} else if ("R".equals(ds[0])) {
-		    rdepends.add(ds[1]);
+		    d.rdepends.add(ds[1]);
 		} else if ("I".equals(ds[0])) {
-		    incompatibles.add(ds[1]);
+		    d.incompatibles.add(ds[1]);
 		}
 	    }
 	}
+	depends = d;
+	return d;
     }
 }
@@ -34,7 +34,11 @@ public final class PkgInfo {
 
     private final String name;
     private final PackageHandler pkghdl;
-    private Map<String, String> pkginfomap;
+    /*
+     * Parsed lazily. The map is never modified once created, so it's
+     * safe for several threads to race to create it.
+     */
+    private volatile Map<String, String> pkginfomap;
 
     /**
      * Create an SVR4 pkg pkginfo container.
@@ -55,11 +59,8 @@ public final class PkgInfo {
      * @return the content of the pkginfo file as a Map
      */
     public Map<String, String> infoMap() {
-	if (pkginfomap == null) {
-	    parseInfo();
-	}
 	// make defensive copy, as PkgUtils modifies it
-	return new HashMap<>(pkginfomap);
+	return new HashMap<>(parseInfo());
     }
 
     /**
@@ -70,16 +71,18 @@ public final class PkgInfo {
      * @return the value of the desired entry
      */
     public String getInfoItem(final String s) {
-	if (pkginfomap == null) {
-	    parseInfo();
-	}
-	return pkginfomap.get(s);
+	return parseInfo().get(s);
     }
 
     /*
-     * Parse the pkginfo file.
+     * Parse the pkginfo file, if not already done.
      */
-    private void parseInfo() {
-	pkginfomap = JumbleUtils.stringToPropMap(pkghdl.getPkgInfo(name));
+    private Map<String, String> parseInfo() {
+	Map<String, String> m = pkginfomap;
+	if (m == null) {
+	    m = JumbleUtils.stringToPropMap(pkghdl.getPkgInfo(name));
+	    pkginfomap = m;
+	}
+	return m;
     }
 }
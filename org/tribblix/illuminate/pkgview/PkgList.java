@@ -20,24 +20,27 @@
 
 package org.tribblix.illuminate.pkgview;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
 /**
- * PkgList - list installed SVR4 packages.
+ * PkgList - list installed SVR4 packages. A PkgList is immutable once
+ * created, so may be shared freely between threads.
  *
  * @author Peter Tribble
- * @version 2.0
+ * @version 3.0
  */
-public final class PkgList extends TreeSet<SVR4Package> {
+public final class PkgList implements Iterable<SVR4Package> {
 
-    private static final long serialVersionUID = 1L;
-
-    private final transient Map<String, SVR4Package> pkgMap = new HashMap<>();
-    private transient Map<String, Set<SVR4Package>> revDependencies;
+    private final List<SVR4Package> packages;
+    private final Map<String, SVR4Package> pkgMap = new HashMap<>();
 
     /**
      * Create a package list.
@@ -49,11 +52,37 @@ public final class PkgList extends TreeSet<SVR4Package> {
      * @param pkghdl a PackageHandler for this OS image
      */
     public PkgList(final PackageHandler pkghdl) {
-        for (String s : pkghdl.listPackageNames()) {
+	List<SVR4Package> plist = new ArrayList<>();
+	// listPackageNames returns a sorted set, so the list is sorted
+	for (String s : pkghdl.listPackageNames()) {
 	    SVR4Package sp = new SVR4Package(pkghdl, s);
-	    add(sp);
+	    plist.add(sp);
 	    pkgMap.put(s, sp);
 	}
+	packages = Collections.unmodifiableList(plist);
+    }
+
+    @Override
+    public Iterator<SVR4Package> iterator() {
+	return packages.iterator();
+    }
+
+    /**
+     * Return the installed packages, sorted by name.
+     *
+     * @return an unmodifiable List of the installed packages
+     */
+    public List<SVR4Package> getPackages() {
+	return packages;
+    }
+
+    /**
+     * Return the number of installed packages.
+     *
+     * @return the number of installed packages
+     */
+    public int size() {
+	return packages.size();
     }
 
     /**
@@ -77,39 +106,25 @@ public final class PkgList extends TreeSet<SVR4Package> {
 	return pkgMap.get(name);
     }
 
-    /**
-     * Get the dependants of the given package.
-     *
-     * @param pkg the package to query
-     *
-     * @return a Set of packages that depend on the given package
-     */
-    public Set<SVR4Package> getDependantSet(final String pkg) {
-	return (revDependencies == null) ? null : revDependencies.get(pkg);
-    }
-
     /**
      * Create a reverse dependency tree. Pull the dependencies out
-     * and populate another Map.
+     * and populate a Map from each package name to the packages that
+     * depend on it.
+     *
+     * @return an unmodifiable Map of package name to dependant packages
      */
-    public void createRevDependencies() {
-	revDependencies = new HashMap<>();
-	for (SVR4Package pkg : this) {
+    public Map<String, Set<SVR4Package>> createRevDependencies() {
+	Map<String, Set<SVR4Package>> revDependencies = new HashMap<>();
+	for (SVR4Package pkg : packages) {
 	    for (String pkgdep : pkg.getDependencySet()) {
-		Set<SVR4Package> revSet = revDependencies.get(pkgdep);
-		if (revSet == null) {
-		    revSet = new HashSet<>();
-		    revDependencies.put(pkgdep, revSet);
-		}
-		revSet.add(pkg);
+		revDependencies.computeIfAbsent(pkgdep, k -> new HashSet<>())
+		    .add(pkg);
 	    }
 	}
-	/*
-	 * Now we've built the tree, tell the packages what their
-	 * dependants are.
-	 */
-	for (SVR4Package pkg : this) {
-	    pkg.setDependantSet(revDependencies.get(pkg.getName()));
+	for (Map.Entry<String, Set<SVR4Package>> me
+		 : revDependencies.entrySet()) {
+	    me.setValue(Collections.unmodifiableSet(me.getValue()));
 	}
+	return Collections.unmodifiableMap(revDependencies);
     }
 }
@@ -0,0 +1,103 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate.pkgview;
+
+import java.util.Arrays;
+
+/**
+ * PkgQuery - list the entries in the contents file that match a query.
+ *
+ * @see ContentsQuery
+ */
+public final class PkgQuery {
+
+    private PkgQuery() {
+    }
+
+    private static void showFile(final ContentsFileDetail cfd,
+				final boolean verbose, final boolean top) {
+	StringBuilder sb = new StringBuilder(80);
+	if (top) {
+	    sb.append(cfd.getSize()).append(' ');
+	}
+	sb.append(cfd.getName());
+	if (verbose) {
+	    sb.append(" type=").append(cfd.getType());
+	    if (cfd.isLink()) {
+		sb.append(" target=").append(cfd.getTarget());
+	    } else {
+		sb.append(" owner=").append(cfd.getOwner())
+		    .append(" group=").append(cfd.getGroup())
+		    .append(" mode=").append(cfd.getMode());
+		if (cfd.isRegular() && !top) {
+		    sb.append(" size=").append(cfd.getSize());
+		}
+	    }
+	    sb.append(" packages=").append(String.join(",",
+						cfd.getPackageNames()));
+	}
+	System.out.println(sb);
+    }
+
+    private static void usage() {
+	System.err.println("Usage: query [-R alt_root] [-v] "
+		+ "[top count] expression ...");
+	System.exit(1);
+    }
+
+    /**
+     * Run the application.
+     *
+     * @param args Command line arguments
+     */
+    public static void main(final String[] args) {
+	String altroot = "/";
+	boolean verbose = false;
+	int i = 0;
+	while (i < args.length && args[i].startsWith("-")) {
+	    if ("-R".equals(args[i]) && i + 1 < args.length) {
+		altroot = args[i + 1];
+		i += 2;
+	    } else if ("-v".equals(args[i])) {
+		verbose = true;
+		i++;
+	    } else {
+		usage();
+	    }
+	}
+	if (i == args.length) {
+	    usage();
+	}
+	ContentsQuery query = null;
+	try {
+	    query = new ContentsQuery(String.join(" ",
+				Arrays.copyOfRange(args, i, args.length)));
+	} catch (IllegalArgumentException iae) {
+	    System.err.println("ERROR: " + iae.getMessage());
+	    usage();
+	}
+	PackageHandler pkghdl = PackageHandler.getHandler(altroot);
+	for (ContentsFileDetail cfd
+		 : query.run(pkghdl.getContentsParser())) {
+	    showFile(cfd, verbose, query.isTop());
+	}
+    }
+}
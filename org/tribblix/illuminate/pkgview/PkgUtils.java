@@ -236,24 +236,6 @@ public final class PkgUtils {
 	return wrapTable(sb);
     }
 
-    /**
-     * Produce a textual list of the files in a ContentsPackage.
-     * Not html, as that's too expensive to display.
-     *
-     * @param cpp a ContentsPackage to display
-     *
-     * @return a textual list of filenames
-     */
-    public static String doTextFileList(final ContentsPackage cpp) {
-	StringBuilder sb = new StringBuilder(80);
-	if (cpp != null) {
-	    for (ContentsFileDetail cfd : cpp.getDetails()) {
-		sb.append(cfd.getName()).append('\n');
-	    }
-	}
-	return sb.toString();
-    }
-
     private static String doDetailTable(final ContentsPackage cpp) {
 	StringBuilder sb = new StringBuilder(320);
 
@@ -427,7 +409,39 @@ public final class PkgUtils {
 	return sb.toString();
     }
 
-    private static String niceSpaceUsed(final long space) {
+    /**
+     * Produce a html table describing the space used under a directory,
+     * and which packages contribute the most to it.
+     *
+     * @param rollup the DirectoryRollup for this image
+     * @param id the id of the directory in the rollup
+     *
+     * @return a formatted html table
+     */
+    public static String directoryTable(final DirectoryRollup rollup,
+					final int id) {
+	StringBuilder sb = new StringBuilder(400);
+	headRow2(sb, PkgResources.getString("PKGUTILS.DIRSPACE"));
+	addRow(sb, PkgResources.getString("PKGUTILS.ENTRIES"),
+				rollup.getEntryCount(id));
+	addRow(sb, PkgResources.getString("PKGUTILS.SPC"),
+				niceSpaceUsed(rollup.getTotalBytes(id)));
+	String[] pkgs = rollup.getTopPackages(id);
+	long[] sizes = rollup.getTopPackageBytes(id);
+	if (pkgs.length > 0) {
+	    headRow(sb, PkgResources.getString("PKGUTILS.PACKAGE"),
+		PkgResources.getString("PKGUTILS.SPC"));
+	    for (int i = 0; i < pkgs.length; i++) {
+		addRow(sb, pkgs[i], niceSpaceUsed(sizes[i]));
+	    }
+	}
+	return wrapTable(sb);
+    }
+
+    /*
+     * Express a size in bytes in human-friendly units.
+     */
+    static String niceSpaceUsed(final long space) {
         DecimalFormat df = new DecimalFormat("##0.0#");
 	StringBuilder sb = new StringBuilder();
 	double dspace = space;
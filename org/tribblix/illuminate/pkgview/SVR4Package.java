@@ -36,7 +36,6 @@ public final class SVR4Package implements Comparable<SVR4Package> {
     private final PkgDepend pkgdepend;
 
     private final String name;
-    private Set<SVR4Package> depSet;
 
     /**
      * Create an SVR4 package container.
@@ -125,28 +124,6 @@ public final class SVR4Package implements Comparable<SVR4Package> {
 	return pkgdepend.getIncompatibleSet();
     }
 
-    /**
-     * Define the set of packages that are dependant on this package.
-     *
-     * @see #getDependantSet
-     *
-     * @param ndepSet the Set of dependant packages
-     */
-    public void setDependantSet(final Set<SVR4Package> ndepSet) {
-	depSet = ndepSet;
-    }
-
-    /**
-     * Return the set of packages that are dependant on this package.
-     *
-     * @see #setDependantSet
-     *
-     * @return the Set of dependant packages
-     */
-    public Set<SVR4Package> getDependantSet() {
-	return depSet;
-    }
-
     /**
      * Parse the pkginfo file.
      *
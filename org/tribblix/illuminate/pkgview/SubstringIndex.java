@@ -0,0 +1,204 @@
+/*
+ * SPDX-License-Identifier: CDDL-1.0
+ *
+ * CDDL HEADER START
+ *
+ * This file and its contents are supplied under the terms of the
+ * Common Development and Distribution License ("CDDL"), version 1.0.
+ * You may only use this file in accordance with the terms of version
+ * 1.0 of the CDDL.
+ *
+ * A full copy of the text of the CDDL should have accompanied this
+ * source. A copy of the CDDL is also available via the Internet at
+ * http://www.illumos.org/license/CDDL.
+ *
+ * CDDL HEADER END
+ *
+ * Copyright 2026 Peter Tribble
+ *
+ */
+
+package org.tribblix.illuminate.pkgview;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * SubstringIndex - find which of a fixed list of names contain a given
+ * string, ignoring case.
+ *
+ * <p>The names are held in lower case, with an index from each trigram
+ * (sequence of three characters) to the names containing it. A search
+ * only needs to check the names containing the rarest trigram in the
+ * search string. Trigrams are hashed into a fixed number of buckets, so
+ * the index is a pair of int arrays; a collision just means a few more
+ * names to check. Trigrams common to a large fraction of the names, such
+ * as those in /usr/, would barely narrow a search, so aren't indexed.
+ *
+ * <p>Results are arrays of indices into the original list, in ascending
+ * order. As the user types, each search usually extends the previous
+ * one, in which case {@link #refine} only rechecks the previous matches.
+ *
+ * <p>A SubstringIndex is immutable once built, so searches may be run
+ * on any thread.
+ *
+ * @author Peter Tribble
+ * @version 1.0
+ */
+public final class SubstringIndex {
+
+    /*
+     * The number of hash buckets is 1 << BITS.
+     */
+    private static final int BITS = 18;
+    /*
+     * Buckets holding more than 1 in STOP_FRACTION names aren't indexed.
+     */
+    private static final int STOP_FRACTION = 8;
+
+    private final String[] lower;
+    /*
+     * The number of names containing a trigram in each bucket.
+     */
+    private final int[] counts;
+    /*
+     * The names for bucket b are postings[offsets[b]] up to
+     * postings[offsets[b+1]], or none if the bucket is too common.
+     */
+    private final int[] offsets;
+    private final int[] postings;
+    private final int stop;
+
+    /**
+     * Build an index over the given names.
+     *
+     * @param names the names to index
+     */
+    public SubstringIndex(final String[] names) {
+	lower = new String[names.length];
+	for (int i = 0; i < names.length; i++) {
+	    lower[i] = names[i].toLowerCase(Locale.ENGLISH);
+	}
+	stop = Math.max(lower.length / STOP_FRACTION, 64);
+	/*
+	 * Two passes: count the names in each bucket, then fill in the
+	 * postings for the buckets that aren't too common.
+	 */
+	counts = new int[1 << BITS];
+	for (String s : lower) {
+	    for (int b : buckets(s)) {
+		counts[b]++;
+	    }
+	}
+	offsets = new int[counts.length + 1];
+	for (int b = 0; b < counts.length; b++) {
+	    offsets[b + 1] = offsets[b] + (counts[b] > stop ? 0 : counts[b]);
+	}
+	postings = new int[offsets[counts.length]];
+	int[] fill = Arrays.copyOf(offsets, counts.length);
+	for (int i = 0; i < lower.length; i++) {
+	    for (int b : buckets(lower[i])) {
+		if (counts[b] <= stop) {
+		    postings[fill[b]++] = i;
+		}
+	    }
+	}
+    }
+
+    /*
+     * The distinct buckets of the trigrams in a string.
+     */
+    private static int[] buckets(final String s) {
+	if (s.length() < 3) {
+	    return new int[0];
+	}
+	int[] g = new int[s.length() - 2];
+	for (int i = 0; i < g.length; i++) {
+	    g[i] = bucket(s, i);
+	}
+	Arrays.sort(g);
+	int n = 0;
+	for (int i = 0; i < g.length; i++) {
+	    if (i == 0 || g[i] != g[i - 1]) {
+		g[n++] = g[i];
+	    }
+	}
+	return (n == g.length) ? g : Arrays.copyOf(g, n);
+    }
+
+    private static int bucket(final String s, final int i) {
+	int h = (s.charAt(i) * 31 + s.charAt(i + 1)) * 31 + s.charAt(i + 2);
+	h *= 0x9E3779B9;
+	return h >>> (32 - BITS);
+    }
+
+    /**
+     * Return the number of names in this index.
+     *
+     * @return the number of names indexed
+     */
+    public int size() {
+	return lower.length;
+    }
+
+    /**
+     * Find all the names containing the given string.
+     *
+     * @param text the string to search for
+     *
+     * @return the indices of the matching names, in ascending order
+     */
+    public int[] search(final String text) {
+	String q = text.toLowerCase(Locale.ENGLISH);
+	int best = -1;
+	for (int i = 0; i + 3 <= q.length(); i++) {
+	    int b = bucket(q, i);
+	    if (counts[b] == 0) {
+		// no name contains this trigram
+		return new int[0];
+	    }
+	    if (counts[b] <= stop && (best < 0 || counts[b] < counts[best])) {
+		best = b;
+	    }
+	}
+	return (best < 0) ? scan(q)
+	    : check(Arrays.copyOfRange(postings, offsets[best],
+				offsets[best + 1]), q);
+    }
+
+    /**
+     * Find the names containing the given string, among the results of
+     * a previous search. The string must contain the text of that
+     * search, so that all its matches are among the previous ones.
+     *
+     * @param previous the results of a previous search
+     * @param text the string to search for
+     *
+     * @return the indices of the matching names, in ascending order
+     */
+    public int[] refine(final int[] previous, final String text) {
+	return check(previous, text.toLowerCase(Locale.ENGLISH));
+    }
+
+    private int[] scan(final String q) {
+	int[] matches = new int[lower.length];
+	int n = 0;
+	for (int i = 0; i < lower.length; i++) {
+	    if (lower[i].contains(q)) {
+		matches[n++] = i;
+	    }
+	}
+	return Arrays.copyOf(matches, n);
+    }
+
+    private int[] check(final int[] candidates, final String q) {
+	int[] matches = new int[candidates.length];
+	int n = 0;
+	for (int i : candidates) {
+	    if (lower[i].contains(q)) {
+		matches[n++] = i;
+	    }
+	}
+	return Arrays.copyOf(matches, n);
+    }
+}